@@ -41,10 +41,13 @@ import org.springframework.web.context.ContextLoaderListener;
 import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
 import org.springframework.web.filter.DelegatingFilterProxy;
 import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.util.UrlPathHelper;
 
+import javax.servlet.FilterRegistration;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRegistration;
+import javax.servlet.http.HttpServletRequest;
 
 @Configuration
 @ComponentScan
@@ -54,19 +57,33 @@ import javax.servlet.ServletRegistration;
 })
 public class Main extends SpringBootServletInitializer {
 
+    private static final String STATS_FEED_PATH = "/api/stats/feed";
+
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
     public static void main(String[] args) {
         SpringApplication.run(Main.class, args);
     }
 
     @Override
     public void onStartup(ServletContext servletContext) throws ServletException {
-        // Add spring security filter chain
-        servletContext.addFilter("springSecurityFilterChain", DelegatingFilterProxy.class)
-                .addMappingForUrlPatterns(null, false, "/*");
+        // Add spring security filter chain; every filter must support async requests for the stats feed to work
+        FilterRegistration.Dynamic securityFilter =
+            servletContext.addFilter("springSecurityFilterChain", DelegatingFilterProxy.class);
+        securityFilter.setAsyncSupported(true);
+        securityFilter.addMappingForUrlPatterns(null, false, "/*");
 
-        // Add Hibernate session binder
-        servletContext.addFilter("jpaTransactionFilter", OpenEntityManagerInViewFilter.class)
-                .addMappingForUrlPatterns(null, false, "/*");
+        // Add Hibernate session binder, except to the stats feed, which never touches the database and would otherwise
+        // hold an entity manager for as long as a dashboard stays subscribed
+        FilterRegistration.Dynamic transactionFilter =
+            servletContext.addFilter("jpaTransactionFilter", new OpenEntityManagerInViewFilter() {
+                @Override
+                protected boolean shouldNotFilter(HttpServletRequest request) {
+                    return STATS_FEED_PATH.equals(URL_PATH_HELPER.getPathWithinApplication(request));
+                }
+            });
+        transactionFilter.setAsyncSupported(true);
+        transactionFilter.addMappingForUrlPatterns(null, false, "/*");
 
         // Define application context
         AnnotationConfigWebApplicationContext rootContext = new AnnotationConfigWebApplicationContext();
@@ -80,6 +97,7 @@ public class Main extends SpringBootServletInitializer {
         // Add the dispatcher servlet to the servlet context and map it to /
         ServletRegistration.Dynamic servletRegister = servletContext.addServlet("dispatcher", dispatcherServlet);
         servletRegister.setLoadOnStartup(1);
+        servletRegister.setAsyncSupported(true);
         servletRegister.addMapping("/");
 
         servletContext.addListener(new ContextLoaderListener(rootContext));
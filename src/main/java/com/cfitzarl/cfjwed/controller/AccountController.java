@@ -24,16 +24,16 @@
 
 package com.cfitzarl.cfjwed.controller;
 
+import com.cfitzarl.cfjwed.core.security.AccessTokenService;
 import com.cfitzarl.cfjwed.core.security.SecurityContextWrapper;
 import com.cfitzarl.cfjwed.core.security.SessionConstant;
+import com.cfitzarl.cfjwed.core.security.SessionStore;
 import com.cfitzarl.cfjwed.data.dto.AccountDTO;
 import com.cfitzarl.cfjwed.data.dto.AuthenticationDTO;
+import com.cfitzarl.cfjwed.data.dto.mapper.AccountMapper;
 import com.cfitzarl.cfjwed.data.model.Account;
 import com.cfitzarl.cfjwed.exception.UnauthorizedException;
 import com.cfitzarl.cfjwed.service.AccountService;
-import com.cfitzarl.cfjwed.service.RedisService;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
@@ -50,13 +50,16 @@ import javax.validation.Valid;
 public class AccountController {
 
     @Autowired
-    private ModelMapper modelMapper;
+    private AccessTokenService accessTokenService;
+
+    @Autowired
+    private AccountMapper accountMapper;
 
     @Autowired
     private AccountService accountService;
 
     @Autowired
-    private RedisService redisService;
+    private SessionStore sessionStore;
 
     /**
      * This returns the current account's information.
@@ -65,10 +68,7 @@ public class AccountController {
      */
     @RequestMapping(value = "", method = RequestMethod.GET)
     public AccountDTO displayAccountConfigPage() {
-        return modelMapper.map(
-            accountService.find(SecurityContextWrapper.getId()),
-            AccountDTO.class
-        );
+        return accountMapper.toDto(accountService.find(SecurityContextWrapper.getId()));
     }
 
     /**
@@ -79,11 +79,12 @@ public class AccountController {
     @RequestMapping(value = "", method = RequestMethod.PUT)
     public void updateAccount(@Valid @RequestBody AccountDTO accountDTO) {
         accountDTO.setId(SecurityContextWrapper.getId());
-        accountService.save(modelMapper.map(accountDTO, Account.class));
+        accountService.save(accountMapper.toEntity(accountDTO));
     }
 
     /**
-     * This API provides account-specific information to the UI after a page refresh.
+     * This API provides account-specific information to the UI after a page refresh. In signed mode the browser holds
+     * an access token rather than a session token, so the information is rebuilt from the verified token instead.
      *
      * @param request
      * @return
@@ -94,10 +95,11 @@ public class AccountController {
         String authToken = request.getHeader(SessionConstant.AUTH_TOKEN_HEADER);
 
         if (authToken != null) {
-            String serializedAuthData = redisService.get(authToken);
+            AuthenticationDTO session = accessTokenService.isEnabled()
+                ? accessTokenService.describe(authToken) : sessionStore.find(authToken);
 
-            if (serializedAuthData != null) {
-                return new ObjectMapper().readValue(serializedAuthData, AuthenticationDTO.class);
+            if (session != null) {
+                return session;
             }
         }
 
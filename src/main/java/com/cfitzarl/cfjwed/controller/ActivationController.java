@@ -26,6 +26,7 @@ package com.cfitzarl.cfjwed.controller;
 
 import com.cfitzarl.cfjwed.data.dto.AccountDTO;
 import com.cfitzarl.cfjwed.data.dto.ActivateDTO;
+import com.cfitzarl.cfjwed.data.dto.mapper.AccountMapper;
 import com.cfitzarl.cfjwed.data.enums.AccountType;
 import com.cfitzarl.cfjwed.data.model.Account;
 import com.cfitzarl.cfjwed.data.model.Activation;
@@ -35,7 +36,6 @@ import com.cfitzarl.cfjwed.service.RegistrationService;
 import com.cfitzarl.cfjwed.service.AccountService;
 import com.cfitzarl.cfjwed.service.ActivationService;
 import org.apache.commons.lang3.StringUtils;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Controller;
@@ -66,7 +66,7 @@ public class ActivationController {
     private RegistrationService registrationService;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private AccountMapper accountMapper;
 
     /**
      * This creates an account and an associated activation record.
@@ -75,7 +75,7 @@ public class ActivationController {
      */
     @RequestMapping(value = "", method = RequestMethod.POST)
     public void createAccount(@RequestBody AccountDTO accountDTO) {
-        Account account = modelMapper.map(accountDTO, Account.class);
+        Account account = accountMapper.toEntity(accountDTO);
         account.setType(AccountType.INVITEE);
         registrationService.register(account);
     }
@@ -26,6 +26,7 @@ package com.cfitzarl.cfjwed.controller;
 
 import com.cfitzarl.cfjwed.core.security.SecurityContextWrapper;
 import com.cfitzarl.cfjwed.data.dto.AccountDTO;
+import com.cfitzarl.cfjwed.data.dto.mapper.AccountMapper;
 import com.cfitzarl.cfjwed.data.enums.AccountType;
 import com.cfitzarl.cfjwed.data.model.Account;
 import com.cfitzarl.cfjwed.exception.BadRequestException;
@@ -33,7 +34,6 @@ import com.cfitzarl.cfjwed.exception.ResourceNotFoundException;
 import com.cfitzarl.cfjwed.service.RegistrationService;
 import com.cfitzarl.cfjwed.service.AccountService;
 import com.fasterxml.jackson.annotation.JsonView;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -61,7 +61,7 @@ public class AdminController {
     private AccountService accountService;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private AccountMapper accountMapper;
 
     @Autowired
     @Qualifier("adminRegistrationService")
@@ -79,7 +79,7 @@ public class AdminController {
         List<AccountDTO> accounts = new ArrayList<>();
 
         for (Account account : accountService.find(AccountType.ADMIN)) {
-            accounts.add(modelMapper.map(account, AccountDTO.class));
+            accounts.add(accountMapper.toDto(account));
         }
 
         return accounts;
@@ -100,7 +100,7 @@ public class AdminController {
             throw new ResourceNotFoundException("Admin not found with id %s", id);
         }
 
-        return modelMapper.map(account, AccountDTO.class);
+        return accountMapper.toDto(account);
     }
 
     /**
@@ -132,7 +132,7 @@ public class AdminController {
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @RequestMapping(value = "", method = RequestMethod.POST)
     public void upsertAdmin(@Valid @RequestBody AccountDTO admin) {
-        Account account = modelMapper.map(admin, Account.class);
+        Account account = accountMapper.toEntity(admin);
         account.setType(AccountType.ADMIN);
         adminRegistrationService.register(account);
     }
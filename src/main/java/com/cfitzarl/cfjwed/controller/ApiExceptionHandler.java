@@ -24,13 +24,15 @@
 
 package com.cfitzarl.cfjwed.controller;
 
+import com.cfitzarl.cfjwed.core.config.JsonMapperRegistry;
 import com.cfitzarl.cfjwed.exception.BadRequestException;
 import com.cfitzarl.cfjwed.exception.DuplicateEmailException;
 import com.cfitzarl.cfjwed.exception.ResourceNotFoundException;
+import com.cfitzarl.cfjwed.exception.ServiceUnavailableException;
 import com.cfitzarl.cfjwed.exception.UnauthorizedException;
 import com.cfitzarl.cfjwed.service.LocalizationService;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.Data;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +47,7 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
@@ -59,10 +62,21 @@ public class ApiExceptionHandler {
     @Autowired
     private LocalizationService localizationService;
 
-    private ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private JsonMapperRegistry jsonMapperRegistry;
+
+    private ObjectWriter errorWriter;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ApiExceptionHandler.class);
 
+    /**
+     * Builds the error writer up front, since it is otherwise first needed while a failing request waits for it.
+     */
+    @PostConstruct
+    public void initialize() {
+        errorWriter = jsonMapperRegistry.writer(ErrorResponse.class);
+    }
+
     @ExceptionHandler(ResourceNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public void handleResourceNotFoundExceptions(ResourceNotFoundException e, HttpServletResponse response) {
@@ -106,6 +120,12 @@ public class ApiExceptionHandler {
         respond(e, "errors.duplicate.email", response);
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public void handleServiceUnavailableException(ServiceUnavailableException e, HttpServletResponse response) {
+        respond(e, "errors.unavailable", response);
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public void handleGenericException(Exception e, HttpServletResponse response) {
@@ -144,7 +164,7 @@ public class ApiExceptionHandler {
 
         try {
             response.setContentType("application/json");
-            response.getWriter().write(objectMapper.writeValueAsString(error));
+            response.getWriter().write(errorWriter.writeValueAsString(error));
         } catch (IOException io) {
             LOGGER.error("Error handling error request", io);
         }
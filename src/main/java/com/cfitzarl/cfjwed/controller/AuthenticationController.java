@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.controller;
+
+import com.cfitzarl.cfjwed.core.security.AccessTokenService;
+import com.cfitzarl.cfjwed.core.security.SessionConstant;
+import com.cfitzarl.cfjwed.core.security.SessionStore;
+import com.cfitzarl.cfjwed.data.dto.AuthenticationDTO;
+import com.cfitzarl.cfjwed.exception.UnauthorizedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * This contains the session APIs that accompany login, which is itself handled by the security filter chain.
+ */
+@Controller
+@ResponseBody
+@RequestMapping("/api/auth")
+public class AuthenticationController {
+
+    @Autowired
+    private AccessTokenService accessTokenService;
+
+    @Autowired
+    private SessionStore sessionStore;
+
+    /**
+     * This exchanges a refresh token for a new access token when signed access tokens are in use.
+     *
+     * @param refreshToken the refresh token returned at login
+     * @return the session carrying a new access token
+     * @throws Exception
+     */
+    @RequestMapping(value = "/refresh", method = RequestMethod.POST)
+    public AuthenticationDTO refresh(@RequestHeader(SessionConstant.REFRESH_TOKEN_HEADER) String refreshToken)
+            throws Exception {
+        AuthenticationDTO session = accessTokenService.refresh(refreshToken);
+
+        if (session == null) {
+            throw new UnauthorizedException("Could not find token");
+        }
+
+        return session;
+    }
+
+    /**
+     * This ends a session. An access token is revoked for the rest of its lifetime, while an opaque token or refresh
+     * token has its session removed.
+     *
+     * @param authToken the token sent with each request
+     * @param refreshToken the refresh token, if signed access tokens are in use
+     */
+    @RequestMapping(value = "/logout", method = RequestMethod.POST)
+    public void logout(
+            @RequestHeader(value = SessionConstant.AUTH_TOKEN_HEADER, required = false) String authToken,
+            @RequestHeader(value = SessionConstant.REFRESH_TOKEN_HEADER, required = false) String refreshToken) {
+        if (authToken != null) {
+            if (AccessTokenService.isAccessToken(authToken)) {
+                accessTokenService.revoke(authToken);
+            } else {
+                sessionStore.delete(authToken);
+            }
+        }
+
+        if ((refreshToken != null) && !AccessTokenService.isAccessToken(refreshToken)) {
+            sessionStore.delete(refreshToken);
+        }
+    }
+}
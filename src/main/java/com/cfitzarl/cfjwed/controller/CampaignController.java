@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.controller;
+
+import com.cfitzarl.cfjwed.data.dto.EmailCampaignDTO;
+import com.cfitzarl.cfjwed.data.dto.mapper.EmailCampaignMapper;
+import com.cfitzarl.cfjwed.data.enums.CampaignStatus;
+import com.cfitzarl.cfjwed.data.enums.OutboxStatus;
+import com.cfitzarl.cfjwed.data.model.EmailCampaign;
+import com.cfitzarl.cfjwed.exception.BadRequestException;
+import com.cfitzarl.cfjwed.exception.ResourceNotFoundException;
+import com.cfitzarl.cfjwed.service.EmailCampaignService;
+import com.cfitzarl.cfjwed.service.EmailOutboxService;
+import org.joda.time.DateTimeUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import javax.validation.Valid;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * This contains the APIs for emailing invitees in bulk. All of these APIs require an admin role.
+ */
+@Controller
+@ResponseBody
+@RequestMapping("/api/campaigns")
+public class CampaignController {
+
+    @Autowired
+    private EmailCampaignService emailCampaignService;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private EmailCampaignMapper emailCampaignMapper;
+
+    /**
+     * This returns every campaign, the most recent first. Delivery progress is only included when a single campaign
+     * is requested.
+     *
+     * @return the campaigns
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @RequestMapping(value = "", method = RequestMethod.GET)
+    public List<EmailCampaignDTO> displayCampaigns() {
+        List<EmailCampaignDTO> campaigns = new ArrayList<>();
+
+        for (EmailCampaign campaign : emailCampaignService.find()) {
+            campaigns.add(emailCampaignMapper.toDto(campaign));
+        }
+
+        return campaigns;
+    }
+
+    /**
+     * This returns a campaign with its progress. It is meant to be polled while the campaign runs.
+     *
+     * @param id the ID of the campaign
+     * @return the campaign and its progress
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @RequestMapping(value = "/{id}", method = RequestMethod.GET)
+    public EmailCampaignDTO displayCampaign(@PathVariable UUID id) {
+        EmailCampaign campaign = findCampaign(id);
+        EmailCampaignDTO dto = emailCampaignMapper.toDto(campaign);
+        Map<OutboxStatus, Long> counts = emailOutboxService.countByCampaign(id);
+
+        dto.setSent(counts.get(OutboxStatus.SENT));
+        dto.setFailed(counts.get(OutboxStatus.FAILED));
+        dto.setPending(counts.get(OutboxStatus.PENDING));
+
+        if (dto.getStartedAt() != null) {
+            long now = DateTimeUtils.currentTimeMillis();
+            long elapsed = Math.max(now - dto.getStartedAt(), 1);
+            dto.setSentPerSecond(dto.getSent() * 1000.0 / elapsed);
+        }
+
+        return dto;
+    }
+
+    /**
+     * This starts a campaign, which emails every invitation in its audience in the background.
+     *
+     * @param dto the subject, message and audience of the campaign
+     * @return the started campaign
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @RequestMapping(value = "", method = RequestMethod.POST)
+    public EmailCampaignDTO startCampaign(@Valid @RequestBody EmailCampaignDTO dto) {
+        return emailCampaignMapper.toDto(emailCampaignService.start(emailCampaignMapper.toEntity(dto)));
+    }
+
+    /**
+     * This cancels a running campaign. Emails that were already queued are still sent.
+     *
+     * @param id the ID of the campaign
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @RequestMapping(value = "/{id}", method = RequestMethod.DELETE)
+    public void cancelCampaign(@PathVariable UUID id) {
+        EmailCampaign campaign = findCampaign(id);
+
+        if (campaign.getStatus() != CampaignStatus.RUNNING) {
+            throw new BadRequestException("errors.campaign.ended");
+        }
+
+        emailCampaignService.cancel(campaign);
+    }
+
+    private EmailCampaign findCampaign(UUID id) {
+        EmailCampaign campaign = emailCampaignService.find(id);
+
+        if (campaign == null) {
+            throw new ResourceNotFoundException("No campaign exists with id %s", id);
+        }
+
+        return campaign;
+    }
+}
@@ -26,10 +26,10 @@ package com.cfitzarl.cfjwed.controller;
 
 import com.cfitzarl.cfjwed.data.dto.ConfigDTO;
 import com.cfitzarl.cfjwed.data.dto.ListContainer;
+import com.cfitzarl.cfjwed.data.dto.mapper.ConfigMapper;
 import com.cfitzarl.cfjwed.data.model.Config;
 
 import com.cfitzarl.cfjwed.service.ConfigurationService;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
@@ -48,7 +48,7 @@ import java.util.List;
 public class ConfigurationController {
 
     @Autowired
-    private ModelMapper modelMapper;
+    private ConfigMapper configMapper;
 
     @Autowired
     private ConfigurationService configurationService;
@@ -65,7 +65,7 @@ public class ConfigurationController {
         List<ConfigDTO> configs = new ArrayList<>();
 
         for (Config config : configurationService.find()) {
-            configs.add(modelMapper.map(config, ConfigDTO.class));
+            configs.add(configMapper.toDto(config));
         }
 
         return configs;
@@ -80,7 +80,7 @@ public class ConfigurationController {
     @RequestMapping(value = "", method = RequestMethod.POST)
     public void processConfig(@Valid @RequestBody ListContainer<ConfigDTO> configs) {
         for (ConfigDTO configDto : configs.getList()) {
-            configurationService.save(modelMapper.map(configDto, Config.class));
+            configurationService.save(configMapper.toEntity(configDto));
         }
     }
 }
@@ -24,7 +24,6 @@
 
 package com.cfitzarl.cfjwed.controller;
 
-import com.cfitzarl.cfjwed.data.enums.ConfigKey;
 import com.cfitzarl.cfjwed.service.ConfigurationService;
 import com.cfitzarl.cfjwed.service.RedisService;
 import org.slf4j.Logger;
@@ -59,8 +58,15 @@ public class HealthController {
     @RequestMapping(value = "", method = RequestMethod.GET)
     public void checkHealth(HttpServletResponse response) {
         try {
-            configurationService.findByKey(ConfigKey.EMAIL);
-            redisService.get("health");
+            if (!configurationService.ping()) {
+                LOGGER.error("CRITICAL: Database outage detected");
+                response.setStatus(502);
+            }
+
+            if (!redisService.ping()) {
+                LOGGER.error("CRITICAL: Redis outage detected");
+                response.setStatus(502);
+            }
         } catch (Exception e) {
             LOGGER.error("CRITICAL: Service outage detected", e);
             response.setStatus(502);
@@ -25,16 +25,24 @@
 package com.cfitzarl.cfjwed.controller;
 
 import com.cfitzarl.cfjwed.core.security.SecurityContextWrapper;
+import com.cfitzarl.cfjwed.data.dao.EntityBatchLoader;
 import com.cfitzarl.cfjwed.data.dto.AttendantDTO;
+import com.cfitzarl.cfjwed.data.dto.AttendantResultDTO;
 import com.cfitzarl.cfjwed.data.dto.InvitationDTO;
+import com.cfitzarl.cfjwed.data.dto.KeysetCursor;
 import com.cfitzarl.cfjwed.data.dto.ListContainer;
+import com.cfitzarl.cfjwed.data.dto.mapper.AttendantMapper;
+import com.cfitzarl.cfjwed.data.dto.mapper.InvitationMapper;
 import com.cfitzarl.cfjwed.data.model.Attendant;
 import com.cfitzarl.cfjwed.data.model.Invitation;
+import com.cfitzarl.cfjwed.exception.BadRequestException;
 import com.cfitzarl.cfjwed.exception.ResourceNotFoundException;
 import com.cfitzarl.cfjwed.service.AttendantService;
 import com.cfitzarl.cfjwed.service.InvitationService;
-import org.modelmapper.ModelMapper;
+import com.cfitzarl.cfjwed.service.MealOptionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
@@ -42,8 +50,11 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * This provides all API functionality related to {@link Invitation}s.
@@ -60,7 +71,19 @@ public class InvitationController {
     private InvitationService invitationService;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private MealOptionService mealOptionService;
+
+    @Autowired
+    private AttendantMapper attendantMapper;
+
+    @Autowired
+    private InvitationMapper invitationMapper;
+
+    @Autowired
+    private EntityBatchLoader entityBatchLoader;
+
+    /** Far more than any invitation has, while keeping a single request from holding a transaction open for long **/
+    private static final int MAX_ATTENDANTS = 50;
 
     /**
      * This returns a list of {@link Invitation} data by transforming them into a list of {@link InvitationDTO}s.
@@ -74,11 +97,48 @@ public class InvitationController {
     public ListContainer<InvitationDTO> provideInvitations(@RequestParam Integer page, @RequestParam Integer limit) {
         ListContainer<InvitationDTO> invitations = new ListContainer<>();
 
-        for (Invitation invitation : invitationService.find(page, limit)) {
-            invitations.addToList(modelMapper.map(invitation, InvitationDTO.class));
+        Page<Invitation> invitationPage = invitationService.find(page, limit);
+
+        for (Invitation invitation : invitationPage) {
+            invitations.addToList(invitationMapper.toDto(invitation));
         }
 
-        invitations.setCount(invitationService.getTotalCount());
+        invitations.setCount(invitationPage.getTotalElements());
+
+        return invitations;
+    }
+
+    /**
+     * This returns a list of {@link Invitation} data using keyset pagination. Rather than a page number, each
+     * response carries a cursor to request the next page with, so later pages are as cheap to fetch as the first.
+     * Counting all invitations costs a query of its own, so it only happens when asked for.
+     *
+     * @param limit the invitation per-page limit
+     * @param cursor the cursor returned with the previous page, if any
+     * @param count whether to include the total number of invitations
+     * @return the list of invitation DTOs
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @RequestMapping(value = "", method = RequestMethod.GET, params = "!page")
+    public ListContainer<InvitationDTO> provideInvitationsAfter(@RequestParam Integer limit,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(defaultValue = "false") boolean count) {
+        KeysetCursor after = (cursor == null) ? null : KeysetCursor.decode(cursor);
+        Slice<Invitation> slice = invitationService.findAfter(after, limit);
+        ListContainer<InvitationDTO> invitations = new ListContainer<>();
+
+        for (Invitation invitation : slice) {
+            invitations.addToList(invitationMapper.toDto(invitation));
+        }
+
+        if (slice.hasNext()) {
+            Invitation last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            invitations.setCursor(new KeysetCursor(last.getName(), last.getId()).encode());
+        }
+
+        if (count) {
+            invitations.setCount(invitationService.getTotalCount());
+        }
 
         return invitations;
     }
@@ -91,12 +151,12 @@ public class InvitationController {
      */
     @RequestMapping(value = "/{id}", method = RequestMethod.GET)
     public InvitationDTO provideInvitation(@PathVariable UUID id) {
-        Invitation invitation = invitationService.find(id);
+        Invitation invitation = invitationService.findDetail(id);
 
         if (invitation == null) { throw new ResourceNotFoundException(); }
         SecurityContextWrapper.authorize(invitation.getAccount());
 
-        return modelMapper.map(invitation, InvitationDTO.class);
+        return invitationMapper.toDto(invitation);
     }
 
     /**
@@ -122,7 +182,7 @@ public class InvitationController {
         List<AttendantDTO> attendants = new ArrayList<>();
 
         for (Attendant attendant : attendantService.findByInvitation(id)) {
-            attendants.add(modelMapper.map(attendant, AttendantDTO.class));
+            attendants.add(attendantMapper.toDto(attendant));
         }
 
         return attendants;
@@ -137,17 +197,76 @@ public class InvitationController {
      */
     @RequestMapping(value = "/{invitationId}/attendants", method = RequestMethod.POST)
     public void processAttendant(@PathVariable UUID invitationId, @Valid @RequestBody AttendantDTO attendantDTO) {
-        Attendant existingAttendant = attendantService.find(attendantDTO.getId());
+        // Invitations are loaded with their accounts before the attendant, which then finds its invitation in memory
+        entityBatchLoader.prefetch(Invitation.class, invitationId, attendantDTO.getInvitation());
+        Invitation invitation = entityBatchLoader.find(Invitation.class, invitationId);
+        Attendant existingAttendant = entityBatchLoader.find(Attendant.class, attendantDTO.getId());
 
         if (existingAttendant != null) {
             SecurityContextWrapper.authorize(existingAttendant.getInvitation().getAccount());
         }
 
-        if (invitationService.find(invitationId) == null) {
+        if (invitation == null) {
             throw new ResourceNotFoundException("Invitation with id %s not found", invitationId);
         }
 
-        attendantService.save(modelMapper.map(attendantDTO, Attendant.class));
+        attendantService.save(attendantMapper.toEntity(attendantDTO));
+    }
+
+    /**
+     * This saves all {@link Attendant}s of an {@link Invitation} at once. The caller is authorized against the
+     * invitation a single time, every attendant is checked on its own, and those that pass are saved together in one
+     * transaction. Attendants that fail a check are left untouched and reported in the results. At most
+     * {@value #MAX_ATTENDANTS} attendants may be submitted at once.
+     *
+     * @param invitationId the ID of the {@link Invitation} the {@link Attendant}s belong to
+     * @param attendantDTOs the attendant data
+     * @return the outcome for each attendant, in the order they were submitted
+     */
+    @RequestMapping(value = "/{invitationId}/attendants", method = RequestMethod.PUT)
+    public List<AttendantResultDTO> processAttendants(@PathVariable UUID invitationId,
+                                                      @Valid @RequestBody ListContainer<AttendantDTO> attendantDTOs) {
+        Invitation invitation = entityBatchLoader.find(Invitation.class, invitationId);
+
+        if (invitation == null) {
+            throw new ResourceNotFoundException("Invitation with id %s not found", invitationId);
+        }
+
+        SecurityContextWrapper.authorize(invitation.getAccount());
+
+        List<AttendantDTO> dtos = attendantDTOs.getList();
+
+        if (dtos == null) {
+            throw new BadRequestException("A list of attendants is required");
+        }
+
+        if (dtos.size() > MAX_ATTENDANTS) {
+            throw new BadRequestException("At most %d attendants may be saved at once", MAX_ATTENDANTS);
+        }
+
+        List<UUID> ids = dtos.stream().map(AttendantDTO::getId).collect(Collectors.toList());
+        entityBatchLoader.prefetch(Attendant.class, ids);
+
+        List<AttendantResultDTO> results = new ArrayList<>();
+        Map<Attendant, AttendantResultDTO> accepted = new IdentityHashMap<>();
+
+        for (AttendantDTO dto : dtos) {
+            String error = findRejection(invitationId, dto);
+            AttendantResultDTO result = new AttendantResultDTO(dto.getId(), error == null, error);
+            results.add(result);
+
+            if (error == null) {
+                dto.setInvitation(invitationId);
+                accepted.put(attendantMapper.toEntity(dto), result);
+            }
+        }
+
+        attendantService.saveAll(accepted.keySet());
+
+        // New attendants without an ID of their own are only assigned one when they are saved
+        accepted.forEach((attendant, result) -> result.setId(attendant.getId()));
+
+        return results;
     }
 
     /**
@@ -172,7 +291,25 @@ public class InvitationController {
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @RequestMapping(value = "", method = RequestMethod.POST)
     public InvitationDTO createInvitation(@Valid @RequestBody InvitationDTO invitationDTO) {
-        Invitation invitation = invitationService.upsert(modelMapper.map(invitationDTO, Invitation.class));
-        return modelMapper.map(invitation, InvitationDTO.class);
+        Invitation invitation = invitationService.upsert(invitationMapper.toEntity(invitationDTO));
+        return invitationMapper.toDto(invitation);
+    }
+
+    private String findRejection(UUID invitationId, AttendantDTO dto) {
+        if ((dto.getInvitation() != null) && !invitationId.equals(dto.getInvitation())) {
+            return "The attendant is addressed to a different invitation";
+        }
+
+        Attendant existingAttendant = entityBatchLoader.find(Attendant.class, dto.getId());
+
+        if ((existingAttendant != null) && !invitationId.equals(existingAttendant.getInvitation().getId())) {
+            return "The attendant belongs to a different invitation";
+        }
+
+        if ((dto.getDiningOption() != null) && (mealOptionService.find(dto.getDiningOption()) == null)) {
+            return "The meal option does not exist";
+        }
+
+        return null;
     }
 }
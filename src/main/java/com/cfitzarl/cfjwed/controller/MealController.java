@@ -25,9 +25,9 @@
 package com.cfitzarl.cfjwed.controller;
 
 import com.cfitzarl.cfjwed.data.dto.MealOptionDTO;
+import com.cfitzarl.cfjwed.data.dto.mapper.MealOptionMapper;
 import com.cfitzarl.cfjwed.data.model.MealOption;
 import com.cfitzarl.cfjwed.service.MealOptionService;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
@@ -54,14 +54,14 @@ public class MealController {
     private MealOptionService mealOptionService;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private MealOptionMapper mealOptionMapper;
 
     @RequestMapping(value = "", method = RequestMethod.GET)
     public List<MealOptionDTO> getAllDiningOptions() {
         List<MealOptionDTO> dtoList = new ArrayList<>();
 
         for (MealOption options : mealOptionService.find()) {
-            dtoList.add(modelMapper.map(options, MealOptionDTO.class));
+            dtoList.add(mealOptionMapper.toDto(options));
         }
 
         return dtoList;
@@ -70,13 +70,13 @@ public class MealController {
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @RequestMapping(value = "", method = RequestMethod.POST)
     public void upsertMealOption(@Valid @RequestBody MealOptionDTO mealOption) {
-        mealOptionService.save(modelMapper.map(mealOption, MealOption.class));
+        mealOptionService.save(mealOptionMapper.toEntity(mealOption));
     }
 
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @RequestMapping(value =  "/{id}", method = RequestMethod.GET)
     public MealOptionDTO getMeal(@PathVariable UUID id) {
-        return modelMapper.map(mealOptionService.find(id), MealOptionDTO.class);
+        return mealOptionMapper.toDto(mealOptionService.find(id));
     }
 
     @PreAuthorize("hasRole('ROLE_ADMIN')")
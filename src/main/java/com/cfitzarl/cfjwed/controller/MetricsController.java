@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.controller;
+
+import com.cfitzarl.cfjwed.core.metrics.MetricSource;
+import com.cfitzarl.cfjwed.core.scheduling.JobCoordinator;
+import com.cfitzarl.cfjwed.data.dto.JobExecutionDTO;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This exposes the internal counters of every {@link MetricSource} and the history of scheduled jobs. All of these APIs
+ * require an admin role.
+ */
+@Controller
+@ResponseBody
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    @Autowired
+    private ListableBeanFactory beanFactory;
+
+    @Autowired
+    private JobCoordinator jobCoordinator;
+
+    /**
+     * This returns a snapshot of all metrics, grouped by the name of their source.
+     *
+     * @return the metrics
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @RequestMapping(value = "", method = RequestMethod.GET)
+    public Map<String, Map<String, Number>> displayMetrics() {
+        Map<String, Map<String, Number>> metrics = new TreeMap<>();
+
+        // Looked up per request since some sources are only known by their concrete type once instantiated
+        for (MetricSource source : beanFactory.getBeansOfType(MetricSource.class).values()) {
+            metrics.put(source.getMetricName(), source.getMetrics());
+        }
+
+        return metrics;
+    }
+
+    /**
+     * This returns the recent runs of a scheduled job across every node.
+     *
+     * @param job the name of the job
+     * @return the runs of the job, in the order they started
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @RequestMapping(value = "/jobs/{job}", method = RequestMethod.GET)
+    public List<JobExecutionDTO> displayJobHistory(@PathVariable String job) {
+        return jobCoordinator.findHistory(job);
+    }
+}
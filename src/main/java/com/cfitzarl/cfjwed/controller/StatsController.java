@@ -26,23 +26,35 @@ package com.cfitzarl.cfjwed.controller;
 
 import com.cfitzarl.cfjwed.data.dto.StatsDTO;
 import com.cfitzarl.cfjwed.data.enums.ResponseStatus;
-import com.cfitzarl.cfjwed.data.model.Attendant;
 import com.cfitzarl.cfjwed.data.model.MealOption;
 import com.cfitzarl.cfjwed.service.AttendantService;
 import com.cfitzarl.cfjwed.service.LocalizationService;
 import com.cfitzarl.cfjwed.service.MealOptionService;
+import com.cfitzarl.cfjwed.service.RsvpCounterService;
 import com.opencsv.CSVWriter;
-import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.Collections;
-import java.util.List;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * This provides statistical APIs for data analysis.
@@ -61,6 +73,13 @@ public class StatsController {
     @Autowired
     private MealOptionService mealOptionService;
 
+    @Autowired
+    private RsvpCounterService rsvpCounterService;
+
+    private static final int EXPORT_BUFFER_SIZE = 8192;
+
+    private static final int EXPORT_FLUSH_ROWS = 500;
+
     /**
      * This returns four different statistics back to the browser:
      *
@@ -71,24 +90,42 @@ public class StatsController {
      *    <li>A breakdown of each meal and how many people have chosen them</li>
      * </ul>
      *
+     * The counts are read from the maintained RSVP counters rather than counted.
+     *
      * @return the stats
      */
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @RequestMapping(value = "", method = RequestMethod.GET)
     public StatsDTO displayStats() {
 
+        Map<ResponseStatus, Long> statusCounts = rsvpCounterService.getStatusCounts();
+        Map<UUID, Long> mealCounts = rsvpCounterService.getMealCounts();
+
         StatsDTO dto = new StatsDTO();
-        dto.setAcceptedAttendants(attendantService.countByStatus(ResponseStatus.ACCEPTED));
-        dto.setDeclinedAttendants(attendantService.countByStatus(ResponseStatus.DECLINED));
-        dto.setPendingAttendants(attendantService.countByStatus(ResponseStatus.PENDING));
+        dto.setAcceptedAttendants(statusCounts.get(ResponseStatus.ACCEPTED));
+        dto.setDeclinedAttendants(statusCounts.get(ResponseStatus.DECLINED));
+        dto.setPendingAttendants(statusCounts.get(ResponseStatus.PENDING));
 
-        for (Pair<MealOption, Long> mealGroupings : mealOptionService.getChosenMealCount()) {
-            dto.addMealStat(mealGroupings.getLeft().getName(), mealGroupings.getRight());
+        for (MealOption option : mealOptionService.find()) {
+            dto.addMealStat(option.getId(), option.getName(), mealCounts.getOrDefault(option.getId(), 0L));
         }
 
         return dto;
     }
 
+    /**
+     * This streams changes to the statistics as server-sent events, so that dashboards need not poll. A
+     * {@code snapshot} event carrying every count comes first and is repeated periodically; {@code delta} events carry
+     * changes to individual counts as they happen. Meals are identified by their ID.
+     *
+     * @return the event stream
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @RequestMapping(value = "/feed", method = RequestMethod.GET)
+    public SseEmitter streamStats() {
+        return rsvpCounterService.subscribe();
+    }
+
     /**
      * This returns a CSV file containing a list of attendants with the following fields:
      *
@@ -98,16 +135,34 @@ public class StatsController {
      *     <li>Meal</li>
      * </ul>
      *
+     * Rows are written as they are read from the database and flushed to the client in batches, so the export starts
+     * immediately and uses the same memory however many attendants there are. It is compressed if the client accepts
+     * gzip.
+     *
+     * @param request the request
      * @param response the response
      * @throws Exception
      */
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @RequestMapping(value = "/attendants.csv", method = RequestMethod.GET)
-    public void exportAttendantStats(HttpServletResponse response) throws Exception {
+    public void exportAttendantStats(HttpServletRequest request, HttpServletResponse response) throws Exception {
         response.setHeader("Content-Disposition", "attachment; filename=attendants.csv");
-        response.setContentType("text/csv");
+        response.setContentType("text/csv;charset=UTF-8");
+
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        OutputStream output = response.getOutputStream();
+
+        if (StringUtils.contains(request.getHeader(HttpHeaders.ACCEPT_ENCODING), "gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            // Sync flushing lets each batch of rows reach the client rather than sit in the compressor
+            output = new GZIPOutputStream(output, EXPORT_BUFFER_SIZE, true);
+        }
+
+        Writer responseWriter =
+            new OutputStreamWriter(new BufferedOutputStream(output, EXPORT_BUFFER_SIZE), StandardCharsets.UTF_8);
 
-        try (CSVWriter writer = new CSVWriter(response.getWriter())) {
+        try (CSVWriter writer = new CSVWriter(responseWriter)) {
             // Write out the headers
             writer.writeNext(
                 new String[] {
@@ -118,20 +173,26 @@ public class StatsController {
                 }
             );
 
-            List<Attendant> attendants = attendantService.find();
+            // Write out data for each attendant, which arrive sorted by invitation name
+            AtomicInteger rows = new AtomicInteger();
 
-            // Sort by invitation name
-            Collections.sort(attendants,
-                ((attendant, t1) -> attendant.getInvitation().getName().compareTo(t1.getInvitation().getName()))
-            );
+            attendantService.export(row -> {
+                String status = row.getResponseStatus().toString();
+                String meal = (row.getMealName() == null) ? "" : row.getMealName();
+                writer.writeNext(new String[] { row.getPartyName(), row.getName(), status, meal });
+
+                if (rows.incrementAndGet() % EXPORT_FLUSH_ROWS == 0) {
+                    flush(writer);
+                }
+            });
+        }
+    }
 
-            // Write out data for each attendant
-            for (Attendant attendant : attendants) {
-                String partyName = attendant.getInvitation().getName();
-                String status = attendant.getResponseStatus().toString();
-                String meal = (attendant.getMeal() == null) ? "" : attendant.getMeal().getName();
-                writer.writeNext(new String[] { partyName, attendant.getName(), status, meal });
-            }
+    private static void flush(CSVWriter writer) {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
@@ -46,6 +46,9 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 @EnableJpaRepositories("com.cfitzarl.cfjwed.data")
 class DatabaseConfigurationContainer {
 
+    @Value("${db.batch.size}")
+    private String batchSize;
+
     @Value("${db.dialect}")
     private String dialect;
 
@@ -79,6 +82,11 @@ class DatabaseConfigurationContainer {
         Properties jpaProperties = new Properties();
         jpaProperties.setProperty("hibernate.dialect", dialect);
 
+        // Group statements per table so that saving many rows in one transaction is sent in JDBC batches
+        jpaProperties.setProperty("hibernate.jdbc.batch_size", batchSize);
+        jpaProperties.setProperty("hibernate.order_inserts", "true");
+        jpaProperties.setProperty("hibernate.order_updates", "true");
+
         LocalContainerEntityManagerFactoryBean entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
         entityManagerFactory.setDataSource(dataSource);
         entityManagerFactory.setPackagesToScan("com.cfitzarl.cfjwed.data");
@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.config;
+
+import com.cfitzarl.cfjwed.data.dto.AuthenticationDTO;
+import com.cfitzarl.cfjwed.data.dto.JobExecutionDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This holds the single, application-wide Jackson {@link ObjectMapper} along with the readers and writers built from
+ * it. Building a mapper and introspecting a type for the first time are both expensive, so every component shares
+ * this registry rather than creating its own mapper. Readers and writers are immutable and thread-safe, and they are
+ * cached per type with their (de)serializers already resolved. Those for the types read and written on the request
+ * path are built at startup, so no request ever pays for introspection; any other type is built the first time it is
+ * requested.
+ */
+@Component
+public class JsonMapperRegistry {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    private static final List<Class<?>> READ_TYPES = Arrays.asList(Map.class, AuthenticationDTO.class,
+        JobExecutionDTO.class);
+
+    private static final List<Class<?>> WRITE_TYPES = Arrays.asList(AuthenticationDTO.class, JobExecutionDTO.class);
+
+    @PostConstruct
+    public void initialize() {
+        READ_TYPES.forEach(this::reader);
+        WRITE_TYPES.forEach(this::writer);
+    }
+
+    /**
+     * Returns the shared mapper. Prefer {@link #reader(Class)} and {@link #writer(Class)} where the type is known.
+     *
+     * @return the mapper
+     */
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Returns a reader bound to the given type.
+     *
+     * @param type the type to deserialize
+     * @return the reader
+     */
+    public ObjectReader reader(Class<?> type) {
+        return readers.computeIfAbsent(type, t -> {
+            objectMapper.canDeserialize(objectMapper.constructType(t));
+            return objectMapper.readerFor(t);
+        });
+    }
+
+    /**
+     * Returns a writer bound to the given type.
+     *
+     * @param type the type to serialize
+     * @return the writer
+     */
+    public ObjectWriter writer(Class<?> type) {
+        return writers.computeIfAbsent(type, t -> {
+            objectMapper.canSerialize(t);
+            return objectMapper.writerFor(t);
+        });
+    }
+}
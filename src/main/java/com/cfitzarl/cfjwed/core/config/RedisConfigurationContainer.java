@@ -0,0 +1,187 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.config;
+
+import com.cfitzarl.cfjwed.core.redis.RedisNode;
+import com.cfitzarl.cfjwed.core.redis.RedisTopology;
+import com.cfitzarl.cfjwed.core.resilience.CircuitBreaker;
+import com.cfitzarl.cfjwed.service.RedisService;
+import com.cfitzarl.cfjwed.service.impl.LocalRedisService;
+import com.cfitzarl.cfjwed.service.impl.MappedRedisService;
+import com.cfitzarl.cfjwed.service.impl.ResilientRedisService;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This configures the connection to Redis and decides which {@link RedisService} the rest of the application sees.
+ * Keys can be sharded across several Redis nodes listed in {@code jedis.nodes}, each optionally with a replica that
+ * serves reads; without that list the single {@code jedis.host} is used. Every Jedis pool is bounded and every
+ * connection has connect and read timeouts, so a stalled Redis costs a request at most the timeout rather than
+ * blocking it indefinitely. On top of that, the primary {@link RedisService} is a {@link ResilientRedisService} that
+ * stops calling Redis altogether while it is misbehaving.
+ *
+ * <p>Single-node deployments can set {@code redis.store} to {@code mapped} to do without Redis entirely, in which case
+ * the primary {@link RedisService} is a {@link MappedRedisService} backed by a local file.</p>
+ */
+@Configuration
+public class RedisConfigurationContainer {
+
+    @Value("${redis.store}")
+    private String store;
+
+    @Value("${redis.mapped.file}")
+    private String mappedFile;
+
+    @Value("${redis.mapped.slots}")
+    private int mappedSlots;
+
+    @Value("${redis.mapped.slot.size}")
+    private int mappedSlotSize;
+
+    @Value("${jedis.host}")
+    private String jedisHost;
+
+    @Value("${jedis.port}")
+    private Integer jedisPort;
+
+    @Value("${jedis.nodes}")
+    private String jedisNodes;
+
+    @Value("${jedis.read.from.replica}")
+    private boolean readFromReplica;
+
+    @Value("${jedis.ring.virtual.nodes}")
+    private int virtualNodes;
+
+    @Value("${jedis.pool.max.total}")
+    private int poolMaxTotal;
+
+    @Value("${jedis.pool.max.idle}")
+    private int poolMaxIdle;
+
+    @Value("${jedis.pool.min.idle}")
+    private int poolMinIdle;
+
+    @Value("${jedis.pool.max.wait}")
+    private long poolMaxWait;
+
+    @Value("${jedis.timeout.connect}")
+    private int connectTimeout;
+
+    @Value("${jedis.timeout.read}")
+    private int readTimeout;
+
+    @Value("${jedis.breaker.window.size}")
+    private int breakerWindowSize;
+
+    @Value("${jedis.breaker.minimum.calls}")
+    private int breakerMinimumCalls;
+
+    @Value("${jedis.breaker.failure.rate}")
+    private int breakerFailureRate;
+
+    @Value("${jedis.breaker.slow.call.rate}")
+    private int breakerSlowCallRate;
+
+    @Value("${jedis.breaker.slow.call.duration}")
+    private long breakerSlowCallDuration;
+
+    @Value("${jedis.breaker.open.duration}")
+    private long breakerOpenDuration;
+
+    @Value("${jedis.fallback.max.entries}")
+    private int fallbackMaxEntries;
+
+    private static final String MAPPED_STORE = "mapped";
+
+    /**
+     * Builds the nodes from {@code jedis.nodes}, a comma-separated list of {@code host:port} primaries, each optionally
+     * followed by {@code |host:port} for its replica.
+     */
+    @Bean(destroyMethod = "close")
+    public RedisTopology redisTopology() {
+        String nodeList = StringUtils.isBlank(jedisNodes) ? (jedisHost + ":" + jedisPort) : jedisNodes;
+        Map<String, RedisNode> nodes = new LinkedHashMap<>();
+
+        for (String node : StringUtils.split(nodeList, ',')) {
+            String[] addresses = StringUtils.split(node.trim(), '|');
+            String primary = addresses[0].trim();
+            String replica = (readFromReplica && addresses.length > 1) ? addresses[1].trim() : null;
+
+            nodes.put(primary, new RedisNode(primary, pool(primary), (replica != null) ? pool(replica) : null));
+        }
+
+        return new RedisTopology(nodes, virtualNodes);
+    }
+
+    @Bean
+    public LocalRedisService fallbackRedisService() {
+        return new LocalRedisService(fallbackMaxEntries);
+    }
+
+    @Bean
+    @Primary
+    public RedisService redisService(@Qualifier("redisServiceImpl") RedisService remote) {
+        if (MAPPED_STORE.equals(store)) {
+            return new MappedRedisService(new File(mappedFile), mappedSlots, mappedSlotSize);
+        }
+
+        CircuitBreaker circuitBreaker = new CircuitBreaker(
+            breakerWindowSize,
+            breakerMinimumCalls,
+            breakerFailureRate,
+            breakerSlowCallRate,
+            breakerSlowCallDuration,
+            breakerOpenDuration
+        );
+
+        return new ResilientRedisService(remote, fallbackRedisService(), circuitBreaker);
+    }
+
+    private JedisPool pool(String address) {
+        String host = StringUtils.substringBeforeLast(address, ":");
+        int port = Integer.parseInt(StringUtils.substringAfterLast(address, ":"));
+
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(poolMaxTotal);
+        poolConfig.setMaxIdle(poolMaxIdle);
+        // Nothing borrows from the pool when Redis is not the store, so don't keep connections open for nothing
+        poolConfig.setMinIdle(MAPPED_STORE.equals(store) ? 0 : poolMinIdle);
+        poolConfig.setMaxWaitMillis(poolMaxWait);
+        poolConfig.setBlockWhenExhausted(true);
+
+        return new JedisPool(poolConfig, host, port, connectTimeout, readTimeout, null, 0, "cfjwed");
+    }
+}
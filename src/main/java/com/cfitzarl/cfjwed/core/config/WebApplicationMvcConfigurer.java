@@ -26,6 +26,7 @@ package com.cfitzarl.cfjwed.core.config;
 
 import org.apache.velocity.app.VelocityEngine;
 import org.apache.velocity.exception.VelocityException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
@@ -38,7 +39,10 @@ import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.ui.velocity.VelocityEngineFactory;
 import org.springframework.web.servlet.LocaleResolver;
@@ -46,27 +50,42 @@ import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 import org.springframework.web.servlet.i18n.AcceptHeaderLocaleResolver;
-import redis.clients.jedis.JedisPool;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
 
 @EnableWebMvc
 @Configuration
 @EnableScheduling
 @EnableGlobalMethodSecurity(prePostEnabled = true)
-public class WebApplicationMvcConfigurer extends WebMvcConfigurerAdapter {
+public class WebApplicationMvcConfigurer extends WebMvcConfigurerAdapter implements SchedulingConfigurer {
 
-    @Value("${jedis.host}")
-    private String jedisHost;
+    @Autowired
+    private JsonMapperRegistry jsonMapperRegistry;
 
-    @Value("${jedis.port}")
-    private Integer jedisPort;
+    @Value("${campaign.concurrency}")
+    private int campaignConcurrency;
+
+    @Value("${campaign.render.parallelism}")
+    private int campaignRenderParallelism;
+
+    @Value("${email.outbox.threads}")
+    private int emailOutboxThreads;
+
+    @Value("${password.hashing.queue.size}")
+    private int passwordHashingQueueSize;
+
+    @Value("${password.hashing.threads}")
+    private int passwordHashingThreads;
+
+    @Value("${stats.feed.queue.size}")
+    private int statsFeedQueueSize;
 
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
-        converters.add(new MappingJackson2HttpMessageConverter());
+        converters.add(new MappingJackson2HttpMessageConverter(jsonMapperRegistry.getObjectMapper()));
     }
 
     @Override
@@ -74,6 +93,21 @@ public class WebApplicationMvcConfigurer extends WebMvcConfigurerAdapter {
         registry.addResourceHandler("/assets/**").addResourceLocations("/assets");
     }
 
+    /**
+     * Every scheduled job has a thread of its own, so that a long reminder run or counter rebuild never holds up the
+     * deny list sync, the session touch flush or the outbox poll behind it. This is called once all of the jobs have
+     * been found, which lets the pool be sized to them.
+     */
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        int jobs = registrar.getCronTaskList().size() + registrar.getFixedDelayTaskList().size()
+            + registrar.getFixedRateTaskList().size() + registrar.getTriggerTaskList().size();
+
+        ThreadPoolTaskScheduler scheduler = taskScheduler();
+        scheduler.setPoolSize(Math.max(jobs, 1));
+        registrar.setTaskScheduler(scheduler);
+    }
+
     @Bean
     public static PropertySourcesPlaceholderConfigurer configurePropertiesLoader() {
         PropertySourcesPlaceholderConfigurer configurer = new PropertySourcesPlaceholderConfigurer();
@@ -102,17 +136,63 @@ public class WebApplicationMvcConfigurer extends WebMvcConfigurerAdapter {
         return messageSource;
     }
 
+    @Bean(name = "campaignTaskExecutor")
+    public ThreadPoolTaskExecutor campaignTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(campaignConcurrency);
+        executor.setMaxPoolSize(campaignConcurrency);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("email-campaign-");
+        return executor;
+    }
+
+    /**
+     * Renders campaign emails. It is kept apart from the common pool so that a large campaign can neither starve nor
+     * be starved by other parallel work.
+     */
+    @Bean(name = "campaignRenderPool", destroyMethod = "shutdown")
+    public ForkJoinPool campaignRenderPool() {
+        return new ForkJoinPool(campaignRenderParallelism);
+    }
+
     @Bean(name = "emailTaskExecutor")
     public ThreadPoolTaskExecutor emailTaskExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(1);
-        executor.setMaxPoolSize(5);
+        executor.setCorePoolSize(emailOutboxThreads);
+        executor.setMaxPoolSize(emailOutboxThreads);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("email-outbox-");
         return executor;
     }
 
-    @Bean
-    public JedisPool jedisPool() {
-        return new JedisPool(jedisHost, jedisPort);
+    @Bean(name = "passwordHashingExecutor")
+    public ThreadPoolTaskExecutor passwordHashingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(passwordHashingThreads);
+        executor.setMaxPoolSize(passwordHashingThreads);
+        executor.setQueueCapacity(passwordHashingQueueSize);
+        executor.setThreadNamePrefix("password-hashing-");
+        return executor;
+    }
+
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("scheduled-");
+        return scheduler;
+    }
+
+    /**
+     * A single thread, so that live stats events reach subscribers in the order they happened.
+     */
+    @Bean(name = "statsFeedExecutor")
+    public ThreadPoolTaskExecutor statsFeedExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(statsFeedQueueSize);
+        executor.setThreadNamePrefix("stats-feed-");
+        return executor;
     }
 
     @Bean
@@ -122,6 +202,8 @@ public class WebApplicationMvcConfigurer extends WebMvcConfigurerAdapter {
         velocityProperties.setProperty(
             "class.resource.loader.class", "org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader"
         );
+        velocityProperties.setProperty("class.resource.loader.cache", "true");
+        velocityProperties.setProperty("class.resource.loader.modificationCheckInterval", "-1");
 
         VelocityEngineFactory engineFactory = new VelocityEngineFactory();
         engineFactory.setVelocityProperties(velocityProperties);
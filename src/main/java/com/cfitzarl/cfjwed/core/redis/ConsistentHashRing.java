@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.redis;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * This maps keys onto a set of nodes so that adding or removing a node only moves the keys that belong to it. Every
+ * node is placed on a ring of hash values many times over, and a key belongs to the first node found clockwise from
+ * its own hash. The virtual nodes even out the share of the ring each node ends up with.
+ *
+ * <p>Positions are derived from node names rather than their order, so the same names always produce the same ring.</p>
+ *
+ * @param <T> the type of node
+ */
+public class ConsistentHashRing<T> {
+
+    private final NavigableMap<Integer, T> ring = new TreeMap<>();
+
+    private final List<T> nodes;
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_32();
+
+    /**
+     * @param nodes the nodes, keyed by a name that identifies them across restarts
+     * @param virtualNodes the number of times each node is placed on the ring
+     */
+    public ConsistentHashRing(Map<String, T> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A ring needs at least one node");
+        }
+
+        for (Map.Entry<String, T> node : nodes.entrySet()) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // On the rare collision the first node keeps the position, whichever order the nodes come in
+                ring.merge(hash(node.getKey() + "#" + i), node.getValue(), (a, b) -> a);
+            }
+        }
+
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes.values()));
+    }
+
+    /**
+     * Returns the node a key belongs to.
+     */
+    public T get(String key) {
+        Map.Entry<Integer, T> entry = ring.ceilingEntry(hash(key));
+        return (entry != null) ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public List<T> getNodes() {
+        return nodes;
+    }
+
+    private static int hash(String value) {
+        return HASH_FUNCTION.hashString(value, StandardCharsets.UTF_8).asInt();
+    }
+}
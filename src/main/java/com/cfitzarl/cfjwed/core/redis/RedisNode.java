@@ -22,38 +22,42 @@
  * SOFTWARE.
  */
 
-package com.cfitzarl.cfjwed.core.config;
+package com.cfitzarl.cfjwed.core.redis;
 
-import org.modelmapper.Converter;
-import org.modelmapper.ModelMapper;
-import org.springframework.beans.BeansException;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.config.BeanPostProcessor;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
+import lombok.Getter;
+import redis.clients.jedis.JedisPool;
 
-@Configuration
-public class ModelMapperRegister implements BeanPostProcessor {
+/**
+ * A single Redis shard: the primary that takes writes and, if reads are allowed to go to one, a replica.
+ */
+@Getter
+public class RedisNode {
+
+    private final String name;
 
-    @Autowired
-    private ModelMapper modelMapper;
+    private final JedisPool primary;
 
-    @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
+    private final JedisPool replica;
+
+    public RedisNode(String name, JedisPool primary, JedisPool replica) {
+        this.name = name;
+        this.primary = primary;
+        this.replica = replica;
     }
 
-    @Override
-    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
-        return bean;
+    /**
+     * Returns the pool reads should go to. Replicas lag behind their primary, so only reads that tolerate slightly
+     * stale data may use this.
+     */
+    public JedisPool getReadPool() {
+        return (replica != null) ? replica : primary;
     }
 
-    @Override
-    @SuppressWarnings("unchecked")
-    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
-        if (bean instanceof Converter) {
-            modelMapper.addConverter((Converter) bean);
+    public void close() {
+        primary.close();
+
+        if (replica != null) {
+            replica.close();
         }
-        return bean;
     }
 }
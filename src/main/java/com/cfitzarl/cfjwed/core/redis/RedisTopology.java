@@ -0,0 +1,61 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.redis;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This is the set of Redis nodes keys are sharded across. Each key lives on exactly one node, chosen with a
+ * {@link ConsistentHashRing}, so that changing the number of nodes only moves a proportional share of keys. A topology
+ * with a single node behaves exactly like a plain connection to it.
+ */
+public class RedisTopology {
+
+    private final ConsistentHashRing<RedisNode> ring;
+
+    /**
+     * @param nodes the nodes, keyed by their primary's address
+     * @param virtualNodes the number of times each node is placed on the ring
+     */
+    public RedisTopology(Map<String, RedisNode> nodes, int virtualNodes) {
+        this.ring = new ConsistentHashRing<>(nodes, virtualNodes);
+    }
+
+    /**
+     * Returns the node a key belongs to.
+     */
+    public RedisNode nodeFor(String key) {
+        return ring.get(key);
+    }
+
+    public List<RedisNode> getNodes() {
+        return ring.getNodes();
+    }
+
+    public void close() {
+        getNodes().forEach(RedisNode::close);
+    }
+}
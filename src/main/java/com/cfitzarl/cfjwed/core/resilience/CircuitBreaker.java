@@ -0,0 +1,192 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This is a count-based circuit breaker. The outcome of the most recent calls is kept in a fixed-size window, and once
+ * enough calls have been recorded the breaker opens if either the share of failed calls or the share of slow calls
+ * crosses its threshold. While open, callers are expected to skip the protected resource entirely. After a cool-down a
+ * single probe call is let through; its outcome decides whether the breaker closes again or stays open.
+ */
+public class CircuitBreaker {
+
+    /**
+     * The states of the breaker.
+     */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+
+    /** Per-call outcome bits: 1 for a failure, 2 for a slow call. */
+    private final byte[] window;
+    private int position;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder timesOpened = new LongAdder();
+
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    /**
+     * @param windowSize the number of recent calls considered
+     * @param minimumCalls the number of calls recorded before the breaker may open
+     * @param failureRateThreshold the percentage of failed calls that opens the breaker
+     * @param slowCallRateThreshold the percentage of slow calls that opens the breaker
+     * @param slowCallMillis the duration above which a call counts as slow
+     * @param openMillis how long the breaker stays open before letting a probe through
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, int failureRateThreshold, int slowCallRateThreshold,
+                          long slowCallMillis, long openMillis) {
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.window = new byte[windowSize];
+    }
+
+    /**
+     * Returns whether a call may go through. Every permitted call must be followed by {@link #onSuccess(long)} or
+     * {@link #onFailure(long)}.
+     *
+     * @return whether the protected resource may be called
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN && (System.nanoTime() - openedAt) >= openNanos) {
+            state = State.HALF_OPEN;
+        }
+
+        if (state == State.CLOSED) {
+            return true;
+        }
+
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return true;
+        }
+
+        rejectedCalls.increment();
+        return false;
+    }
+
+    /**
+     * Records a call that completed.
+     *
+     * @param durationNanos how long the call took
+     */
+    public synchronized void onSuccess(long durationNanos) {
+        boolean slow = durationNanos > slowCallNanos;
+
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            if (slow) { open(); } else { close(); }
+            return;
+        }
+
+        record(slow ? SLOW : 0);
+    }
+
+    /**
+     * Records a call that failed.
+     *
+     * @param durationNanos how long the call took before failing
+     */
+    public synchronized void onFailure(long durationNanos) {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            open();
+            return;
+        }
+
+        record((byte) (FAILURE | (durationNanos > slowCallNanos ? SLOW : 0)));
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /** The number of calls turned away while the breaker was open. */
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    /** The number of times the breaker has opened. */
+    public long getTimesOpened() {
+        return timesOpened.sum();
+    }
+
+    private void record(byte outcome) {
+        if (state != State.CLOSED) { return; }
+
+        if (recorded == windowSize) {
+            byte evicted = window[position];
+            if ((evicted & FAILURE) != 0) { failures--; }
+            if ((evicted & SLOW) != 0) { slowCalls--; }
+        } else {
+            recorded++;
+        }
+
+        window[position] = outcome;
+        position = (position + 1) % windowSize;
+        if ((outcome & FAILURE) != 0) { failures++; }
+        if ((outcome & SLOW) != 0) { slowCalls++; }
+
+        if (recorded >= minimumCalls
+                && (failures * 100 >= failureRateThreshold * recorded
+                    || slowCalls * 100 >= slowCallRateThreshold * recorded)) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        timesOpened.increment();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        position = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+}
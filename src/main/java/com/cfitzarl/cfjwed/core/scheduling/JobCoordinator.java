@@ -0,0 +1,327 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.scheduling;
+
+import com.cfitzarl.cfjwed.core.config.JsonMapperRegistry;
+import com.cfitzarl.cfjwed.core.metrics.MetricSource;
+import com.cfitzarl.cfjwed.data.dto.JobExecutionDTO;
+import com.cfitzarl.cfjwed.service.RedisService;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * This makes sure that scheduled jobs, which are triggered on every node, only do their work once across the cluster.
+ * A job's work is split into partitions, and each partition is run by whichever node first takes its lease in Redis.
+ * A job that is not partitioned has a single partition, which elects one node to run it. Otherwise the work is split
+ * into as many partitions as there are live nodes when the run starts, and each node starts with a different one and
+ * then helps with any that are left, so a run finishes sooner as nodes are added.
+ *
+ * <p>Leases are renewed while their partitions run by a heartbeat on a thread of its own, so that it keeps going
+ * however busy the scheduler's threads are. A node that dies leaves its partition unfinished; another node only
+ * picks it up if it reaches that partition after the lease expired, so it is usually left to the next run, and
+ * coordinated jobs must be safe to resume from wherever a run stopped. A finished partition keeps its lease for the
+ * rest of the run window, which keeps nodes whose clocks lag behind from running it again; the window must therefore
+ * be shorter than the interval of every coordinated job. No lease can be taken while Redis is unavailable, so runs are
+ * skipped rather than duplicated during an outage.</p>
+ *
+ * <p>Every partition run is recorded in the job's history along with its duration.</p>
+ */
+@Component
+public class JobCoordinator implements MetricSource {
+
+    @Autowired
+    private JsonMapperRegistry jsonMapperRegistry;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Value("${jobs.lease.seconds}")
+    private int leaseSeconds;
+
+    @Value("${jobs.run.window.seconds}")
+    private int runWindowSeconds;
+
+    @Value("${jobs.node.timeout.seconds}")
+    private int nodeTimeoutSeconds;
+
+    @Value("${jobs.history.retention.days}")
+    private int historyRetentionDays;
+
+    @Value("${jobs.heartbeat.interval}")
+    private long heartbeatInterval;
+
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName() + "/"
+        + UUID.randomUUID().toString().substring(0, 8);
+
+    private final Set<String> heldLeases = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, Long> lastDurations = new ConcurrentHashMap<>();
+
+    private ObjectReader reader;
+
+    private ObjectWriter writer;
+
+    private ScheduledExecutorService heartbeatExecutor;
+
+    private volatile int liveNodes = 1;
+
+    private final LongAdder partitionsRun = new LongAdder();
+
+    private final LongAdder partitionsSkipped = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder leasesLost = new LongAdder();
+
+    private static final String NODES_KEY = "jobs:nodes";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobCoordinator.class);
+
+    @PostConstruct
+    public void initialize() {
+        reader = jsonMapperRegistry.reader(JobExecutionDTO.class);
+        writer = jsonMapperRegistry.writer(JobExecutionDTO.class);
+
+        heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, 0, heartbeatInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeatExecutor.shutdownNow();
+    }
+
+    /**
+     * Runs a job on this node unless another node is running it or has already run it within the run window. The work
+     * runs on the calling thread, so it takes part in any transaction the caller has started, and its failures are
+     * thrown to the caller.
+     *
+     * @param job the name of the job
+     * @param work the work of the job
+     * @return whether the job was run on this node
+     */
+    public boolean runExclusively(String job, Runnable work) {
+        return run(job, 1, 0, partition -> work.run()) > 0;
+    }
+
+    /**
+     * Runs the partitions of a job that no other node has taken. The number of partitions is decided by the first
+     * node to start the run, so every node splits the work the same way.
+     *
+     * @param job the name of the job
+     * @param work the work of one partition of the job
+     * @return the number of partitions run on this node
+     */
+    public int runPartitioned(String job, Consumer<JobPartition> work) {
+        List<String> nodes = findLiveNodes();
+        String countKey = key(job, "partitions");
+
+        redisService.setIfAbsent(countKey, String.valueOf(nodes.size()), runWindowSeconds);
+        String agreed = redisService.get(countKey);
+        int count = (agreed == null) ? nodes.size() : Integer.parseInt(agreed);
+
+        return run(job, count, nodes.indexOf(nodeId), work);
+    }
+
+    /**
+     * Returns the recorded runs of a job within the retention period, in the order they started.
+     *
+     * @param job the name of the job
+     * @return the runs of the job
+     */
+    public List<JobExecutionDTO> findHistory(String job) {
+        List<JobExecutionDTO> history = new ArrayList<>();
+
+        for (String entry : redisService.getSortedSetRange(key(job, "history"), 0, Double.MAX_VALUE)) {
+            try {
+                history.add(reader.readValue(entry));
+            } catch (IOException e) {
+                LOGGER.debug("Skipping unreadable history of job {}", job, e);
+            }
+        }
+
+        return history;
+    }
+
+    /**
+     * Records that this node is alive and renews the leases of the partitions it is running. A failure is logged rather
+     * than thrown, since it would stop the heartbeat for good.
+     */
+    void heartbeat() {
+        try {
+            long now = System.currentTimeMillis();
+            redisService.addToSortedSet(NODES_KEY, now, nodeId);
+            redisService.removeSortedSetRange(NODES_KEY, 0, now - TimeUnit.SECONDS.toMillis(nodeTimeoutSeconds));
+
+            for (String lease : heldLeases) {
+                if (!redisService.expireIfEqual(lease, nodeId, leaseSeconds)) {
+                    leasesLost.increment();
+                    LOGGER.warn("Lost the lease on {}, another node may run it as well", lease);
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Job heartbeat failed, retrying on the next one", e);
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public String getMetricName() {
+        return "jobs";
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        metrics.put("liveNodes", liveNodes);
+        metrics.put("partitionsRun", partitionsRun.sum());
+        metrics.put("partitionsSkipped", partitionsSkipped.sum());
+        metrics.put("failures", failures.sum());
+        metrics.put("leasesLost", leasesLost.sum());
+        lastDurations.forEach((job, duration) -> metrics.put(job + ".lastDurationMillis", duration));
+        return metrics;
+    }
+
+    /**
+     * Runs every partition that can be leased, starting from the given one. A failed partition is released so that a
+     * node still working through the run can retry it, and its failure is thrown once the other partitions have run.
+     */
+    private int run(String job, int count, int first, Consumer<JobPartition> work) {
+        RuntimeException failure = null;
+        int ran = 0;
+
+        for (int i = 0; i < count; i++) {
+            int index = (first + i) % count;
+            String lease = key(job, "partition:" + index);
+
+            if (!redisService.setIfAbsent(lease, nodeId, leaseSeconds)) {
+                partitionsSkipped.increment();
+                continue;
+            }
+
+            JobPartition partition = new JobPartition(index, count);
+            heldLeases.add(lease);
+            long start = System.currentTimeMillis();
+            boolean succeeded = false;
+
+            try {
+                work.accept(partition);
+                succeeded = true;
+            } catch (RuntimeException e) {
+                failures.increment();
+
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            } finally {
+                heldLeases.remove(lease);
+            }
+
+            if (succeeded) {
+                redisService.expireIfEqual(lease, nodeId, runWindowSeconds);
+                partitionsRun.increment();
+                ran++;
+            } else {
+                redisService.deleteIfEqual(lease, nodeId);
+            }
+
+            record(job, partition, start, System.currentTimeMillis() - start, succeeded);
+        }
+
+        if (failure != null) { throw failure; }
+
+        return ran;
+    }
+
+    /**
+     * Returns the nodes that have sent a heartbeat recently, which always includes this one, in the same order on every
+     * node.
+     */
+    private List<String> findLiveNodes() {
+        long since = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(nodeTimeoutSeconds);
+        List<String> nodes = new ArrayList<>(redisService.getSortedSetRange(NODES_KEY, since, Double.MAX_VALUE));
+
+        if (!nodes.contains(nodeId)) { nodes.add(nodeId); }
+        Collections.sort(nodes);
+
+        liveNodes = nodes.size();
+        return nodes;
+    }
+
+    private void record(String job, JobPartition partition, long start, long duration, boolean succeeded) {
+        lastDurations.put(job, duration);
+
+        JobExecutionDTO execution = new JobExecutionDTO();
+        execution.setNode(nodeId);
+        execution.setPartition(partition.getIndex());
+        execution.setPartitions(partition.getCount());
+        execution.setStartedAt(start);
+        execution.setDurationMillis(duration);
+        execution.setSucceeded(succeeded);
+
+        String historyKey = key(job, "history");
+
+        try {
+            redisService.addToSortedSet(historyKey, start, writer.writeValueAsString(execution));
+            redisService.removeSortedSetRange(historyKey, 0, start - TimeUnit.DAYS.toMillis(historyRetentionDays));
+        } catch (IOException e) {
+            LOGGER.warn("Unable to record the history of job {}", job, e);
+        }
+    }
+
+    private static String key(String job, String suffix) {
+        return "jobs:" + job + ":" + suffix;
+    }
+}
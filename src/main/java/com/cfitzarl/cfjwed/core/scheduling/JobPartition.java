@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.scheduling;
+
+import java.util.UUID;
+
+/**
+ * One of the equal slices that a job's work is split into when it is shared between nodes. Records are assigned to
+ * slices by ranges of their random UUIDs, which are uniformly distributed, so every slice holds about the same amount
+ * of work without any record being assigned explicitly.
+ */
+public final class JobPartition {
+
+    private final int index;
+    private final int count;
+
+    /**
+     * @param index the position of the slice, from zero
+     * @param count the number of slices
+     */
+    public JobPartition(int index, int count) {
+        this.index = index;
+        this.count = count;
+    }
+
+    /** The position of this slice, from zero. */
+    public int getIndex() {
+        return index;
+    }
+
+    /** The number of slices the work is split into. */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the ID that the slice's range starts after. The bounds are never valid random UUIDs, so no record
+     * falls on one, and they sort the same way in the database as their numeric values do here.
+     *
+     * @return the exclusive lower bound of the slice
+     */
+    public UUID getLowerBound() {
+        return new UUID(index * width(), 0);
+    }
+
+    /**
+     * Returns the ID that the slice's range ends before.
+     *
+     * @return the exclusive upper bound of the slice
+     */
+    public UUID getUpperBound() {
+        return (index == count - 1) ? new UUID(-1L, -1L) : new UUID((index + 1) * width(), 0);
+    }
+
+    /**
+     * The most significant half of the UUID space is split evenly; the arithmetic is unsigned, as IDs are compared as
+     * hexadecimal strings.
+     */
+    private long width() {
+        return Long.divideUnsigned(-1L, count);
+    }
+
+    @Override
+    public String toString() {
+        return (index + 1) + "/" + count;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.security;
+
+import java.util.UUID;
+
+/**
+ * The verified claims of a signed access token.
+ */
+class AccessToken {
+
+    private final UUID id;
+    private final long expiresAt;
+    private final UUID accountId;
+    private final String role;
+    private final String csrf;
+
+    AccessToken(UUID id, long expiresAt, UUID accountId, String role, String csrf) {
+        this.id = id;
+        this.expiresAt = expiresAt;
+        this.accountId = accountId;
+        this.role = role;
+        this.csrf = csrf;
+    }
+
+    /** The unique id of the token, used to revoke it. */
+    UUID getId() {
+        return id;
+    }
+
+    /** The time at which the token expires, in epoch seconds. */
+    long getExpiresAt() {
+        return expiresAt;
+    }
+
+    UUID getAccountId() {
+        return accountId;
+    }
+
+    String getRole() {
+        return role;
+    }
+
+    String getCsrf() {
+        return csrf;
+    }
+}
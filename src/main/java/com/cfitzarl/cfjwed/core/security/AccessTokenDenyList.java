@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.security;
+
+import com.cfitzarl.cfjwed.service.RedisService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This tracks revoked access tokens. Revocations are recorded in a Redis sorted set scored by the expiry of each
+ * token, and every node keeps a local copy that is re-synced periodically, so checking a token never touches Redis.
+ * Tokens revoked on another node are therefore honored after at most one sync interval.
+ */
+@Component
+class AccessTokenDenyList {
+
+    @Autowired
+    private RedisService redisService;
+
+    @Value("${auth.mode}")
+    private String authMode;
+
+    private volatile Set<String> denied = ConcurrentHashMap.newKeySet();
+
+    private static final String DENIED_TOKENS_KEY = "auth:denied-tokens";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccessTokenDenyList.class);
+
+    /**
+     * Revokes a token until it expires.
+     *
+     * @param tokenId the id of the token
+     * @param expiresAt the expiry of the token in epoch seconds
+     */
+    void deny(String tokenId, long expiresAt) {
+        redisService.addToSortedSet(DENIED_TOKENS_KEY, expiresAt, tokenId);
+        denied.add(tokenId);
+    }
+
+    /**
+     * Returns whether a token has been revoked.
+     *
+     * @param tokenId the id of the token
+     * @return whether the token is revoked
+     */
+    boolean isDenied(String tokenId) {
+        return denied.contains(tokenId);
+    }
+
+    /**
+     * Drops revocations of tokens that have expired anyway and reloads the remaining ones.
+     */
+    @Scheduled(fixedDelayString = "${auth.denylist.sync.interval}")
+    public void sync() {
+        if (!AccessTokenService.SIGNED_MODE.equals(authMode)) { return; }
+
+        long now = System.currentTimeMillis() / 1000;
+
+        try {
+            redisService.removeSortedSetRange(DENIED_TOKENS_KEY, 0, now);
+
+            Set<String> current = ConcurrentHashMap.newKeySet();
+            current.addAll(redisService.getSortedSetRange(DENIED_TOKENS_KEY, now, Double.POSITIVE_INFINITY));
+            denied = current;
+        } catch (Exception e) {
+            // Keep enforcing the last known list rather than forgetting revocations
+            LOGGER.warn("Unable to sync the access token deny list", e);
+        }
+    }
+}
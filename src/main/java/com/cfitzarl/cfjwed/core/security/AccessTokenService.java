@@ -0,0 +1,285 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.security;
+
+import com.cfitzarl.cfjwed.data.dao.AccountDao;
+import com.cfitzarl.cfjwed.data.dto.AuthenticationDTO;
+import com.cfitzarl.cfjwed.data.projection.LoginProjection;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * This issues and verifies the short-lived access tokens used when {@code auth.mode} is {@code signed}. An access
+ * token carries the account id, role and CSRF secret of a session along with an HMAC-SHA256 signature, so requests
+ * bearing one are authenticated without any I/O. The session itself is still kept in Redis under an opaque refresh
+ * token, which is exchanged for a new access token whenever the previous one expires. Access tokens have the form
+ * {@code base64url(claims).base64url(signature)}; opaque session tokens never contain a '.', which is how the two are
+ * told apart. Every node must verify the tokens signed by the others, so a shared secret must be configured for signed
+ * mode to start.
+ */
+@Component
+public class AccessTokenService {
+
+    @Autowired
+    private AccountDao accountDao;
+
+    @Autowired
+    private AccessTokenDenyList denyList;
+
+    @Autowired
+    private SessionStore sessionStore;
+
+    @Value("${auth.mode}")
+    private String authMode;
+
+    @Value("${auth.token.secret}")
+    private String secret;
+
+    @Value("${auth.token.ttl}")
+    private int tokenTtl;
+
+    private SecretKeySpec key;
+
+    private ThreadLocal<Mac> macs;
+
+    static final String SIGNED_MODE = "signed";
+
+    private static final byte VERSION = 1;
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccessTokenService.class);
+
+    @PostConstruct
+    public void initialize() {
+        if (StringUtils.isBlank(secret)) {
+            if (isEnabled()) {
+                throw new IllegalStateException("auth.token.secret must be configured when auth.mode is signed");
+            }
+
+            // Nothing is signed outside of signed mode, but a key keeps stray access tokens from verifying
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            key = new SecretKeySpec(random, ALGORITHM);
+        } else {
+            key = new SecretKeySpec(Base64.getDecoder().decode(secret), ALGORITHM);
+        }
+
+        // Mac instances are not thread-safe, but are cheap to reuse once initialized
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to initialize " + ALGORITHM, e);
+            }
+        });
+    }
+
+    /**
+     * Returns whether signed access tokens are issued.
+     *
+     * @return whether signed mode is enabled
+     */
+    public boolean isEnabled() {
+        return SIGNED_MODE.equals(authMode);
+    }
+
+    /**
+     * Returns whether a token has the shape of a signed access token, without verifying it.
+     *
+     * @param token the token
+     * @return whether the token is a signed access token
+     */
+    public static boolean isAccessToken(String token) {
+        return token.indexOf('.') > 0;
+    }
+
+    /**
+     * Builds the response for an established session, replacing its token with a freshly signed access token. The
+     * session token itself is returned as the refresh token.
+     *
+     * @param session the session stored in Redis
+     * @return a copy of the session carrying both tokens
+     * @throws IOException if the token cannot be encoded
+     */
+    public AuthenticationDTO issue(AuthenticationDTO session) throws IOException {
+        AuthenticationDTO response = new AuthenticationDTO();
+        response.setAccountId(session.getAccountId());
+        response.setEmail(session.getEmail());
+        response.setCsrf(session.getCsrf());
+        response.setFirstName(session.getFirstName());
+        response.setInvitationId(session.getInvitationId());
+        response.setLastName(session.getLastName());
+        response.setRole(session.getRole());
+        response.setToken(sign(session));
+        response.setRefreshToken(session.getToken());
+        return response;
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token, sliding the expiration window of the underlying session.
+     *
+     * @param refreshToken the refresh token
+     * @return the session carrying a new access token, or null if the refresh token is unknown or expired
+     * @throws IOException if the token cannot be encoded
+     */
+    public AuthenticationDTO refresh(String refreshToken) throws IOException {
+        if (!isEnabled() || isAccessToken(refreshToken)) { return null; }
+
+        int expiration = AuthenticationProcessingFilter.SESSION_EXPIRY_SECONDS;
+        AuthenticationDTO session = sessionStore.load(refreshToken, expiration);
+        return (session == null) ? null : issue(session);
+    }
+
+    /**
+     * Rebuilds the session of a verified access token, for the UI to restore after a page reload. Only the claims of
+     * the token are trusted; the account's details are read from the database, since the token does not carry them.
+     * The refresh token is not included, as it is never derived from an access token.
+     *
+     * @param token the access token
+     * @return the session, or null if the token does not verify or its account no longer exists
+     */
+    public AuthenticationDTO describe(String token) {
+        AccessToken accessToken = verify(token);
+        if (accessToken == null) { return null; }
+
+        LoginProjection login = accountDao.findLoginById(accessToken.getAccountId());
+        if (login == null) { return null; }
+
+        AuthenticationDTO session = new AuthenticationDTO();
+        session.setAccountId(accessToken.getAccountId());
+        session.setCsrf(accessToken.getCsrf());
+        session.setEmail(login.getEmail());
+        session.setFirstName(login.getFirstName());
+        session.setInvitationId(login.getInvitationId());
+        session.setLastName(login.getLastName());
+        session.setRole(accessToken.getRole());
+        session.setToken(token);
+        return session;
+    }
+
+    /**
+     * Revokes an access token for the remainder of its lifetime.
+     *
+     * @param token the access token
+     */
+    public void revoke(String token) {
+        AccessToken accessToken = decode(token);
+
+        if ((accessToken != null) && (accessToken.getExpiresAt() > now())) {
+            denyList.deny(accessToken.getId().toString(), accessToken.getExpiresAt());
+        }
+    }
+
+    /**
+     * Verifies an access token.
+     *
+     * @param token the access token
+     * @return the claims of the token, or null if it is malformed, forged, expired or revoked
+     */
+    AccessToken verify(String token) {
+        if (!isEnabled()) { return null; }
+
+        AccessToken accessToken = decode(token);
+
+        if ((accessToken == null) || (accessToken.getExpiresAt() <= now())) { return null; }
+        if (denyList.isDenied(accessToken.getId().toString())) { return null; }
+
+        return accessToken;
+    }
+
+    private String sign(AuthenticationDTO session) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            UUID id = UUID.randomUUID();
+            out.writeByte(VERSION);
+            out.writeLong(id.getMostSignificantBits());
+            out.writeLong(id.getLeastSignificantBits());
+            out.writeLong(now() + tokenTtl);
+            out.writeLong(session.getAccountId().getMostSignificantBits());
+            out.writeLong(session.getAccountId().getLeastSignificantBits());
+            out.writeUTF(session.getRole());
+            out.writeUTF(session.getCsrf());
+        }
+
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        byte[] claims = bytes.toByteArray();
+        return encoder.encodeToString(claims) + "." + encoder.encodeToString(macs.get().doFinal(claims));
+    }
+
+    /**
+     * Checks the signature of a token and parses its claims, without regard to expiry or revocation.
+     */
+    private AccessToken decode(String token) {
+        int separator = token.indexOf('.');
+        if (separator <= 0) { return null; }
+
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] claims = decoder.decode(token.substring(0, separator).getBytes(StandardCharsets.US_ASCII));
+            byte[] signature = decoder.decode(token.substring(separator + 1).getBytes(StandardCharsets.US_ASCII));
+
+            if (!MessageDigest.isEqual(signature, macs.get().doFinal(claims))) { return null; }
+
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(claims))) {
+                if (in.readByte() != VERSION) { return null; }
+
+                UUID id = new UUID(in.readLong(), in.readLong());
+                long expiresAt = in.readLong();
+                UUID accountId = new UUID(in.readLong(), in.readLong());
+                return new AccessToken(id, expiresAt, accountId, in.readUTF(), in.readUTF());
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            LOGGER.debug("Malformed access token", e);
+            return null;
+        }
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
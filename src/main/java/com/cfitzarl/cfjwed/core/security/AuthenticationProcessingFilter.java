@@ -25,20 +25,19 @@
 package com.cfitzarl.cfjwed.core.security;
 
 import com.cfitzarl.cfjwed.controller.ApiExceptionHandler;
+import com.cfitzarl.cfjwed.core.config.JsonMapperRegistry;
 import com.cfitzarl.cfjwed.data.dto.AuthenticationDTO;
-import com.cfitzarl.cfjwed.data.model.Account;
-import com.cfitzarl.cfjwed.data.model.Invitation;
+import com.cfitzarl.cfjwed.data.projection.LoginProjection;
+import com.cfitzarl.cfjwed.exception.ServiceUnavailableException;
 import com.cfitzarl.cfjwed.exception.UnauthorizedException;
 import com.cfitzarl.cfjwed.service.AccountService;
-import com.cfitzarl.cfjwed.service.InvitationService;
-import com.cfitzarl.cfjwed.service.RedisService;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Iterables;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -76,6 +75,9 @@ class AuthenticationProcessingFilter extends AbstractAuthenticationProcessingFil
     @Autowired
     private CustomAuthSuccessHandler successHandler;
 
+    @Autowired
+    private JsonMapperRegistry jsonMapperRegistry;
+
     protected static final int SESSION_EXPIRY_SECONDS = 90 * 60;
 
     /**
@@ -108,7 +110,7 @@ class AuthenticationProcessingFilter extends AbstractAuthenticationProcessingFil
     public Authentication attemptAuthentication(HttpServletRequest request, HttpServletResponse response)
             throws AuthenticationException, IOException, ServletException {
 
-        Map body = new ObjectMapper().readValue(request.getInputStream(), Map.class);
+        Map body = jsonMapperRegistry.reader(Map.class).readValue(request.getInputStream());
         String principal = (String) body.get("principal");
         String creds = (String) body.get("credentials");
 
@@ -138,18 +140,27 @@ class AuthenticationProcessingFilter extends AbstractAuthenticationProcessingFil
             String principal = (String) authentication.getPrincipal();
             String creds = (String) authentication.getCredentials();
 
-            Account account = accountService.findByEmail(principal);
+            LoginProjection login = accountService.findLoginByEmail(principal);
 
-            if (account != null) {
-                if (!account.isActivated()) {
+            if (login != null) {
+                if (!login.isActivated()) {
                     throw new UnauthorizedException("Account is not activated");
                 }
 
-                if (accountService.hasValidCreds(account, creds)) {
-                    SimpleGrantedAuthority authority = new SimpleGrantedAuthority(account.getType().toString());
+                boolean validCreds;
+
+                try {
+                    validCreds = accountService.hasValidCreds(login, creds);
+                } catch (ServiceUnavailableException e) {
+                    throw new AuthenticationServiceException(e.getMessage(), e);
+                }
 
+                if (validCreds) {
+                    SimpleGrantedAuthority authority = new SimpleGrantedAuthority(login.getType().toString());
+
+                    // The login data becomes the principal so the success handler needs no further queries
                     UsernamePasswordAuthenticationToken token =
-                        new UsernamePasswordAuthenticationToken(principal, null, Collections.singletonList(authority));
+                        new UsernamePasswordAuthenticationToken(login, null, Collections.singletonList(authority));
                     token.setDetails(RandomStringUtils.randomAlphanumeric(64));
 
                     return token;
@@ -167,13 +178,13 @@ class AuthenticationProcessingFilter extends AbstractAuthenticationProcessingFil
     private static class CustomAuthSuccessHandler implements AuthenticationSuccessHandler {
 
         @Autowired
-        private AccountService accountService;
+        private SessionStore sessionStore;
 
         @Autowired
-        private InvitationService invitationService;
+        private JsonMapperRegistry jsonMapperRegistry;
 
         @Autowired
-        private RedisService redisService;
+        private AccessTokenService accessTokenService;
 
         /**
          * This performs post-authentication logic. This includes persisting the {@link AuthenticationDTO} in redis,
@@ -188,34 +199,32 @@ class AuthenticationProcessingFilter extends AbstractAuthenticationProcessingFil
         @Override
         public void onAuthenticationSuccess(HttpServletRequest req, HttpServletResponse res, Authentication auth)
                 throws IOException, ServletException {
-            ObjectMapper objectMapper = new ObjectMapper();
-
             // Generate random authentication key that is returned to the browser
             String authKey = RandomStringUtils.randomAlphanumeric(64);
 
-            // Grab the account pertaining to the current principal
-            Account account = accountService.findByEmail((String) auth.getPrincipal());
+            // The principal was loaded by the authentication manager
+            LoginProjection login = (LoginProjection) auth.getPrincipal();
             GrantedAuthority authority = Iterables.getFirst(auth.getAuthorities(), null);
 
             // Create DTO that is returned to the browser and cached in redis
             AuthenticationDTO body = new AuthenticationDTO();
+            body.setAccountId(login.getId());
             body.setCsrf(auth.getDetails().toString());
-            body.setEmail(account.getEmail());
-            body.setFirstName(account.getFirstName());
-            body.setLastName(account.getLastName());
+            body.setEmail(login.getEmail());
+            body.setFirstName(login.getFirstName());
+            body.setInvitationId(login.getInvitationId());
+            body.setLastName(login.getLastName());
             body.setRole(authority.getAuthority());
             body.setToken(authKey);
 
-            Invitation invitation = invitationService.findByAccount(account);
+            // Store the DTO for retrieval on subsequent requests
+            sessionStore.save(body, SESSION_EXPIRY_SECONDS);
 
-            if (invitation != null) {
-                body.setInvitationId(invitation.getId());
+            // In signed mode the stored session is only used for refreshes, and the browser gets an access token
+            if (accessTokenService.isEnabled()) {
+                body = accessTokenService.issue(body);
             }
 
-            // Store the DTO for retrieval on subsequent requests
-            redisService.set(authKey, new ObjectMapper().writeValueAsString(body));
-            redisService.expire(authKey, SESSION_EXPIRY_SECONDS);
-
             Cookie cookie = new Cookie("authToken", body.getToken());
             cookie.setSecure(true);
             cookie.setPath("/#/");
@@ -224,7 +233,7 @@ class AuthenticationProcessingFilter extends AbstractAuthenticationProcessingFil
 
             res.setContentType("application/json");
             res.setStatus(201);
-            res.getOutputStream().write(objectMapper.writeValueAsBytes(body));
+            res.getOutputStream().write(jsonMapperRegistry.writer(AuthenticationDTO.class).writeValueAsBytes(body));
         }
     }
 
@@ -251,6 +260,12 @@ class AuthenticationProcessingFilter extends AbstractAuthenticationProcessingFil
                 throws IOException, ServletException {
             LOGGER.debug("Authentication failure detected", e);
 
+            if (e.getCause() instanceof ServiceUnavailableException) {
+                res.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                exceptionHandler.handleServiceUnavailableException((ServiceUnavailableException) e.getCause(), res);
+                return;
+            }
+
             if (!(e instanceof BadCredentialsException)) {
                 res.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
                 exceptionHandler.handleGenericException(e, res);
@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.security;
+
+import com.cfitzarl.cfjwed.data.dto.AuthenticationDTO;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * This stores sessions in a compact, fixed-order binary layout. UUIDs are written as two longs and strings as modified
+ * UTF-8, each preceded by a flag marking whether the value is present. Fields are never reordered; new fields are only
+ * ever appended, and a layout change that cannot be expressed that way requires a new format byte.
+ */
+@Component
+class BinarySessionCodec implements SessionCodec {
+
+    static final byte FORMAT = 2;
+
+    /** {@inheritDoc} **/
+    @Override
+    public String getName() {
+        return "binary";
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public byte getFormat() {
+        return FORMAT;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public byte[] encode(AuthenticationDTO session) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeUuid(out, session.getAccountId());
+            writeString(out, session.getEmail());
+            writeString(out, session.getCsrf());
+            writeString(out, session.getFirstName());
+            writeUuid(out, session.getInvitationId());
+            writeString(out, session.getLastName());
+            writeString(out, session.getRole());
+            writeString(out, session.getToken());
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public AuthenticationDTO decode(byte[] data, int offset) throws IOException {
+        AuthenticationDTO session = new AuthenticationDTO();
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, data.length - offset))) {
+            session.setAccountId(readUuid(in));
+            session.setEmail(readString(in));
+            session.setCsrf(readString(in));
+            session.setFirstName(readString(in));
+            session.setInvitationId(readUuid(in));
+            session.setLastName(readString(in));
+            session.setRole(readString(in));
+            session.setToken(readString(in));
+        }
+
+        return session;
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getMostSignificantBits());
+            out.writeLong(value.getLeastSignificantBits());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
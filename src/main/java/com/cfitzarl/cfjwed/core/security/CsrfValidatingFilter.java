@@ -37,6 +37,8 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Collections;
 import java.util.List;
 
@@ -56,7 +58,7 @@ class CsrfValidatingFilter extends GenericFilterBean {
 
         if (!EXCLUDED_METHODS.contains(request.getMethod())) {
             if ((authentication != null) && (authentication instanceof UsernamePasswordAuthenticationToken)) {
-                if (!authentication.getDetails().equals(csrfToken)) {
+                if (!isValid(authentication.getDetails(), csrfToken)) {
                     throw new UnauthorizedException("Invalid or missing CSRF token");
                 }
             }
@@ -64,4 +66,21 @@ class CsrfValidatingFilter extends GenericFilterBean {
 
         chain.doFilter(servletRequest, servletresponse);
     }
+
+    /**
+     * Compares the CSRF secret of the session with the one provided in a constant amount of time, so that response
+     * timing reveals nothing about how much of a guess was correct.
+     *
+     * @param expected the CSRF secret of the session
+     * @param provided the CSRF token sent with the request
+     * @return whether they match
+     */
+    private static boolean isValid(Object expected, String provided) {
+        if ((expected == null) || (provided == null)) { return false; }
+
+        return MessageDigest.isEqual(
+            expected.toString().getBytes(StandardCharsets.UTF_8),
+            provided.getBytes(StandardCharsets.UTF_8)
+        );
+    }
 }
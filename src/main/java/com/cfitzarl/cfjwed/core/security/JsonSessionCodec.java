@@ -0,0 +1,81 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.security;
+
+import com.cfitzarl.cfjwed.core.config.JsonMapperRegistry;
+import com.cfitzarl.cfjwed.data.dto.AuthenticationDTO;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+
+/**
+ * This stores sessions as JSON. It is also used to read sessions written before the header byte was introduced.
+ */
+@Component
+class JsonSessionCodec implements SessionCodec {
+
+    @Autowired
+    private JsonMapperRegistry jsonMapperRegistry;
+
+    private ObjectReader reader;
+
+    private ObjectWriter writer;
+
+    static final byte FORMAT = 1;
+
+    @PostConstruct
+    public void initialize() {
+        reader = jsonMapperRegistry.reader(AuthenticationDTO.class);
+        writer = jsonMapperRegistry.writer(AuthenticationDTO.class);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public String getName() {
+        return "json";
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public byte getFormat() {
+        return FORMAT;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public byte[] encode(AuthenticationDTO session) throws IOException {
+        return writer.writeValueAsBytes(session);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public AuthenticationDTO decode(byte[] data, int offset) throws IOException {
+        return reader.readValue(data, offset, data.length - offset);
+    }
+}
@@ -78,6 +78,8 @@ public class SecurityConfigurationContainer extends WebSecurityConfigurerAdapter
             .authorizeRequests()
                 .antMatchers("/api/accounts/data")
                     .permitAll()
+                .antMatchers("/api/auth/refresh", "/api/auth/logout")
+                    .permitAll()
                 .antMatchers("/api/activations/**")
                     .permitAll()
                 .antMatchers("/api/health")
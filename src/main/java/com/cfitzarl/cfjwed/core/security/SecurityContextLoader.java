@@ -27,11 +27,6 @@ package com.cfitzarl.cfjwed.core.security;
 import com.cfitzarl.cfjwed.data.dao.AccountDao;
 import com.cfitzarl.cfjwed.data.dto.AuthenticationDTO;
 import com.cfitzarl.cfjwed.data.model.Account;
-import com.cfitzarl.cfjwed.exception.UnauthorizedException;
-import com.cfitzarl.cfjwed.service.RedisService;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
@@ -44,9 +39,9 @@ import org.springframework.stereotype.Component;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.UUID;
 
 /**
  * This is responsible for retrieving and loading the security context established through
@@ -62,9 +57,10 @@ public class SecurityContextLoader implements SecurityContextRepository {
     private AccountDao accountDao;
 
     @Autowired
-    private RedisService redisService;
+    private SessionStore sessionStore;
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(SecurityContextLoader.class);
+    @Autowired
+    private AccessTokenService accessTokenService;
 
     /**
      * This method does all the heavy work in retrieving the context out of Redis. It inspects the servlet request
@@ -77,42 +73,58 @@ public class SecurityContextLoader implements SecurityContextRepository {
      */
     @Override
     public SecurityContext loadContext(HttpRequestResponseHolder requestResponseHolder) {
-        HttpServletRequest request = requestResponseHolder.getRequest();
-        String tokenParam = coalesce(
-            request.getHeader(SessionConstant.AUTH_TOKEN_HEADER),
-            request.getParameter(SessionConstant.AUTH_TOKEN_PARAM)
-        );
-
+        String tokenParam = resolveToken(requestResponseHolder.getRequest());
         SecurityContext securityContext = new SecurityContextImpl();
 
-        if (tokenParam == null || !redisService.exists(tokenParam)) {
+        if (tokenParam == null) {
             return securityContext;
         }
 
-        String serializedAuthData = redisService.get(tokenParam);
-        AuthenticationDTO dto;
+        // Signed access tokens are verified locally; an invalid one is never looked up as a session
+        if (AccessTokenService.isAccessToken(tokenParam)) {
+            AccessToken accessToken = accessTokenService.verify(tokenParam);
+
+            if (accessToken != null) {
+                securityContext.setAuthentication(
+                    createAuthentication(accessToken.getAccountId(), accessToken.getRole(), accessToken.getCsrf())
+                );
+            }
+
+            return securityContext;
+        }
 
-        try {
-            dto = new ObjectMapper().readValue(serializedAuthData, AuthenticationDTO.class);
-        } catch (IOException e) {
-            LOGGER.error("Error deserializing auth DTO", e);
+        // In signed mode an opaque token is a refresh token, which is only good for getting a new access token
+        if (accessTokenService.isEnabled()) {
             return securityContext;
         }
 
-        Account account = accountDao.findByEmail(dto.getEmail());
+        AuthenticationDTO dto = sessionStore.findCached(tokenParam);
+
+        if (dto == null) {
+            // A cache miss costs one round-trip which fetches the session and slides its TTL at the same time
+            dto = sessionStore.load(tokenParam, AuthenticationProcessingFilter.SESSION_EXPIRY_SECONDS);
+        }
+
+        if (dto == null) {
+            return securityContext;
+        }
 
-        Collection<GrantedAuthority> gal = Collections.singletonList(new SimpleGrantedAuthority(dto.getRole()));
-        UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(account.getId(), null, gal);
-        token.setDetails(dto.getCsrf());
+        // Sessions created before the account ID was embedded still need a lookup
+        if (dto.getAccountId() == null) {
+            Account account = accountDao.findByEmail(dto.getEmail());
+            if (account == null) { return securityContext; }
+            dto.setAccountId(account.getId());
+        }
 
-        securityContext.setAuthentication(token);
+        securityContext.setAuthentication(createAuthentication(dto.getAccountId(), dto.getRole(), dto.getCsrf()));
 
         return securityContext;
     }
 
     /**
      * This method is responsible for handling post-request context changes. On each request, we reset the TTL of the
-     * authentication data in redis.
+     * authentication data in redis. The reset is coalesced and written in the background rather than inline. Signed
+     * access tokens have a fixed lifetime, and their session is only extended when they are refreshed.
      *
      * @param context the context to save
      * @param request the request
@@ -120,16 +132,50 @@ public class SecurityContextLoader implements SecurityContextRepository {
      */
     @Override
     public void saveContext(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
-        String tokenParam = request.getParameter(SessionConstant.AUTH_TOKEN_HEADER);
-        if ((context.getAuthentication() != null) && (tokenParam != null)) {
-            redisService.expire(tokenParam, AuthenticationProcessingFilter.SESSION_EXPIRY_SECONDS);
+        String tokenParam = resolveToken(request);
+        if ((context.getAuthentication() != null) && (tokenParam != null)
+                && !AccessTokenService.isAccessToken(tokenParam)) {
+            sessionStore.touch(tokenParam);
         }
     }
 
     @Override
     public boolean containsContext(HttpServletRequest request) {
-        String tokenParam = request.getParameter(SessionConstant.AUTH_TOKEN_HEADER);
-        return (tokenParam != null) && redisService.exists(tokenParam);
+        String tokenParam = resolveToken(request);
+
+        if ((tokenParam != null) && AccessTokenService.isAccessToken(tokenParam)) {
+            return accessTokenService.verify(tokenParam) != null;
+        }
+
+        return (tokenParam != null) && !accessTokenService.isEnabled() && (sessionStore.find(tokenParam) != null);
+    }
+
+    /**
+     * Builds the authentication established for a request.
+     *
+     * @param accountId the id of the authenticated account
+     * @param role the role of the account
+     * @param csrf the CSRF secret of the session
+     * @return the authentication
+     */
+    private UsernamePasswordAuthenticationToken createAuthentication(UUID accountId, String role, String csrf) {
+        Collection<GrantedAuthority> gal = Collections.singletonList(new SimpleGrantedAuthority(role));
+        UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(accountId, null, gal);
+        token.setDetails(csrf);
+        return token;
+    }
+
+    /**
+     * Scrapes the authentication token out of the request header, falling back to the request parameter.
+     *
+     * @param request the request
+     * @return the token if present
+     */
+    private String resolveToken(HttpServletRequest request) {
+        return coalesce(
+            request.getHeader(SessionConstant.AUTH_TOKEN_HEADER),
+            request.getParameter(SessionConstant.AUTH_TOKEN_PARAM)
+        );
     }
 
     /**
@@ -0,0 +1,70 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.security;
+
+import com.cfitzarl.cfjwed.data.dto.AuthenticationDTO;
+
+import java.io.IOException;
+
+/**
+ * This converts sessions to and from the bytes kept in Redis. Each implementation owns a format identifier which the
+ * {@link SessionSerializer} writes as a header byte, so that sessions written in one format remain readable after
+ * switching to another.
+ */
+interface SessionCodec {
+
+    /**
+     * Returns the name this codec is selected by in configuration.
+     *
+     * @return the codec name
+     */
+    String getName();
+
+    /**
+     * Returns the header byte identifying this format. This must never change once sessions have been written.
+     *
+     * @return the format identifier
+     */
+    byte getFormat();
+
+    /**
+     * Encodes a session, excluding the header.
+     *
+     * @param session the session
+     * @return the encoded session
+     * @throws IOException if the session cannot be encoded
+     */
+    byte[] encode(AuthenticationDTO session) throws IOException;
+
+    /**
+     * Decodes a session.
+     *
+     * @param data the encoded data
+     * @param offset the position at which the payload starts
+     * @return the session
+     * @throws IOException if the data is malformed
+     */
+    AuthenticationDTO decode(byte[] data, int offset) throws IOException;
+}
@@ -34,4 +34,5 @@ public class SessionConstant {
     public static final String AUTH_TOKEN_HEADER = "X-Auth-Token";
     public static final String AUTH_TOKEN_PARAM = "authToken";
     public static final String CSRF_TOKEN = "X-CSRF-Token";
+    public static final String REFRESH_TOKEN_HEADER = "X-Refresh-Token";
 }
@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.security;
+
+import com.cfitzarl.cfjwed.data.dto.AuthenticationDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * This chooses the {@link SessionCodec} used to write sessions and dispatches reads to whichever codec wrote them.
+ * Every encoded session starts with the format byte of its codec. Sessions written before the header existed are plain
+ * JSON objects, so a leading '{' is treated as headerless JSON; no format byte may ever take that value.
+ */
+@Component
+class SessionSerializer {
+
+    @Autowired
+    private List<SessionCodec> codecs;
+
+    @Autowired
+    private JsonSessionCodec legacyCodec;
+
+    @Value("${session.codec}")
+    private String codecName;
+
+    private SessionCodec writeCodec;
+
+    private final SessionCodec[] readCodecs = new SessionCodec[Byte.MAX_VALUE + 1];
+
+    private static final byte LEGACY_JSON_MARKER = '{';
+
+    @PostConstruct
+    public void initialize() {
+        for (SessionCodec codec : codecs) {
+            if (codec.getFormat() <= 0 || codec.getFormat() == LEGACY_JSON_MARKER) {
+                throw new IllegalStateException("Invalid session format " + codec.getFormat());
+            }
+
+            readCodecs[codec.getFormat()] = codec;
+
+            if (codec.getName().equals(codecName)) {
+                writeCodec = codec;
+            }
+        }
+
+        if (writeCodec == null) {
+            throw new IllegalStateException("Unknown session codec " + codecName);
+        }
+    }
+
+    /**
+     * Encodes a session with the configured codec.
+     *
+     * @param session the session
+     * @return the header byte followed by the encoded session
+     * @throws IOException if the session cannot be encoded
+     */
+    byte[] encode(AuthenticationDTO session) throws IOException {
+        byte[] payload = writeCodec.encode(session);
+        byte[] data = new byte[payload.length + 1];
+        data[0] = writeCodec.getFormat();
+        System.arraycopy(payload, 0, data, 1, payload.length);
+        return data;
+    }
+
+    /**
+     * Decodes a session written by any known codec.
+     *
+     * @param data the encoded session
+     * @return the session
+     * @throws IOException if the data is malformed or its format is unknown
+     */
+    AuthenticationDTO decode(byte[] data) throws IOException {
+        if (data.length == 0) {
+            throw new IOException("Empty session data");
+        }
+
+        if (data[0] == LEGACY_JSON_MARKER) {
+            return legacyCodec.decode(data, 0);
+        }
+
+        SessionCodec codec = (data[0] > 0) ? readCodecs[data[0]] : null;
+
+        if (codec == null) {
+            throw new IOException("Unknown session format " + data[0]);
+        }
+
+        return codec.decode(data, 1);
+    }
+}
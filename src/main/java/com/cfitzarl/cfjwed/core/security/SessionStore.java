@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.security;
+
+import com.cfitzarl.cfjwed.data.dto.AuthenticationDTO;
+import com.cfitzarl.cfjwed.service.RedisService;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is the single point of access for session data kept in Redis. Decoded sessions are held in a bounded,
+ * in-process cache so that most authenticated requests are resolved without a network round-trip. Cached entries are
+ * evicted as soon as Redis reports that the underlying key was deleted, expired, or evicted, and in any case after a
+ * short TTL so that a missed notification can only keep a revoked session alive for a few seconds.
+ */
+@Component
+public class SessionStore {
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    private SessionTouchCoalescer touchCoalescer;
+
+    @Autowired
+    private SessionSerializer sessionSerializer;
+
+    @Value("${session.cache.size}")
+    private long cacheSize;
+
+    @Value("${session.cache.ttl}")
+    private int cacheTtl;
+
+    private Cache<String, AuthenticationDTO> cache;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionStore.class);
+
+    @PostConstruct
+    public void initialize() {
+        cache = CacheBuilder.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(cacheTtl, TimeUnit.SECONDS)
+            .build();
+
+        redisService.subscribe(
+            cache::invalidate,
+            cache::invalidateAll,
+            RedisService.DELETED_KEYS_CHANNEL,
+            RedisService.EXPIRED_KEYS_CHANNEL,
+            RedisService.EVICTED_KEYS_CHANNEL
+        );
+    }
+
+    /**
+     * Returns the session belonging to a token, consulting the local cache before Redis.
+     *
+     * @param token the authentication token
+     * @return the session, or null if the token is unknown or expired
+     */
+    public AuthenticationDTO find(String token) {
+        AuthenticationDTO session = findCached(token);
+        return (session == null) ? cache(token, redisService.getBytes(token)) : session;
+    }
+
+    /**
+     * Returns the session belonging to a token only if it is held in the local cache.
+     *
+     * @param token the authentication token
+     * @return the cached session, or null on a cache miss
+     */
+    public AuthenticationDTO findCached(String token) {
+        return cache.getIfPresent(token);
+    }
+
+    /**
+     * Loads a session from Redis and slides its expiration window in the same round-trip, bypassing the local cache.
+     *
+     * @param token the authentication token
+     * @param expiration the TTL in seconds
+     * @return the session, or null if the token is unknown or expired
+     */
+    public AuthenticationDTO load(String token, int expiration) {
+        AuthenticationDTO session = cache(token, redisService.getAndExpire(token, expiration));
+        if (session != null) { touchCoalescer.refreshed(token); }
+        return session;
+    }
+
+    /**
+     * Persists a newly established session and primes the local cache with it.
+     *
+     * @param session the session to store; its token is used as the key
+     * @param expiration the TTL in seconds
+     * @throws IOException if the session cannot be serialized
+     */
+    public void save(AuthenticationDTO session, int expiration) throws IOException {
+        redisService.set(session.getToken(), sessionSerializer.encode(session), expiration);
+        cache.put(session.getToken(), session);
+        touchCoalescer.refreshed(session.getToken());
+    }
+
+    /**
+     * Ends a session.
+     *
+     * @param token the authentication token
+     */
+    public void delete(String token) {
+        redisService.delete(token);
+        cache.invalidate(token);
+    }
+
+    /**
+     * Slides the expiration window of a session. The refresh is coalesced with others and written to Redis in the
+     * background, so this returns without a network round-trip.
+     *
+     * @param token the authentication token
+     */
+    public void touch(String token) {
+        touchCoalescer.touch(token);
+    }
+
+    private AuthenticationDTO cache(String token, byte[] serializedAuthData) {
+        if (serializedAuthData == null) { return null; }
+
+        try {
+            AuthenticationDTO session = sessionSerializer.decode(serializedAuthData);
+            cache.put(token, session);
+            return session;
+        } catch (IOException e) {
+            LOGGER.error("Error deserializing auth DTO", e);
+            return null;
+        }
+    }
+}
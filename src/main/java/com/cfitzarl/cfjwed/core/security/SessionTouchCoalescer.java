@@ -0,0 +1,175 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.security;
+
+import com.cfitzarl.cfjwed.core.metrics.MetricSource;
+import com.cfitzarl.cfjwed.service.RedisService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This coalesces the sliding expiration of sessions. Rather than resetting the TTL in Redis on every authenticated
+ * request, requests only record that a token was used. A background flusher periodically sends the deduplicated
+ * refreshes to Redis in pipelined batches, and drops tokens whose TTL was reset recently enough that their remaining
+ * lifetime is still close to the full window.
+ */
+@Component
+class SessionTouchCoalescer implements MetricSource {
+
+    @Autowired
+    private RedisService redisService;
+
+    @Value("${session.touch.min.interval}")
+    private int minInterval;
+
+    @Value("${session.touch.batch.size}")
+    private int batchSize;
+
+    /** Tokens used since the last flush. */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    /** The time, in milliseconds, at which this node last reset the TTL of each token. */
+    private final Map<String, Long> lastRefreshed = new ConcurrentHashMap<>();
+
+    private final LongAdder touchesReceived = new LongAdder();
+    private final LongAdder touchesSkipped = new LongAdder();
+    private final LongAdder redisWrites = new LongAdder();
+    private final LongAdder redisBatches = new LongAdder();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionTouchCoalescer.class);
+
+    /**
+     * Records that a session was used. This never talks to Redis.
+     *
+     * @param token the authentication token
+     */
+    void touch(String token) {
+        touchesReceived.increment();
+
+        if (isFresh(token, System.currentTimeMillis())) {
+            touchesSkipped.increment();
+            return;
+        }
+
+        pending.add(token);
+    }
+
+    /**
+     * Records that the TTL of a session was reset by some other means, such as it being created or loaded.
+     *
+     * @param token the authentication token
+     */
+    void refreshed(String token) {
+        lastRefreshed.put(token, System.currentTimeMillis());
+    }
+
+    /**
+     * Sends the pending TTL refreshes to Redis.
+     */
+    @Scheduled(fixedDelayString = "${session.touch.flush.interval}")
+    @PreDestroy
+    public void flush() {
+        long now = System.currentTimeMillis();
+        List<String> due = new ArrayList<>();
+
+        for (Iterator<String> it = pending.iterator(); it.hasNext(); ) {
+            String token = it.next();
+            it.remove();
+
+            if (isFresh(token, now)) {
+                touchesSkipped.increment();
+            } else {
+                due.add(token);
+            }
+        }
+
+        for (int i = 0; i < due.size(); i += batchSize) {
+            List<String> chunk = due.subList(i, Math.min(i + batchSize, due.size()));
+
+            try {
+                redisService.batch(batch -> {
+                    for (String token : chunk) {
+                        batch.expire(token, AuthenticationProcessingFilter.SESSION_EXPIRY_SECONDS);
+                    }
+                });
+            } catch (Exception e) {
+                // Put them back so the next flush retries; a session only expires if Redis stays down for the window
+                LOGGER.warn("Unable to refresh {} session(s), will retry", chunk.size(), e);
+                pending.addAll(chunk);
+                continue;
+            }
+
+            redisWrites.add(chunk.size());
+            redisBatches.increment();
+            chunk.forEach(token -> lastRefreshed.put(token, now));
+        }
+
+        // Anything older than the session window has expired in Redis, so there is nothing left to track
+        long cutoff = now - TimeUnit.SECONDS.toMillis(AuthenticationProcessingFilter.SESSION_EXPIRY_SECONDS);
+        lastRefreshed.values().removeIf(refreshedAt -> refreshedAt < cutoff);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public String getMetricName() {
+        return "sessionTouches";
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        metrics.put("received", touchesReceived.sum());
+        metrics.put("skipped", touchesSkipped.sum());
+        metrics.put("redisWrites", redisWrites.sum());
+        metrics.put("redisBatches", redisBatches.sum());
+        metrics.put("pending", pending.size());
+        metrics.put("tracked", lastRefreshed.size());
+        return metrics;
+    }
+
+    /**
+     * Returns whether the TTL of a token was reset within the minimum interval.
+     */
+    private boolean isFresh(String token, long now) {
+        Long refreshedAt = lastRefreshed.get(token);
+        return (refreshedAt != null) && ((now - refreshedAt) < TimeUnit.SECONDS.toMillis(minInterval));
+    }
+}
@@ -26,8 +26,13 @@ package com.cfitzarl.cfjwed.data.dao;
 
 import com.cfitzarl.cfjwed.data.enums.AccountType;
 import com.cfitzarl.cfjwed.data.model.Account;
+import com.cfitzarl.cfjwed.data.projection.LoginProjection;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
@@ -53,4 +58,38 @@ public interface AccountDao extends JpaRepository<Account, UUID> {
      * @return the account if it exists
      */
     List<Account> findByType(AccountType accountType);
+
+    /**
+     * Returns the data needed to log an account in by its email address. The invitation is right-joined because only
+     * it knows about the account, and invitees are the only accounts that have one.
+     *
+     * @param email the email address
+     * @return the login data if the account exists
+     */
+    @Query("SELECT new com.cfitzarl.cfjwed.data.projection.LoginProjection(" +
+           "a.id, a.email, a.firstName, a.lastName, a.password, a.activated, a.type, i.id) " +
+           "FROM Invitation i RIGHT JOIN i.account a WHERE a.email = :email")
+    LoginProjection findLoginByEmail(@Param("email") String email);
+
+    /**
+     * Returns the same data as {@link #findLoginByEmail(String)} by the ID of the account.
+     *
+     * @param id the ID of the account
+     * @return the login data if the account exists
+     */
+    @Query("SELECT new com.cfitzarl.cfjwed.data.projection.LoginProjection(" +
+           "a.id, a.email, a.firstName, a.lastName, a.password, a.activated, a.type, i.id) " +
+           "FROM Invitation i RIGHT JOIN i.account a WHERE a.id = :id")
+    LoginProjection findLoginById(@Param("id") UUID id);
+
+    /**
+     * Replaces the password hash of an account without loading it.
+     *
+     * @param id the ID of the account
+     * @param password the new password hash
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Account a SET a.password = :password WHERE a.id = :id")
+    void updatePassword(@Param("id") UUID id, @Param("password") String password);
 }
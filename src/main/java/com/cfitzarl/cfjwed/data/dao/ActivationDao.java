@@ -25,6 +25,7 @@
 package com.cfitzarl.cfjwed.data.dao;
 
 import com.cfitzarl.cfjwed.data.model.Activation;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -37,10 +38,11 @@ import java.util.UUID;
 public interface ActivationDao extends JpaRepository<Activation, UUID> {
 
     /**
-     * Returns an activation by its token.
+     * Returns an activation by its token, along with the account it activates.
      *
      * @param token the token
      * @return the activation if it exists
      */
+    @EntityGraph(Activation.WITH_ACCOUNT)
     Activation findByToken(String token);
 }
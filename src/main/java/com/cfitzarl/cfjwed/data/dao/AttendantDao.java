@@ -26,9 +26,11 @@ package com.cfitzarl.cfjwed.data.dao;
 
 import com.cfitzarl.cfjwed.data.enums.ResponseStatus;
 import com.cfitzarl.cfjwed.data.model.Attendant;
-import com.cfitzarl.cfjwed.data.model.Invitation;
 import com.cfitzarl.cfjwed.data.model.MealOption;
+import com.cfitzarl.cfjwed.data.projection.StatusMealCount;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -38,29 +40,25 @@ import java.util.UUID;
  * The DAO representing the {@link Attendant} data model.
  */
 @Repository
-public interface AttendantDao extends JpaRepository<Attendant, UUID> {
+public interface AttendantDao extends JpaRepository<Attendant, UUID>, AttendantDaoCustom {
 
     /**
-     * Returns the number of attendants have chosen the specified {@link MealOption}.
+     * Returns the number of attendants for every combination of {@link ResponseStatus} and {@link MealOption} that
+     * occurs, including attendants without a meal.
      *
-     * @param mealOption the meal option to filter by
-     * @return the number of people who have chosen it
+     * @return a count per status and meal
      */
-    long countByMeal(MealOption mealOption);
+    @Query("SELECT NEW com.cfitzarl.cfjwed.data.projection.StatusMealCount(a.responseStatus, a.meal.id, COUNT(a)) "
+        + "FROM Attendant a GROUP BY a.responseStatus, a.meal.id")
+    List<StatusMealCount> countGroupedByStatusAndMeal();
 
     /**
-     * Returns the number of attendants by their {@link ResponseStatus}.
+     * Returns the attendants registered against a particular invitation, with their invitation and meal loaded.
      *
-     * @param status the status to filter by
-     * @return the count
-     */
-    long countByResponseStatus(ResponseStatus status);
-
-    /**
-     * Returns the attends registered against a particular invitation.
-     *
-     * @param invitation the invitation
+     * @param invitationId the ID of the invitation
      * @return a list of attendants if present
      */
-    List<Attendant> findByInvitation(Invitation invitation);
+    @EntityGraph(Attendant.WITH_INVITATION_AND_MEAL)
+    List<Attendant> findByInvitationId(UUID invitationId);
+
 }
@@ -0,0 +1,75 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.data.dao;
+
+import com.cfitzarl.cfjwed.data.enums.ResponseStatus;
+import com.cfitzarl.cfjwed.data.projection.AttendantExportRow;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.function.Consumer;
+
+/**
+ * Implements {@link AttendantDaoCustom}; Spring Data picks this up by its name and mixes it into {@link AttendantDao}.
+ */
+class AttendantDaoImpl implements AttendantDaoCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * MySQL only streams a forward-only, read-only result row by row when given this fetch size; with any other it
+     * reads the entire result into memory first. The connection can run nothing else until the result is closed.
+     */
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private static final String EXPORT_QUERY =
+        "SELECT i.name, a.name, a.responseStatus, m.name FROM Attendant a JOIN a.invitation i LEFT JOIN a.meal m "
+            + "ORDER BY i.name, a.name";
+
+    /** {@inheritDoc} **/
+    @Override
+    public void streamForExport(Consumer<AttendantExportRow> consumer) {
+        ScrollableResults results = entityManager.unwrap(Session.class)
+            .createQuery(EXPORT_QUERY)
+            .setFetchSize(STREAMING_FETCH_SIZE)
+            .setReadOnly(true)
+            .scroll(ScrollMode.FORWARD_ONLY);
+
+        try {
+            while (results.next()) {
+                Object[] row = results.get();
+                consumer.accept(new AttendantExportRow(
+                    (String) row[0], (String) row[1], (ResponseStatus) row[2], (String) row[3]
+                ));
+            }
+        } finally {
+            results.close();
+        }
+    }
+}
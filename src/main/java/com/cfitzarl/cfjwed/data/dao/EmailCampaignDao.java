@@ -0,0 +1,140 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.data.dao;
+
+import com.cfitzarl.cfjwed.data.model.EmailCampaign;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The DAO representing the {@link EmailCampaign} data model. A running campaign is leased to one node at a time, in
+ * the same way as the outbox leases emails, and every update made while running it requires the caller to still hold
+ * the lease. A node that dies stops renewing its lease, which lets another node take the campaign over.
+ */
+@Repository
+public interface EmailCampaignDao extends JpaRepository<EmailCampaign, UUID> {
+
+    /**
+     * Leases the oldest running campaign that no node holds to a claim.
+     *
+     * @param owner the claim token
+     * @param leaseSeconds how long the lease lasts
+     * @return the number of campaigns claimed, at most one
+     */
+    @Modifying
+    @Query(
+        value = "UPDATE email_campaigns SET lease_owner = :owner, lease_expires_at = NOW() + INTERVAL :lease SECOND "
+            + "WHERE status = 'RUNNING' AND (lease_expires_at IS NULL OR lease_expires_at < NOW()) "
+            + "ORDER BY started_at LIMIT 1",
+        nativeQuery = true
+    )
+    int claim(@Param("owner") String owner, @Param("lease") int leaseSeconds);
+
+    /**
+     * Returns the campaign leased to a claim.
+     *
+     * @param owner the claim token
+     * @return the campaign, if the claim holds one
+     */
+    EmailCampaign findByLeaseOwner(String owner);
+
+    /**
+     * Returns every campaign, the most recently started first.
+     *
+     * @return the campaigns
+     */
+    List<EmailCampaign> findAllByOrderByStartedAtDesc();
+
+    /**
+     * Records a page of queued emails and extends the lease, provided the campaign is still running under it.
+     *
+     * @param id the ID of the campaign
+     * @param owner the claim token
+     * @param leaseSeconds how long the lease is extended by
+     * @param lastInvitation the last invitation in the page
+     * @param queued the number of emails queued
+     * @param skipped the number of recipients skipped
+     * @return one if the page was recorded, or zero if the lease was lost or the campaign has ended
+     */
+    @Modifying
+    @Query(
+        value = "UPDATE email_campaigns SET last_invitation = :last, queued = queued + :queued, "
+            + "skipped = skipped + :skipped, lease_expires_at = NOW() + INTERVAL :lease SECOND "
+            + "WHERE id = :id AND lease_owner = :owner AND status = 'RUNNING'",
+        nativeQuery = true
+    )
+    int advance(@Param("id") String id, @Param("owner") String owner, @Param("lease") int leaseSeconds,
+                @Param("last") String lastInvitation, @Param("queued") int queued, @Param("skipped") int skipped);
+
+    /**
+     * Extends the lease, provided the campaign is still running under it.
+     *
+     * @param id the ID of the campaign
+     * @param owner the claim token
+     * @param leaseSeconds how long the lease is extended by
+     * @return one if the lease was extended, or zero if it was lost or the campaign has ended
+     */
+    @Modifying
+    @Query(
+        value = "UPDATE email_campaigns SET lease_expires_at = NOW() + INTERVAL :lease SECOND "
+            + "WHERE id = :id AND lease_owner = :owner AND status = 'RUNNING'",
+        nativeQuery = true
+    )
+    int renew(@Param("id") String id, @Param("owner") String owner, @Param("lease") int leaseSeconds);
+
+    /**
+     * Releases the lease so that another node may take the campaign over straight away.
+     *
+     * @param id the ID of the campaign
+     * @param owner the claim token
+     */
+    @Modifying
+    @Query(
+        value = "UPDATE email_campaigns SET lease_owner = NULL, lease_expires_at = NULL "
+            + "WHERE id = :id AND lease_owner = :owner",
+        nativeQuery = true
+    )
+    void release(@Param("id") String id, @Param("owner") String owner);
+
+    /**
+     * Ends a running campaign and releases its lease.
+     *
+     * @param id the ID of the campaign
+     * @param status COMPLETED once every email is queued, or CANCELLED to stop early
+     */
+    @Modifying
+    @Query(
+        value = "UPDATE email_campaigns SET status = :status, completed_at = NOW(), lease_owner = NULL, "
+            + "lease_expires_at = NULL WHERE id = :id AND status = 'RUNNING'",
+        nativeQuery = true
+    )
+    void end(@Param("id") String id, @Param("status") String status);
+}
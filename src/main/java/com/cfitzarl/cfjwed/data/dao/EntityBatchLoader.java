@@ -0,0 +1,178 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.data.dao;
+
+import com.cfitzarl.cfjwed.data.model.Invitation;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.annotation.ScopedProxyMode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A request-scoped identity map shared by the controllers and mappers that handle a single request. Entities are loaded
+ * by their primary key, and every ID that has been announced through {@link #prefetch(Class, UUID...)} but not yet
+ * loaded is fetched along with the one asked for, in a single {@code IN (...)} query per entity type. Each row is
+ * therefore selected at most once per request, however many callers look it up.
+ *
+ * <p>Entities are loaded into the request's persistence context and are managed as usual. The loader remembers IDs that
+ * do not exist, so an entity created later in the same request is not visible through it.</p>
+ */
+@Component
+@Scope(value = WebApplicationContext.SCOPE_REQUEST, proxyMode = ScopedProxyMode.TARGET_CLASS)
+public class EntityBatchLoader {
+
+    /** Keeps each query's parameter list well below what the driver and the query plan cache handle comfortably. **/
+    private static final int MAX_BATCH_SIZE = 500;
+
+    /** Invitations are always loaded with their account, since callers authorize against it. **/
+    private static final Map<Class<?>, String> FETCH_GRAPHS =
+        ImmutableMap.of(Invitation.class, Invitation.WITH_ACCOUNT);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Map<Class<?>, Map<UUID, Object>> loaded = new HashMap<>();
+
+    private final Map<Class<?>, Set<UUID>> pending = new HashMap<>();
+
+    /**
+     * Announces IDs that will be looked up later in the request, so that they are loaded together with the next lookup
+     * of the same type. Null IDs are ignored.
+     *
+     * @param type the entity type
+     * @param ids the IDs to load
+     */
+    public void prefetch(Class<?> type, UUID... ids) {
+        prefetch(type, Arrays.asList(ids));
+    }
+
+    /**
+     * Announces IDs that will be looked up later in the request, so that they are loaded together with the next lookup
+     * of the same type. Null IDs are ignored.
+     *
+     * @param type the entity type
+     * @param ids the IDs to load
+     */
+    public void prefetch(Class<?> type, Collection<UUID> ids) {
+        Map<UUID, Object> entities = loaded(type);
+
+        for (UUID id : ids) {
+            if ((id != null) && !entities.containsKey(id)) {
+                pending.computeIfAbsent(type, key -> new LinkedHashSet<>()).add(id);
+            }
+        }
+    }
+
+    /**
+     * Returns an entity by its ID, loading it together with all pending IDs of the same type if it has not been loaded.
+     *
+     * @param type the entity type
+     * @param id the ID, which may be null
+     * @param <T> the entity type
+     * @return the entity, or null if there is none
+     */
+    public <T> T find(Class<T> type, UUID id) {
+        if (id == null) { return null; }
+
+        Map<UUID, Object> entities = loaded(type);
+
+        if (!entities.containsKey(id)) {
+            prefetch(type, id);
+            load(type);
+        }
+
+        return type.cast(entities.get(id));
+    }
+
+    /**
+     * Returns the entities with the given IDs in the order of the IDs, leaving out IDs that do not exist. All of them,
+     * along with any other pending IDs of the same type, are loaded together.
+     *
+     * @param type the entity type
+     * @param ids the IDs
+     * @param <T> the entity type
+     * @return the entities found
+     */
+    public <T> List<T> findAll(Class<T> type, Collection<UUID> ids) {
+        prefetch(type, ids);
+        load(type);
+
+        Map<UUID, Object> entities = loaded(type);
+        List<T> found = new ArrayList<>();
+
+        for (UUID id : ids) {
+            Object entity = (id == null) ? null : entities.get(id);
+            if (entity != null) { found.add(type.cast(entity)); }
+        }
+
+        return found;
+    }
+
+    private void load(Class<?> type) {
+        Set<UUID> ids = pending.remove(type);
+        if (ids == null) { return; }
+
+        Map<UUID, Object> entities = loaded(type);
+        PersistenceUnitUtil persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        String query = "SELECT e FROM " + entityManager.getMetamodel().entity(type).getName() + " e WHERE e.id IN :ids";
+
+        for (List<UUID> batch : Iterables.partition(ids, MAX_BATCH_SIZE)) {
+            TypedQuery<?> typedQuery = entityManager.createQuery(query, type).setParameter("ids", batch);
+
+            if (FETCH_GRAPHS.containsKey(type)) {
+                typedQuery.setHint("javax.persistence.loadgraph", entityManager.getEntityGraph(FETCH_GRAPHS.get(type)));
+            }
+
+            for (Object entity : typedQuery.getResultList()) {
+                entities.put((UUID) persistenceUnitUtil.getIdentifier(entity), entity);
+            }
+        }
+
+        // Remember the IDs that were not found so that they are not queried again
+        for (UUID id : ids) {
+            entities.putIfAbsent(id, null);
+        }
+    }
+
+    private Map<UUID, Object> loaded(Class<?> type) {
+        return loaded.computeIfAbsent(type, key -> new HashMap<>());
+    }
+}
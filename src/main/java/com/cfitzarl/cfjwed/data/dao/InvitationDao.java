@@ -26,13 +26,17 @@ package com.cfitzarl.cfjwed.data.dao;
 
 import com.cfitzarl.cfjwed.data.model.Account;
 import com.cfitzarl.cfjwed.data.model.Invitation;
+import com.cfitzarl.cfjwed.data.projection.InvitationRecipient;
+import org.joda.time.DateTime;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -42,6 +46,10 @@ import java.util.UUID;
 @Repository
 public interface InvitationDao extends JpaRepository<Invitation, UUID> {
 
+    /** Restricts campaign recipients to those still waiting on a response, when asked to. */
+    String PENDING_ONLY = ":pendingOnly = false OR EXISTS (SELECT t.id FROM Attendant t WHERE t.invitation = i "
+        + "AND t.responseStatus = com.cfitzarl.cfjwed.data.enums.ResponseStatus.PENDING)";
+
     /**
      * Returns the invitation associated with a particular account.
      *
@@ -58,6 +66,110 @@ public interface InvitationDao extends JpaRepository<Invitation, UUID> {
      */
     Page<Invitation> findAll(Pageable pageable);
 
+    /**
+     * Returns a paginated slice of invitation IDs. Paging over IDs alone lets the invitations themselves be fetched
+     * with their attendants by {@link #findWithAttendantsByIdIn(Collection)}, as limiting a query that fetch-joins a
+     * collection would otherwise have to happen in memory.
+     *
+     * @param pageable the page data
+     * @return a paginated slice of IDs
+     */
+    @Query(value = "SELECT i.id FROM Invitation i", countQuery = "SELECT COUNT(i) FROM Invitation i")
+    Page<UUID> findIds(Pageable pageable);
+
+    /**
+     * Returns the IDs of the first invitations in order of name and ID.
+     *
+     * @param pageable the page data; only its size is used
+     * @return the IDs
+     */
+    @Query("SELECT i.id FROM Invitation i ORDER BY i.name, i.id")
+    List<UUID> findFirstIds(Pageable pageable);
+
+    /**
+     * Returns the IDs of the invitations that follow a given one in order of name and ID. The leading condition on
+     * the name alone lets the database range-scan the (name, id) index from the cursor onwards.
+     *
+     * @param name the name of the invitation to seek past
+     * @param id the ID of the invitation to seek past
+     * @param pageable the page data; only its size is used
+     * @return the IDs
+     */
+    @Query("SELECT i.id FROM Invitation i WHERE i.name >= :name AND (i.name > :name OR i.id > :id) "
+        + "ORDER BY i.name, i.id")
+    List<UUID> findIdsAfter(@Param("name") String name, @Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Returns the recipients of an email campaign that follow a given invitation in order of ID. Only invitations with
+     * a registered account have an address to send to.
+     *
+     * @param after the ID of the invitation to seek past
+     * @param pendingOnly whether to only include invitations with attendants who have not responded
+     * @param pageable the page data; only its size is used
+     * @return the recipients
+     */
+    @Query("SELECT NEW com.cfitzarl.cfjwed.data.projection.InvitationRecipient(i.id, a.email, a.firstName) "
+        + "FROM Invitation i JOIN i.account a WHERE i.id > :after AND (" + PENDING_ONLY + ") ORDER BY i.id")
+    List<InvitationRecipient> findInvitationRecipients(@Param("after") UUID after,
+                                                   @Param("pendingOnly") boolean pendingOnly,
+                                                   Pageable pageable);
+
+    /**
+     * Returns the invitations to remind between two IDs in order of ID: those with a registered account, an attendant
+     * who has not responded, and no reminder since a cutoff. The search starts from the attendants that have not
+     * responded, through the (response_status, invitation) index, so it never reads answered invitations.
+     *
+     * @param after the ID of the invitation to seek past
+     * @param before the ID to stop before
+     * @param cutoff invitations reminded at or after this time are left out
+     * @param pageable the page data; only its size is used
+     * @return the recipients
+     */
+    @Query("SELECT DISTINCT NEW com.cfitzarl.cfjwed.data.projection.InvitationRecipient(i.id, a.email, a.firstName) "
+        + "FROM Attendant t JOIN t.invitation i JOIN i.account a "
+        + "WHERE t.responseStatus = com.cfitzarl.cfjwed.data.enums.ResponseStatus.PENDING AND i.id > :after "
+        + "AND i.id < :before AND (i.lastReminded IS NULL OR i.lastReminded < :cutoff) ORDER BY i.id")
+    List<InvitationRecipient> findReminderRecipients(@Param("after") UUID after, @Param("before") UUID before,
+                                                     @Param("cutoff") DateTime cutoff, Pageable pageable);
+
+    /**
+     * Records when invitations were last reminded.
+     *
+     * @param ids the IDs of the invitations
+     * @param remindedAt the time of the reminder
+     */
+    @Modifying
+    @Query("UPDATE Invitation i SET i.lastReminded = :remindedAt WHERE i.id IN :ids")
+    void markReminded(@Param("ids") Collection<UUID> ids, @Param("remindedAt") DateTime remindedAt);
+
+    /**
+     * Counts the recipients of an email campaign.
+     *
+     * @param pendingOnly whether to only include invitations with attendants who have not responded
+     * @return the number of recipients
+     */
+    @Query("SELECT COUNT(i) FROM Invitation i JOIN i.account a WHERE " + PENDING_ONLY)
+    long countInvitationRecipients(@Param("pendingOnly") boolean pendingOnly);
+
+    /**
+     * Returns the invitations with the given IDs, with their attendants loaded.
+     *
+     * @param ids the IDs
+     * @return the invitations, in no particular order
+     */
+    @Query("SELECT DISTINCT i FROM Invitation i LEFT JOIN FETCH i.attendants WHERE i.id IN :ids")
+    List<Invitation> findWithAttendantsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Returns an invitation with its account and attendants loaded.
+     *
+     * @param id the ID of the invitation
+     * @return the invitation if it exists
+     */
+    @Query("SELECT DISTINCT i FROM Invitation i LEFT JOIN FETCH i.account LEFT JOIN FETCH i.attendants " +
+           "WHERE i.id = :id")
+    Invitation findDetail(@Param("id") UUID id);
+
     /**
      * Returns an invitation by its registration code.
      *
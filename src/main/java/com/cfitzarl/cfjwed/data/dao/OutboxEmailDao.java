@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.data.dao;
+
+import com.cfitzarl.cfjwed.data.enums.OutboxStatus;
+import com.cfitzarl.cfjwed.data.model.OutboxEmail;
+import com.cfitzarl.cfjwed.data.projection.OutboxStatusCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The DAO representing the {@link OutboxEmail} data model. Claims are leases rather than row locks: a single
+ * {@code UPDATE ... LIMIT} stamps due, unleased rows with a claim token, so concurrent dispatchers on any number of
+ * nodes each take a disjoint batch without holding a transaction open while they send. A lease that is not released,
+ * because its holder died, expires and makes the rows claimable again. Every later update of a claimed row is made on
+ * behalf of the claim and only applies while the row is still leased to it, so a holder whose lease ran out cannot
+ * overwrite the work of the claim that took the row over.
+ */
+@Repository
+public interface OutboxEmailDao extends JpaRepository<OutboxEmail, UUID> {
+
+    /**
+     * Leases up to a number of due emails to a claim, oldest first.
+     *
+     * @param owner the claim token
+     * @param leaseSeconds how long the lease lasts
+     * @param limit the most emails to claim
+     * @return the number of emails claimed
+     */
+    @Modifying
+    @Query(
+        value = "UPDATE email_outbox SET lease_owner = :owner, lease_expires_at = NOW() + INTERVAL :lease SECOND "
+            + "WHERE status = 'PENDING' AND next_attempt_at <= NOW() "
+            + "AND (lease_expires_at IS NULL OR lease_expires_at < NOW()) "
+            + "ORDER BY next_attempt_at LIMIT :limit",
+        nativeQuery = true
+    )
+    int claim(@Param("owner") String owner, @Param("lease") int leaseSeconds, @Param("limit") int limit);
+
+    /**
+     * Counts the emails with a status.
+     *
+     * @param status the status
+     * @return the number of emails
+     */
+    long countByStatus(OutboxStatus status);
+
+    /**
+     * Counts the emails of a campaign by their status.
+     *
+     * @param campaign the ID of the campaign
+     * @return the counts, omitting statuses without emails
+     */
+    @Query("SELECT NEW com.cfitzarl.cfjwed.data.projection.OutboxStatusCount(e.status, COUNT(e)) FROM OutboxEmail e "
+        + "WHERE e.campaign = :campaign GROUP BY e.status")
+    List<OutboxStatusCount> countByCampaign(@Param("campaign") UUID campaign);
+
+    /**
+     * Returns the emails leased to a claim.
+     *
+     * @param owner the claim token
+     * @return the claimed emails
+     */
+    List<OutboxEmail> findByLeaseOwner(String owner);
+
+    /**
+     * Extends the lease of the emails of a claim that have not been reported as sent or failed.
+     *
+     * @param owner the claim token
+     * @param leaseSeconds how long the lease lasts from now
+     * @return the number of emails still leased to the claim
+     */
+    @Modifying
+    @Query(
+        value = "UPDATE email_outbox SET lease_expires_at = NOW() + INTERVAL :lease SECOND "
+            + "WHERE lease_owner = :owner AND status = 'PENDING'",
+        nativeQuery = true
+    )
+    int renew(@Param("owner") String owner, @Param("lease") int leaseSeconds);
+
+    /**
+     * Marks an email as delivered and releases its lease.
+     *
+     * @param id the ID of the email
+     * @param owner the claim token the email must still be leased to
+     * @return the number of emails updated, which is zero if the lease was lost
+     */
+    @Modifying
+    @Query(
+        value = "UPDATE email_outbox SET status = 'SENT', sent_at = NOW(), lease_owner = NULL, lease_expires_at = NULL "
+            + "WHERE id = :id AND lease_owner = :owner",
+        nativeQuery = true
+    )
+    int markSent(@Param("id") String id, @Param("owner") String owner);
+
+    /**
+     * Records a failed delivery attempt and releases the lease, scheduling the next attempt after a delay.
+     *
+     * @param id the ID of the email
+     * @param owner the claim token the email must still be leased to
+     * @param status PENDING to try again, or FAILED to give up
+     * @param delaySeconds how long to wait before the next attempt
+     * @param error a description of the failure
+     * @return the number of emails updated, which is zero if the lease was lost
+     */
+    @Modifying
+    @Query(
+        value = "UPDATE email_outbox SET status = :status, attempts = attempts + 1, last_error = :error, "
+            + "next_attempt_at = NOW() + INTERVAL :delay SECOND, lease_owner = NULL, lease_expires_at = NULL "
+            + "WHERE id = :id AND lease_owner = :owner",
+        nativeQuery = true
+    )
+    int markFailed(@Param("id") String id, @Param("owner") String owner, @Param("status") String status,
+                   @Param("delay") long delaySeconds, @Param("error") String error);
+}
@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.data.dao;
+
+import com.cfitzarl.cfjwed.data.model.RsvpCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The DAO representing the {@link RsvpCounter} data model.
+ */
+@Repository
+public interface RsvpCounterDao extends JpaRepository<RsvpCounter, String> {
+
+    /**
+     * Adds to a counter and bumps its revision, creating it if it does not exist yet. This is a single atomic
+     * statement, so concurrent increments never overwrite each other.
+     *
+     * @param key the counter key
+     * @param delta the amount to add, which may be negative
+     */
+    @Modifying
+    @Query(
+        value = "INSERT INTO rsvp_counters (counter_key, counter_value, counter_revision) VALUES (:key, :delta, 1) "
+            + "ON DUPLICATE KEY UPDATE counter_value = counter_value + :delta, counter_revision = counter_revision + 1",
+        nativeQuery = true
+    )
+    void increment(@Param("key") String key, @Param("delta") long delta);
+
+    /**
+     * Sets a counter and bumps its revision, creating it if it does not exist yet.
+     *
+     * @param key the counter key
+     * @param value the new value
+     */
+    @Modifying
+    @Query(
+        value = "INSERT INTO rsvp_counters (counter_key, counter_value, counter_revision) VALUES (:key, :value, 1) "
+            + "ON DUPLICATE KEY UPDATE counter_value = :value, counter_revision = counter_revision + 1",
+        nativeQuery = true
+    )
+    void set(@Param("key") String key, @Param("value") long value);
+
+    /**
+     * Reads the current values of some counters as unmanaged copies, so that changes made by {@link #increment} in
+     * the same transaction are always seen.
+     *
+     * @param keys the counter keys
+     * @return the counters that exist
+     */
+    @Query(
+        "SELECT new com.cfitzarl.cfjwed.data.model.RsvpCounter(c.key, c.value, c.revision) FROM RsvpCounter c "
+            + "WHERE c.key IN :keys"
+    )
+    List<RsvpCounter> findCurrent(@Param("keys") Collection<String> keys);
+
+    /**
+     * Locks every counter, along with the gaps between them, until the current transaction ends. Increments and new
+     * counters wait for the lock, so nothing can change them while they are being recomputed.
+     *
+     * @return every counter
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM RsvpCounter c")
+    List<RsvpCounter> findAllForUpdate();
+}
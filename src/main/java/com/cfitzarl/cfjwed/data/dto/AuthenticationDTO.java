@@ -34,6 +34,7 @@ import java.util.UUID;
  */
 @Data
 public class AuthenticationDTO implements Serializable {
+    private UUID accountId;
     private String email;
     private String csrf;
     private String firstName;
@@ -41,4 +42,5 @@ public class AuthenticationDTO implements Serializable {
     private String lastName;
     private String role;
     private String token;
+    private String refreshToken;
 }
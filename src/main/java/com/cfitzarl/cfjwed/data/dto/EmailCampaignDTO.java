@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.data.dto;
+
+import com.cfitzarl.cfjwed.data.enums.CampaignAudience;
+import com.cfitzarl.cfjwed.data.enums.CampaignStatus;
+import lombok.Data;
+import org.hibernate.validator.constraints.NotEmpty;
+
+import javax.validation.constraints.NotNull;
+import java.util.UUID;
+
+/**
+ * Data transfer object that provides an email campaign and its progress to the UI. Only the subject, message and
+ * audience are provided when starting a campaign. Queued emails are then either sent, failed for good, or pending
+ * delivery; times are in milliseconds since the epoch.
+ */
+@Data
+public class EmailCampaignDTO {
+    private UUID id;
+
+    @NotEmpty
+    private String subject;
+
+    @NotEmpty
+    private String message;
+
+    @NotNull
+    private CampaignAudience audience;
+
+    private CampaignStatus status;
+    private int recipients;
+    private int queued;
+    private int skipped;
+    private long sent;
+    private long failed;
+    private long pending;
+    private double sentPerSecond;
+    private Long startedAt;
+    private Long completedAt;
+}
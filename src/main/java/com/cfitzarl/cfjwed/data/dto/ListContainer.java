@@ -43,6 +43,10 @@ public class ListContainer<E> {
     @JsonProperty("count")
     private Long count;
 
+    /** The token to pass back for the next page of a keyset-paginated list, or null on the last page. */
+    @JsonProperty("cursor")
+    private String cursor;
+
     @Valid
     @JsonProperty("items")
     private List<E> list = new ArrayList<>();
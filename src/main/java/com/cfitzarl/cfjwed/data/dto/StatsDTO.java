@@ -28,6 +28,7 @@ import lombok.Data;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Data transfer object used to provide statistical information to the UI.
@@ -40,16 +41,18 @@ public class StatsDTO {
 
     private List<MealOptionEntry> mealStats = new ArrayList<>();
 
-    public void addMealStat(String name, Long count) {
-        mealStats.add(new MealOptionEntry(name, count));
+    public void addMealStat(UUID id, String name, Long count) {
+        mealStats.add(new MealOptionEntry(id, name, count));
     }
 
     @Data
     static class MealOptionEntry {
+        private UUID id;
         private String name;
         private Long count;
 
-        MealOptionEntry(String name, Long count) {
+        MealOptionEntry(UUID id, String name, Long count) {
+            this.id = id;
             this.name = name;
             this.count = count;
         }
@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.data.dto.mapper;
+
+import com.cfitzarl.cfjwed.data.dao.AccountDao;
+import com.cfitzarl.cfjwed.data.dto.AccountDTO;
+import com.cfitzarl.cfjwed.data.model.Account;
+import com.cfitzarl.cfjwed.service.PasswordHashingService;
+import org.mapstruct.AfterMapping;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Bi-directional conversions between an {@link Account} and an {@link AccountDTO}.
+ */
+@Mapper(config = MappingConfiguration.class)
+public abstract class AccountMapper {
+
+    @Autowired
+    private AccountDao accountDao;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    /**
+     * Converts an account into its DTO, leaving out the password and invitation code.
+     *
+     * @param account the account
+     * @return the DTO
+     */
+    @Mapping(target = "password", ignore = true)
+    @Mapping(target = "confirmPassword", ignore = true)
+    @Mapping(target = "invitationCode", ignore = true)
+    public abstract AccountDTO toDto(Account account);
+
+    /**
+     * Applies a DTO to the account it identifies, or to a new account if it identifies none. A password is hashed
+     * before being stored, and an absent password or invitation code leaves the current one untouched.
+     *
+     * @param dto the DTO
+     * @return the updated account
+     */
+    public Account toEntity(AccountDTO dto) {
+        Account account = null;
+
+        if (dto.getId() != null) {
+            account = accountDao.findOne(dto.getId());
+        }
+
+        if (account == null) {
+            account = new Account();
+        }
+
+        update(dto, account);
+
+        return account;
+    }
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "lastUpdated", ignore = true)
+    @Mapping(target = "password", ignore = true)
+    @Mapping(target = "type", ignore = true)
+    @Mapping(target = "activated", ignore = true)
+    @Mapping(target = "invitationCode", ignore = true)
+    protected abstract void update(AccountDTO dto, @MappingTarget Account account);
+
+    @AfterMapping
+    protected void updateCredentials(AccountDTO dto, @MappingTarget Account account) {
+        if (dto.getPassword() != null) {
+            account.setPassword(passwordHashingService.hash(dto.getPassword()));
+        }
+
+        if (dto.getInvitationCode() != null) {
+            account.setInvitationCode(dto.getInvitationCode());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.data.dto.mapper;
+
+import com.cfitzarl.cfjwed.data.dao.EntityBatchLoader;
+import com.cfitzarl.cfjwed.data.dao.MealOptionDao;
+import com.cfitzarl.cfjwed.data.dto.AttendantDTO;
+import com.cfitzarl.cfjwed.data.enums.ResponseStatus;
+import com.cfitzarl.cfjwed.data.model.Attendant;
+import com.cfitzarl.cfjwed.data.model.Invitation;
+import com.cfitzarl.cfjwed.data.model.MealOption;
+import com.cfitzarl.cfjwed.exception.BadRequestException;
+import com.cfitzarl.cfjwed.service.MealOptionService;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Bi-directional conversions between an {@link Attendant} and an {@link AttendantDTO}.
+ */
+@Mapper(config = MappingConfiguration.class)
+public abstract class AttendantMapper {
+
+    @Autowired
+    private EntityBatchLoader entityBatchLoader;
+
+    @Autowired
+    private MealOptionService mealOptionService;
+
+    @Autowired
+    private MealOptionDao mealOptionDao;
+
+    /**
+     * Converts an attendant into its DTO, referring to the invitation and meal by ID.
+     *
+     * @param attendant the attendant
+     * @return the DTO
+     */
+    @Mapping(target = "invitation", source = "invitation.id")
+    @Mapping(target = "diningOption", source = "meal.id")
+    public abstract AttendantDTO toDto(Attendant attendant);
+
+    /**
+     * Applies a DTO to the attendant it identifies, or to a new attendant with the DTO's ID if it identifies none. An
+     * unknown meal is treated as no meal, and an attendant without an invitation is rejected. Lookups go through the
+     * request's {@link EntityBatchLoader}, so rows the caller has already loaded are not selected again.
+     *
+     * @param dto the DTO
+     * @return the updated attendant
+     */
+    public Attendant toEntity(AttendantDTO dto) {
+        entityBatchLoader.prefetch(Invitation.class, dto.getInvitation());
+        Attendant attendant = entityBatchLoader.find(Attendant.class, dto.getId());
+
+        if (attendant == null) {
+            attendant = new Attendant();
+            attendant.setId(dto.getId());
+        }
+
+        update(dto, attendant);
+
+        if (attendant.getResponseStatus() == null) {
+            attendant.setResponseStatus(ResponseStatus.PENDING);
+        }
+
+        MealOption option = null;
+
+        // The meal is checked against the cached options, and only a reference is attached to the attendant
+        if ((dto.getDiningOption() != null) && (mealOptionService.find(dto.getDiningOption()) != null)) {
+            option = mealOptionDao.getOne(dto.getDiningOption());
+        }
+
+        attendant.setMeal(option);
+
+        if (dto.getInvitation() == null) {
+            throw new BadRequestException("An attendant must have an invitation");
+        }
+
+        attendant.setInvitation(entityBatchLoader.find(Invitation.class, dto.getInvitation()));
+
+        return attendant;
+    }
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "lastUpdated", ignore = true)
+    @Mapping(target = "meal", ignore = true)
+    @Mapping(target = "mealId", ignore = true)
+    @Mapping(target = "invitation", ignore = true)
+    @Mapping(target = "persistedResponseStatus", ignore = true)
+    @Mapping(target = "persistedMealId", ignore = true)
+    protected abstract void update(AttendantDTO dto, @MappingTarget Attendant attendant);
+}
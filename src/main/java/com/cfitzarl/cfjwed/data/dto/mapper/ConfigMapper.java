@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.data.dto.mapper;
+
+import com.cfitzarl.cfjwed.data.dao.ConfigDao;
+import com.cfitzarl.cfjwed.data.dto.ConfigDTO;
+import com.cfitzarl.cfjwed.data.enums.ConfigKey;
+import com.cfitzarl.cfjwed.data.model.Config;
+import com.cfitzarl.cfjwed.service.LocalizationService;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Named;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Bi-directional conversions between a {@link Config} and a {@link ConfigDTO}.
+ */
+@Mapper(config = MappingConfiguration.class)
+public abstract class ConfigMapper {
+
+    @Autowired
+    private ConfigDao configDao;
+
+    @Autowired
+    private LocalizationService localizationService;
+
+    /**
+     * Converts a config into its DTO, identifying it by the translation key of its {@link ConfigKey}.
+     *
+     * @param config the config
+     * @return the DTO
+     */
+    @Mapping(target = "key", source = "key", qualifiedByName = "translationKey")
+    @Mapping(target = "displayName", source = "key", qualifiedByName = "displayName")
+    public abstract ConfigDTO toDto(Config config);
+
+    /**
+     * Applies the value of a DTO to the config it identifies. Only the value of a config can be changed.
+     *
+     * @param dto the DTO
+     * @return the updated config, or null if the DTO identifies none
+     */
+    public Config toEntity(ConfigDTO dto) {
+        Config config = configDao.findByKey(ConfigKey.fromTranslationKey(dto.getKey()));
+
+        if ((config != null) && !config.getValue().equals(dto.getValue())) {
+            config.setValue(dto.getValue());
+        }
+
+        return config;
+    }
+
+    @Named("translationKey")
+    protected String translationKey(ConfigKey key) {
+        return key.getTranslationKey();
+    }
+
+    @Named("displayName")
+    protected String displayName(ConfigKey key) {
+        return localizationService.getMessage(key.getTranslationKey());
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.data.dto.mapper;
+
+import com.cfitzarl.cfjwed.data.dto.EmailCampaignDTO;
+import com.cfitzarl.cfjwed.data.model.EmailCampaign;
+import org.joda.time.DateTime;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Conversions between an {@link EmailCampaign} and an {@link EmailCampaignDTO}. Delivery progress is not part of the
+ * campaign and is filled in separately.
+ */
+@Mapper(config = MappingConfiguration.class)
+public abstract class EmailCampaignMapper {
+
+    /**
+     * Converts a campaign into its DTO, without its delivery progress.
+     *
+     * @param campaign the campaign
+     * @return the DTO
+     */
+    @Mapping(target = "sent", ignore = true)
+    @Mapping(target = "failed", ignore = true)
+    @Mapping(target = "pending", ignore = true)
+    @Mapping(target = "sentPerSecond", ignore = true)
+    public abstract EmailCampaignDTO toDto(EmailCampaign campaign);
+
+    /**
+     * Creates a new campaign from the subject, message and audience of a DTO.
+     *
+     * @param dto the DTO
+     * @return the campaign
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "lastUpdated", ignore = true)
+    @Mapping(target = "status", ignore = true)
+    @Mapping(target = "recipients", ignore = true)
+    @Mapping(target = "queued", ignore = true)
+    @Mapping(target = "skipped", ignore = true)
+    @Mapping(target = "lastInvitation", ignore = true)
+    @Mapping(target = "leaseOwner", ignore = true)
+    @Mapping(target = "startedAt", ignore = true)
+    @Mapping(target = "completedAt", ignore = true)
+    public abstract EmailCampaign toEntity(EmailCampaignDTO dto);
+
+    protected Long toEpochMillis(DateTime time) {
+        return (time == null) ? null : time.getMillis();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.data.dto.mapper;
+
+import com.cfitzarl.cfjwed.data.dao.InvitationDao;
+import com.cfitzarl.cfjwed.data.dto.InvitationDTO;
+import com.cfitzarl.cfjwed.data.model.Invitation;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.NullValueCheckStrategy;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Bi-directional conversions between an {@link Invitation} and an {@link InvitationDTO}.
+ */
+@Mapper(config = MappingConfiguration.class, nullValueCheckStrategy = NullValueCheckStrategy.ALWAYS)
+public abstract class InvitationMapper {
+
+    @Autowired
+    private InvitationDao invitationDao;
+
+    /**
+     * Converts an invitation into its DTO, counting its attendants as the guests.
+     *
+     * @param invitation the invitation
+     * @return the DTO
+     */
+    @Mapping(target = "guestCount", expression = "java(invitation.getAttendants().size())")
+    public abstract InvitationDTO toDto(Invitation invitation);
+
+    /**
+     * Applies a DTO to the invitation it identifies, or to a new invitation if it identifies none. An absent name or
+     * address leaves the current one untouched.
+     *
+     * @param dto the DTO
+     * @return the updated invitation
+     */
+    public Invitation toEntity(InvitationDTO dto) {
+        Invitation invitation = null;
+
+        if (dto.getId() != null) {
+            invitation = invitationDao.findOne(dto.getId());
+        }
+
+        if (invitation == null) {
+            invitation = new Invitation();
+        }
+
+        update(dto, invitation);
+
+        return invitation;
+    }
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "lastUpdated", ignore = true)
+    @Mapping(target = "account", ignore = true)
+    @Mapping(target = "attendants", ignore = true)
+    @Mapping(target = "lastReminded", ignore = true)
+    @Mapping(target = "code", ignore = true)
+    protected abstract void update(InvitationDTO dto, @MappingTarget Invitation invitation);
+}
@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.data.dto.mapper;
+
+import com.cfitzarl.cfjwed.data.dao.MealOptionDao;
+import com.cfitzarl.cfjwed.data.dto.MealOptionDTO;
+import com.cfitzarl.cfjwed.data.model.MealOption;
+import com.cfitzarl.cfjwed.exception.ResourceNotFoundException;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Bi-directional conversions between a {@link MealOption} and a {@link MealOptionDTO}.
+ */
+@Mapper(config = MappingConfiguration.class)
+public abstract class MealOptionMapper {
+
+    @Autowired
+    private MealOptionDao mealOptionDao;
+
+    /**
+     * Converts a meal option into its DTO.
+     *
+     * @param option the meal option
+     * @return the DTO
+     */
+    public abstract MealOptionDTO toDto(MealOption option);
+
+    /**
+     * Applies a DTO to the meal option it identifies, or to a new meal option if it has no ID.
+     *
+     * @param dto the DTO
+     * @return the updated meal option
+     * @throws ResourceNotFoundException if the DTO has an ID that matches no meal option
+     */
+    public MealOption toEntity(MealOptionDTO dto) {
+        MealOption option = new MealOption();
+
+        if (dto.getId() != null) {
+            // The service hands out shared read-only copies, so updates start from a managed instance
+            option = mealOptionDao.findOne(dto.getId());
+
+            if (option == null) {
+                throw new ResourceNotFoundException("Meal option with id %s not found", dto.getId());
+            }
+        }
+
+        update(dto, option);
+
+        return option;
+    }
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "lastUpdated", ignore = true)
+    protected abstract void update(MealOptionDTO dto, @MappingTarget MealOption option);
+}
@@ -26,7 +26,6 @@ package com.cfitzarl.cfjwed.data.model;
 
 import com.cfitzarl.cfjwed.data.enums.AccountType;
 import lombok.Data;
-import org.springframework.security.crypto.bcrypt.BCrypt;
 
 import javax.persistence.*;
 
@@ -47,6 +46,7 @@ public class Account extends AbstractIdBase {
     @Column
     private String email;
 
+    /** The BCrypt hash of the password, as produced by the PasswordHashingService. */
     @Column
     private String password;
 
@@ -59,8 +59,4 @@ public class Account extends AbstractIdBase {
 
     @Transient
     private String invitationCode;
-
-    public void setPassword(String clearText) {
-        password = BCrypt.hashpw(clearText, BCrypt.gensalt());
-    }
 }
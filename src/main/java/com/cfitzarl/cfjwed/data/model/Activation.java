@@ -29,19 +29,26 @@ import org.apache.commons.lang3.RandomStringUtils;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.Index;
 import javax.persistence.JoinColumn;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.OneToOne;
 import javax.persistence.Table;
 
 @Data
 @Entity
+@NamedEntityGraph(name = Activation.WITH_ACCOUNT, attributeNodes = @NamedAttributeNode("account"))
 @Table(name = "activations", indexes = {
         @Index(columnList = "id", name = "activation_id_hindex"),
         @Index(columnList = "token", name = "activation_token_hindex")
 })
 public class Activation extends AbstractIdBase {
 
+    /** Loads the activation together with its account. */
+    public static final String WITH_ACCOUNT = "Activation.withAccount";
+
     public Activation() {
         token = RandomStringUtils.randomAlphanumeric(32);
     }
@@ -49,7 +56,7 @@ public class Activation extends AbstractIdBase {
     @Column
     private String token;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account")
     private Account account;
 }
@@ -26,6 +26,7 @@ package com.cfitzarl.cfjwed.data.model;
 
 import com.cfitzarl.cfjwed.data.enums.ResponseStatus;
 import lombok.Data;
+import org.hibernate.annotations.Type;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -35,27 +36,77 @@ import javax.persistence.FetchType;
 import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.PostLoad;
 import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.util.UUID;
 
 @Data
 @Entity
+@NamedEntityGraph(name = Attendant.WITH_INVITATION_AND_MEAL, attributeNodes = {
+        @NamedAttributeNode("invitation"),
+        @NamedAttributeNode("meal")
+})
 @Table(name = "attendants", indexes = {
-        @Index(columnList = "id")
+        @Index(columnList = "id"),
+        @Index(columnList = "response_status,dining_option", name = "attendant_status_meal_index"),
+        @Index(columnList = "dining_option,response_status", name = "attendant_meal_status_index"),
+        @Index(columnList = "response_status,invitation", name = "attendant_status_invitation_index")
 })
 public class Attendant extends AbstractIdBase {
 
+    /** Loads the attendant together with its invitation and meal. */
+    public static final String WITH_INVITATION_AND_MEAL = "Attendant.withInvitationAndMeal";
+
     @Column
     private String name;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "dining_option")
     private MealOption meal;
 
     @Enumerated(EnumType.STRING)
-    @Column(name = "response_status")
+    @Column(name = "response_status", length = 16)
     private ResponseStatus responseStatus = ResponseStatus.PENDING;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "invitation")
     private Invitation invitation;
+
+    /** The ID of the meal as stored, which unlike {@link #meal} can be read without loading the meal. */
+    @Type(type = "uuid-char")
+    @Column(name = "dining_option", insertable = false, updatable = false)
+    private UUID mealId;
+
+    /** The response status as last persisted, used to work out how a save changes the RSVP statistics. */
+    @Transient
+    private ResponseStatus persistedResponseStatus;
+
+    /** The meal ID as last persisted, used to work out how a save changes the RSVP statistics. */
+    @Transient
+    private UUID persistedMealId;
+
+    @PostLoad
+    void handlePostLoad() {
+        persistedResponseStatus = responseStatus;
+        persistedMealId = mealId;
+    }
+
+    /**
+     * Returns the ID of the chosen meal, if any.
+     */
+    public UUID getChosenMealId() {
+        return (meal != null) ? meal.getId() : null;
+    }
+
+    /**
+     * Records that the RSVP statistics now reflect this attendant as it currently is. This must happen once a change
+     * to it has been counted, so that saving it again does not count the same change twice.
+     */
+    public void rememberPersistedState() {
+        persistedResponseStatus = responseStatus;
+        persistedMealId = getChosenMealId();
+    }
 }
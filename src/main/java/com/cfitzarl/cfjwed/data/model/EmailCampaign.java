@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.data.model;
+
+import com.cfitzarl.cfjwed.data.enums.CampaignAudience;
+import com.cfitzarl.cfjwed.data.enums.CampaignStatus;
+import lombok.Data;
+import org.hibernate.annotations.Type;
+import org.joda.time.DateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.util.UUID;
+
+/**
+ * An email sent by an admin to a set of invitations. A campaign walks its recipients in order of invitation ID and
+ * queues their emails in the outbox a page at a time, recording how far it got with each page, so that whichever node
+ * picks it up after a restart carries on where it stopped. Progress is maintained by the database.
+ */
+@Data
+@Entity
+@Table(name = "email_campaigns", indexes = {
+        @Index(columnList = "status", name = "email_campaign_status_index")
+})
+public class EmailCampaign extends AbstractIdBase {
+
+    @Column
+    private String subject;
+
+    @Column
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, updatable = false)
+    private CampaignAudience audience = CampaignAudience.ALL;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, updatable = false)
+    private CampaignStatus status = CampaignStatus.RUNNING;
+
+    /** The number of recipients the campaign had when it started. */
+    @Column(updatable = false)
+    private int recipients;
+
+    /** The number of emails queued in the outbox so far. */
+    @Column(insertable = false, updatable = false)
+    private int queued;
+
+    /** The number of recipients skipped because their email could not be rendered. */
+    @Column(insertable = false, updatable = false)
+    private int skipped;
+
+    /** The last invitation whose email was queued, after which the campaign resumes. */
+    @Column(name = "last_invitation", insertable = false, updatable = false)
+    @Type(type = "uuid-char")
+    private UUID lastInvitation;
+
+    /** The claim of the node currently running the campaign. */
+    @Column(name = "lease_owner", insertable = false, updatable = false)
+    private String leaseOwner;
+
+    @Column(name = "started_at", insertable = false, updatable = false)
+    @Type(type = "org.jadira.usertype.dateandtime.joda.PersistentDateTime")
+    private DateTime startedAt;
+
+    @Column(name = "completed_at", insertable = false, updatable = false)
+    @Type(type = "org.jadira.usertype.dateandtime.joda.PersistentDateTime")
+    private DateTime completedAt;
+}
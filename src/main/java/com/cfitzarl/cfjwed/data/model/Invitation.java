@@ -25,6 +25,8 @@
 package com.cfitzarl.cfjwed.data.model;
 
 import lombok.Data;
+import org.hibernate.annotations.Type;
+import org.joda.time.DateTime;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -34,31 +36,43 @@ import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.Index;
 import javax.persistence.JoinColumn;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.persistence.Table;
 
 @Data
 @Entity
+@NamedEntityGraph(name = Invitation.WITH_ACCOUNT, attributeNodes = @NamedAttributeNode("account"))
 @Table(name = "invitations", indexes = {
         @Index(columnList = "id"),
-        @Index(columnList = "code")
+        @Index(columnList = "code"),
+        @Index(columnList = "name,id", name = "invitation_name_id_index")
 })
 public class Invitation extends AbstractIdBase {
 
+    /** Loads the invitation together with its account. */
+    public static final String WITH_ACCOUNT = "Invitation.withAccount";
+
     @Column
     String name;
 
     @Column
     private String address;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account")
     private Account account;
 
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "invitation")
+    @OneToMany(mappedBy = "invitation")
     private List<Attendant> attendants = new ArrayList<>();
 
     @Column
     private String code;
+
+    /** When the invitee was last reminded to respond, which is only ever set in bulk by the reminder job. */
+    @Column(name = "last_reminded", insertable = false, updatable = false)
+    @Type(type = "org.jadira.usertype.dateandtime.joda.PersistentDateTime")
+    private DateTime lastReminded;
 }
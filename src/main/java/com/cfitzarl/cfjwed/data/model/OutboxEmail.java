@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.data.model;
+
+import com.cfitzarl.cfjwed.data.enums.OutboxStatus;
+import lombok.Data;
+import org.hibernate.annotations.Type;
+import org.joda.time.DateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.util.UUID;
+
+/**
+ * A rendered email waiting in the outbox. It is written in the same transaction as whatever caused it to be sent, and
+ * delivered afterwards by the outbox dispatcher. Timestamps are managed by the database, whose clock all nodes share.
+ */
+@Data
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(columnList = "status,next_attempt_at", name = "email_outbox_due_index"),
+        @Index(columnList = "lease_owner", name = "email_outbox_lease_index"),
+        @Index(columnList = "campaign,status", name = "email_outbox_campaign_index")
+})
+public class OutboxEmail extends AbstractIdBase {
+
+    @Column
+    private String recipient;
+
+    @Column
+    private String sender;
+
+    @Column
+    private String subject;
+
+    @Column(name = "text_body")
+    private String textBody;
+
+    @Column(name = "html_body")
+    private String htmlBody;
+
+    /** The campaign the email was sent for, if any. */
+    @Column(updatable = false)
+    @Type(type = "uuid-char")
+    private UUID campaign;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    /** The number of failed delivery attempts so far. */
+    @Column
+    private int attempts;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    /** The claim that currently holds the email, which is only set while a dispatcher is delivering it. */
+    @Column(name = "lease_owner", insertable = false, updatable = false)
+    private String leaseOwner;
+
+    @Column(name = "next_attempt_at", insertable = false, updatable = false)
+    @Type(type = "org.jadira.usertype.dateandtime.joda.PersistentDateTime")
+    private DateTime nextAttemptAt;
+
+    @Column(name = "sent_at", insertable = false, updatable = false)
+    @Type(type = "org.jadira.usertype.dateandtime.joda.PersistentDateTime")
+    private DateTime sentAt;
+}
@@ -26,6 +26,7 @@ package com.cfitzarl.cfjwed.service;
 
 import com.cfitzarl.cfjwed.data.enums.AccountType;
 import com.cfitzarl.cfjwed.data.model.Account;
+import com.cfitzarl.cfjwed.data.projection.LoginProjection;
 
 import java.util.List;
 import java.util.UUID;
@@ -67,13 +68,22 @@ public interface AccountService {
     Account findByEmail(String email);
 
     /**
-     * Returns whether or not the has produced from the provided creds match that of the provided account.
+     * Returns the data needed to log an account in by its email.
      *
-     * @param account the account to check
+     * @param email the email of the account
+     * @return the login data
+     */
+    LoginProjection findLoginByEmail(String email);
+
+    /**
+     * Returns whether or not the has produced from the provided creds match that of the provided account. When they
+     * match but the stored hash uses an outdated cost factor, the password is hashed again and saved.
+     *
+     * @param login the login data of the account to check
      * @param creds the creds to match against
      * @return whether the creds are valid
      */
-    boolean hasValidCreds(Account account, String creds);
+    boolean hasValidCreds(LoginProjection login, String creds);
 
     /**
      * Saves an account.
@@ -24,25 +24,19 @@
 
 package com.cfitzarl.cfjwed.service;
 
-import com.cfitzarl.cfjwed.data.enums.ResponseStatus;
 import com.cfitzarl.cfjwed.data.model.Attendant;
+import com.cfitzarl.cfjwed.data.projection.AttendantExportRow;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * This provides functionality relating to attendants.
  */
 public interface AttendantService {
 
-    /**
-     * Returns the number of {@link Attendant}s with the specified {@link ResponseStatus}.
-     *
-     * @param status the status to filter by
-     * @return the count
-     */
-    long countByStatus(ResponseStatus status);
-
     /**
      * This deletes an attendant by its primary key.
      *
@@ -51,11 +45,12 @@ public interface AttendantService {
     void delete(UUID id);
 
     /**
-     * This returns all attendants.
+     * This streams the export data of all attendants, ordered by the name of their invitation, without holding more
+     * than a handful of them in memory at once.
      *
-     * @return a list of all attendants
+     * @param consumer receives each attendant's row
      */
-    List<Attendant> find();
+    void export(Consumer<AttendantExportRow> consumer);
 
     /**
      * This returns a list of all attendants belonging to a specific invitation.
@@ -79,4 +74,12 @@ public interface AttendantService {
      * @param attendant the attendant to save
      */
     void save(Attendant attendant);
+
+    /**
+     * This saves several attendants in a single transaction, so that their statements are sent to the database in
+     * JDBC batches and committed together.
+     *
+     * @param attendants the attendants to save
+     */
+    void saveAll(Collection<Attendant> attendants);
 }
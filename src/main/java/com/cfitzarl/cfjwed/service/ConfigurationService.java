@@ -35,14 +35,14 @@ import java.util.List;
 public interface ConfigurationService {
 
     /**
-     * Returns all persisted {@link Config}s.
+     * Returns all persisted {@link Config}s. These are shared, read-only copies.
      *
      * @return all configs
      */
     List<Config> find();
 
     /**
-     * This returns a {@link Config} by its {@link ConfigKey}.
+     * This returns a {@link Config} by its {@link ConfigKey}. The config is a shared, read-only copy.
      *
      * @param configKey the key
      * @return the config
@@ -57,4 +57,11 @@ public interface ConfigurationService {
      */
     Config save(Config config);
 
+    /**
+     * Queries the database directly, bypassing the in-memory copies, to confirm that it is reachable.
+     *
+     * @return whether any configuration is stored
+     */
+    boolean ping();
+
 }
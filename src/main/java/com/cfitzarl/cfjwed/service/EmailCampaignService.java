@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service;
+
+import com.cfitzarl.cfjwed.data.model.EmailCampaign;
+import com.cfitzarl.cfjwed.data.model.OutboxEmail;
+import com.cfitzarl.cfjwed.data.projection.InvitationRecipient;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This manages {@link EmailCampaign}s. Starting a campaign only records it; its emails are rendered and queued in the
+ * outbox in the background by whichever node leases it, which reports each page of progress back through this service
+ * while it holds the lease.
+ */
+public interface EmailCampaignService {
+
+    /**
+     * Starts a campaign, counting the recipients it will be sent to.
+     *
+     * @param campaign the campaign, with its subject, message and audience
+     * @return the started campaign
+     */
+    EmailCampaign start(EmailCampaign campaign);
+
+    /**
+     * Returns every campaign, the most recently started first.
+     *
+     * @return the campaigns
+     */
+    List<EmailCampaign> find();
+
+    /**
+     * Returns a campaign by its ID.
+     *
+     * @param id the ID
+     * @return the campaign if it exists
+     */
+    EmailCampaign find(UUID id);
+
+    /**
+     * Stops a running campaign. Emails that were already queued are still sent.
+     *
+     * @param campaign the campaign
+     */
+    void cancel(EmailCampaign campaign);
+
+    /**
+     * Leases a running campaign that no node holds to the caller, who must keep the lease alive while running it.
+     *
+     * @return the campaign, or null if there is none to run
+     */
+    EmailCampaign claim();
+
+    /**
+     * Returns the next page of a campaign's recipients.
+     *
+     * @param campaign the campaign
+     * @param after the ID of the last invitation handled, or null to start from the beginning
+     * @param limit the most recipients to return
+     * @return the recipients, in order of invitation ID
+     */
+    List<InvitationRecipient> findRecipients(EmailCampaign campaign, UUID after, int limit);
+
+    /**
+     * Adds a page of a campaign's emails to the outbox and records the campaign's progress, in one transaction.
+     * Nothing is added unless the caller still holds the campaign's lease and the campaign is still running.
+     *
+     * @param campaign the leased campaign
+     * @param lastInvitation the ID of the last invitation in the page
+     * @param emails the rendered emails
+     * @param skipped the number of recipients in the page whose email could not be rendered
+     * @return whether the emails were added
+     */
+    boolean enqueue(EmailCampaign campaign, UUID lastInvitation, List<OutboxEmail> emails, int skipped);
+
+    /**
+     * Extends the caller's lease on a campaign.
+     *
+     * @param campaign the leased campaign
+     * @return whether the lease was extended, which it is not if it was lost or the campaign has ended
+     */
+    boolean renew(EmailCampaign campaign);
+
+    /**
+     * Marks a campaign as completed once all its emails have been queued.
+     *
+     * @param campaign the leased campaign
+     */
+    void complete(EmailCampaign campaign);
+
+    /**
+     * Gives up the caller's lease on a campaign, so that another node can carry on with it straight away.
+     *
+     * @param campaign the leased campaign
+     */
+    void release(EmailCampaign campaign);
+}
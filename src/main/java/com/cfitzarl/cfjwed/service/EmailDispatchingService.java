@@ -24,12 +24,10 @@
 
 package com.cfitzarl.cfjwed.service;
 
+import com.cfitzarl.cfjwed.data.model.OutboxEmail;
 import org.apache.velocity.app.VelocityEngine;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-import javax.mail.internet.MimeMessage;
 import java.util.Map;
 
 /**
@@ -40,9 +38,10 @@ public interface EmailDispatchingService {
 
     /**
      * Accepts an email address, a template name, and a {@link Map} of attributes and translates them into an email that
-     * is queued up and pushed onto a {@link ThreadPoolTaskExecutor} using the {@link MailRunner}. The template name is
-     * relative to the "email-templates" folder and excludes the type specification (text, html). The attributes map is
-     * provided to the {@link VelocityEngine} in order to parse the content of the requested template.
+     * is written to the outbox as part of the current transaction, so it is only sent if that transaction commits and
+     * is retried until delivered if the mail server is unavailable. The template name is relative to the
+     * "email-templates" folder and excludes the type specification (text, html). The attributes map is provided to the
+     * {@link VelocityEngine} in order to parse the content of the requested template.
      *
      * @param to the address in which the email is sent
      * @param template the name of the template
@@ -51,21 +50,15 @@ public interface EmailDispatchingService {
     void send(String to, String subject, String template, Map<String, Object> attrs);
 
     /**
-     * Runnable that takes a {@link MimeMessage} and sends it out using the {@link JavaMailSender}.
+     * Renders an email the same way as {@link #send(String, String, String, Map)}, but returns it for the caller to
+     * add to the outbox rather than adding it. This is safe to call from several threads at once.
+     *
+     * @param to the address in which the email is sent
+     * @param subject the subject of the email
+     * @param template the name of the template
+     * @param attrs the attributes provides to the template
+     * @return the rendered email
      */
-    class MailRunner implements Runnable {
-
-        private MimeMessage mimeMessage;
-        private JavaMailSender javaMailSender;
-
-        public MailRunner(MimeMessage mimeMessage, JavaMailSender sender) {
-            this.mimeMessage = mimeMessage;
-            this.javaMailSender = sender;
-        }
+    OutboxEmail compose(String to, String subject, String template, Map<String, Object> attrs);
 
-        @Override
-        public void run() {
-            javaMailSender.send(mimeMessage);
-        }
-    }
 }
@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service;
+
+import com.cfitzarl.cfjwed.data.enums.OutboxStatus;
+import com.cfitzarl.cfjwed.data.model.OutboxEmail;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * This manages the durable outbox that emails pass through on their way to the mail server. Emails are written to the
+ * outbox in the caller's transaction, so they are sent if and only if it commits, and survive restarts until they are
+ * delivered.
+ */
+public interface EmailOutboxService {
+
+    /**
+     * Adds an email to the outbox. This joins the caller's transaction if there is one.
+     *
+     * @param email the rendered email
+     */
+    void enqueue(OutboxEmail email);
+
+    /**
+     * Returns the number of emails waiting to be delivered, including those waiting to be retried.
+     *
+     * @return the number of pending emails
+     */
+    long countPending();
+
+    /**
+     * Returns the number of emails sent for a campaign, by status.
+     *
+     * @param campaign the ID of the campaign
+     * @return the counts, including zero counts
+     */
+    Map<OutboxStatus, Long> countByCampaign(UUID campaign);
+
+    /**
+     * Leases a batch of due emails to the caller, who must then report each one as sent or failed. Emails whose lease
+     * runs out before that become due again. The emails of a batch share the lease owner they were claimed with.
+     *
+     * @param limit the most emails to claim
+     * @return the claimed emails, which may be none
+     */
+    List<OutboxEmail> claim(int limit);
+
+    /**
+     * Extends the lease of a claimed batch for as long as a fresh claim, for those of its emails that have not yet been
+     * reported as sent or failed.
+     *
+     * @param owner the lease owner of the batch
+     * @return the number of emails still leased to the batch
+     */
+    int renew(String owner);
+
+    /**
+     * Records that an email was delivered, provided it is still leased to the claim it was sent under.
+     *
+     * @param email the claimed email
+     * @return whether the email was still leased
+     */
+    boolean markSent(OutboxEmail email);
+
+    /**
+     * Records that delivering an email failed. The email is retried with exponential backoff until it runs out of
+     * attempts, after which it is left in the outbox as failed.
+     *
+     * @param email the claimed email
+     * @param error a description of the failure
+     * @return whether the email was still leased
+     */
+    boolean markFailed(OutboxEmail email, String error);
+}
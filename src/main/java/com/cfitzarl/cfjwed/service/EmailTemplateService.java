@@ -0,0 +1,59 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service;
+
+import org.apache.velocity.app.VelocityEngine;
+
+import java.util.Map;
+
+/**
+ * This renders the email templates in the "email-templates" folder with the {@link VelocityEngine}. Templates are
+ * parsed once, and the values that are the same for every recipient (the event title, its URL and the localized
+ * messages built from them) are resolved once per locale and configuration change rather than once per email.
+ *
+ * <p>Besides the given attributes, every template can reference {@code $title}, {@code $url}, {@code $localeSource}
+ * for localized messages and {@code $fragments.message(code)} for a localized message that is formatted with the title
+ * and URL as its arguments.</p>
+ */
+public interface EmailTemplateService {
+
+    /**
+     * Renders the HTML version of a template.
+     *
+     * @param template the name of the template, excluding the type specification (text, html)
+     * @param attrs the recipient specific attributes provided to the template
+     * @return the rendered template
+     */
+    String renderHtml(String template, Map<String, Object> attrs);
+
+    /**
+     * Renders the plain text version of a template.
+     *
+     * @param template the name of the template, excluding the type specification (text, html)
+     * @param attrs the recipient specific attributes provided to the template
+     * @return the rendered template
+     */
+    String renderText(String template, Map<String, Object> attrs);
+}
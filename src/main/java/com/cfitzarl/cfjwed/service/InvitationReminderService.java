@@ -24,51 +24,104 @@
 
 package com.cfitzarl.cfjwed.service;
 
-import com.cfitzarl.cfjwed.data.enums.ResponseStatus;
-import com.cfitzarl.cfjwed.data.model.Attendant;
-import com.cfitzarl.cfjwed.data.model.Invitation;
+import com.cfitzarl.cfjwed.core.scheduling.JobCoordinator;
+import com.cfitzarl.cfjwed.core.scheduling.JobPartition;
+import com.cfitzarl.cfjwed.data.enums.ConfigKey;
+import com.cfitzarl.cfjwed.data.model.OutboxEmail;
+import com.cfitzarl.cfjwed.data.projection.InvitationRecipient;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.function.Predicate;
+import java.util.Map;
+import java.util.UUID;
 
 /**
- * This is responsible for sending reminder emails to invitees who have not yet responded.
+ * This is responsible for sending reminder emails to invitees who have not yet responded. Invitations to remind are
+ * read a page at a time in order of ID, and each page's reminders are queued in the outbox in the same transaction
+ * that records them as reminded, so an invitation is reminded at most once per interval even if the job is stopped
+ * part way through. No transaction or persistence context is held across pages. The invitations are split between
+ * the live nodes by ranges of their IDs, and each range is reminded by only one of them.
  */
 @Component
 public class InvitationReminderService {
 
+    private static final String JOB = "invitation-reminders";
+
+    private static final String TEMPLATE = "reminder";
+
+    @Autowired
+    private ConfigurationService configurationService;
+
+    @Autowired
+    private EmailDispatchingService emailDispatchingService;
+
     @Autowired
     private InvitationService invitationService;
 
+    @Autowired
+    private JobCoordinator jobCoordinator;
+
+    @Autowired
+    private LocalizationService localizationService;
+
+    /** The number of days to wait before reminding an invitation again. */
     @Value("${reminder.interval}")
     private int timeInterval = 5;
 
+    @Value("${reminder.page.size}")
+    private int pageSize = 200;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(InvitationReminderService.class);
 
-    @Transactional
     @Scheduled(cron = "0 0 15 1/1 * ?")
     public void sendReminderEmails() {
         LOGGER.info("Running email reminder job");
 
-        for (Invitation invitation : invitationService.findUnresponded()) {
-            List<Attendant> attendants = invitation.getAttendants();
+        jobCoordinator.runPartitioned(JOB, this::sendReminderEmails);
+    }
+
+    private void sendReminderEmails(JobPartition partition) {
+        DateTime now = new DateTime(DateTimeZone.UTC);
+        DateTime cutoff = now.minusDays(timeInterval);
+        String title = configurationService.findByKey(ConfigKey.TITLE).getValue();
+        String subject = localizationService.getMessage("email.reminder.subject", Collections.singletonList(title));
+
+        List<InvitationRecipient> page;
+        UUID after = partition.getLowerBound();
+        int reminded = 0;
+
+        do {
+            page = invitationService.findReminderRecipients(after, partition.getUpperBound(), cutoff, pageSize);
 
-            if (attendants == null) { continue; }
+            List<UUID> ids = new ArrayList<>(page.size());
+            List<OutboxEmail> reminders = new ArrayList<>(page.size());
 
-            if (attendants.stream().filter(hasNotResponded()).count() > 0) {
+            for (InvitationRecipient recipient : page) {
+                Map<String, Object> attrs = new HashMap<>();
+                attrs.put("name", recipient.getFirstName());
 
+                ids.add(recipient.getInvitationId());
+                reminders.add(emailDispatchingService.compose(recipient.getEmail(), subject, TEMPLATE, attrs));
             }
-        }
-    }
 
-    private static Predicate<Attendant> hasNotResponded() {
-        return attendant -> attendant.getResponseStatus() == ResponseStatus.PENDING;
+            invitationService.markReminded(ids, now, reminders);
+            reminded += ids.size();
+
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getInvitationId();
+            }
+        } while (page.size() == pageSize);
+
+        LOGGER.info("Queued reminders for {} invitations in partition {}", reminded, partition);
     }
 }
@@ -24,10 +24,16 @@
 
 package com.cfitzarl.cfjwed.service;
 
+import com.cfitzarl.cfjwed.data.dto.KeysetCursor;
 import com.cfitzarl.cfjwed.data.model.Account;
 import com.cfitzarl.cfjwed.data.model.Invitation;
+import com.cfitzarl.cfjwed.data.model.OutboxEmail;
+import com.cfitzarl.cfjwed.data.projection.InvitationRecipient;
+import org.joda.time.DateTime;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -58,6 +64,14 @@ public interface InvitationService {
      */
     Invitation find(UUID id);
 
+    /**
+     * Returns an {@link Invitation} with everything needed to display it, namely its account and attendants.
+     *
+     * @param id the id of the invitation
+     * @return the invitation if it exists
+     */
+    Invitation findDetail(UUID id);
+
     /**
      * Returns an invitation for a particular {@link Account}.
      *
@@ -74,10 +88,37 @@ public interface InvitationService {
     Page<Invitation> find(Integer page, Integer limit);
 
     /**
-     * This returns a list of all {@link Invitation}s where the invitee has not yet responded.
-     * @return
+     * This returns a slice of {@link Invitation}s in order of name and ID, starting after a cursor. Unlike
+     * {@link #find(Integer, Integer)} this costs the same no matter how deep into the list the cursor is.
+     *
+     * @param after the position to continue from, or null to start at the beginning
+     * @param limit the maximum number of invitations
+     * @return the invitations, and whether more follow
+     */
+    Slice<Invitation> findAfter(KeysetCursor after, int limit);
+
+    /**
+     * This returns the next page of {@link Invitation}s to remind: those with attendants who have not yet responded, an
+     * invitee with an account to email, and no reminder since a cutoff. Only invitations that still wait on a response
+     * are read, so this stays cheap as guests answer.
+     *
+     * @param after the ID of the last invitation handled, or the lower bound of the range to search
+     * @param before the upper bound of the range to search, which is left out
+     * @param cutoff invitations reminded at or after this time are left out
+     * @param limit the maximum number of invitations
+     * @return the invitations to remind, in order of ID
+     */
+    List<InvitationRecipient> findReminderRecipients(UUID after, UUID before, DateTime cutoff, int limit);
+
+    /**
+     * This records that {@link Invitation}s were reminded at a time, and adds their reminder emails to the outbox in
+     * the same transaction.
+     *
+     * @param ids the IDs of the invitations
+     * @param remindedAt the time of the reminder
+     * @param reminders the reminder emails
      */
-    List<Invitation> findUnresponded();
+    void markReminded(Collection<UUID> ids, DateTime remindedAt, Collection<OutboxEmail> reminders);
 
     /**
      * Returns whether or not an {@link Invitation} exists with the provided code.
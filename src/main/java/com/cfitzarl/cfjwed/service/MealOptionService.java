@@ -25,7 +25,6 @@
 package com.cfitzarl.cfjwed.service;
 
 import com.cfitzarl.cfjwed.data.model.MealOption;
-import org.apache.commons.lang3.tuple.Pair;
 
 import java.util.List;
 import java.util.UUID;
@@ -43,28 +42,20 @@ public interface MealOptionService {
     void delete(UUID id);
 
     /**
-     * This returns all {@link MealOption} data.
+     * This returns all {@link MealOption} data. The meals are shared, read-only copies.
      *
      * @return a list of meals
      */
     List<MealOption> find();
 
     /**
-     * This returns a {@link MealOption} from its primary key.
+     * This returns a {@link MealOption} from its primary key. The meal is a shared, read-only copy.
      *
      * @param id the primary key
      * @return the meal
      */
     MealOption find(UUID id);
 
-    /**
-     * This returns the total count of {@link com.cfitzarl.cfjwed.data.model.Attendant}s that have chosen each
-     * available {@link MealOption}.
-     *
-     * @return the total count
-     */
-    List<Pair<MealOption, Long>> getChosenMealCount();
-
     /**
      * This saves a {@link MealOption}.
      *
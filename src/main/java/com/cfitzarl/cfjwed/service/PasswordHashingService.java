@@ -0,0 +1,58 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service;
+
+/**
+ * This is the single code path for hashing and checking passwords. BCrypt is deliberately slow, so all of the work is
+ * handed to a dedicated, bounded executor rather than run on request threads; when that executor is saturated, calls
+ * fail fast instead of piling up.
+ */
+public interface PasswordHashingService {
+
+    /**
+     * Hashes a password with the configured cost factor.
+     *
+     * @param clearText the password
+     * @return the hash
+     */
+    String hash(String clearText);
+
+    /**
+     * Returns whether a password matches a hash.
+     *
+     * @param clearText the password
+     * @param hash the hash to check against
+     * @return whether the password matches
+     */
+    boolean matches(String clearText, String hash);
+
+    /**
+     * Returns whether a hash was produced with a cost factor other than the configured one.
+     *
+     * @param hash the hash
+     * @return whether the password should be hashed again
+     */
+    boolean needsRehash(String hash);
+}
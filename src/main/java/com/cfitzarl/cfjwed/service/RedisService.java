@@ -24,11 +24,59 @@
 
 package com.cfitzarl.cfjwed.service;
 
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
 /**
  * This is an abstraction layer on top of Jedis to make interactions easier.
  */
 public interface RedisService {
 
+    /** Keyspace notification channel that publishes the name of every deleted key. */
+    String DELETED_KEYS_CHANNEL = "__keyevent@0__:del";
+
+    /** Keyspace notification channel that publishes the name of every expired key. */
+    String EXPIRED_KEYS_CHANNEL = "__keyevent@0__:expired";
+
+    /** Keyspace notification channel that publishes the name of every key evicted under memory pressure. */
+    String EVICTED_KEYS_CHANNEL = "__keyevent@0__:evicted";
+
+    /**
+     * Adds a member to a sorted set, or updates its score if it is already present.
+     *
+     * @param key the key of the sorted set
+     * @param score the score of the member
+     * @param member the member to add
+     */
+    void addToSortedSet(String key, double score, String member);
+
+    /**
+     * Queues several commands and sends them to Redis in a single round-trip over one connection. The results are
+     * returned in the order the commands were queued.
+     *
+     * @param commands a callback that queues commands onto the provided {@link Batch}
+     * @return the result of each queued command
+     */
+    List<Object> batch(Consumer<Batch> commands);
+
+    /**
+     * Removes an entry by its key. Nothing happens if it does not exist.
+     *
+     * @param key the key to remove
+     */
+    void delete(String key);
+
+    /**
+     * Removes an entry by its key, but only if it holds the given value. The comparison and removal happen atomically,
+     * so a lease can be released by its owner without removing one that has since been taken by another.
+     *
+     * @param key the key to remove
+     * @param value the value the entry must hold
+     * @return whether the entry was removed
+     */
+    boolean deleteIfEqual(String key, String value);
+
     /**
      * Returns whether the given key exists.
      *
@@ -45,6 +93,16 @@ public interface RedisService {
      */
     void expire(String key, int expiration);
 
+    /**
+     * Updates the TTL on an entry, but only if it holds the given value. The comparison and update happen atomically.
+     *
+     * @param key the key of the entry
+     * @param value the value the entry must hold
+     * @param expiration the TTL in seconds
+     * @return whether the TTL was updated
+     */
+    boolean expireIfEqual(String key, String value, int expiration);
+
     /**
      * Returns the value of an entry by its key.
      *
@@ -53,6 +111,61 @@ public interface RedisService {
      */
     String get(String key);
 
+    /**
+     * Returns the raw bytes of an entry by its key. Where reads go to a replica, a miss is retried against the primary,
+     * so an entry can be read as soon as it has been written, as a session must be right after login.
+     *
+     * @param key the key to lookup
+     * @return the value of the entry
+     */
+    byte[] getBytes(String key);
+
+    /**
+     * Returns the raw bytes of an entry by its key and, if it exists, resets its TTL. Both happen atomically in a
+     * single round-trip.
+     *
+     * @param key the key to lookup
+     * @param expiration the new TTL in seconds
+     * @return the value of the entry
+     */
+    byte[] getAndExpire(String key, int expiration);
+
+    /**
+     * Adds one to a counter, creating it with the given TTL if it does not exist. The TTL of an existing counter is
+     * left alone, so a counter created for a window of time disappears once the window has passed.
+     *
+     * @param key the key of the counter
+     * @param expiration the TTL in seconds of a new counter
+     * @return the value of the counter after the increment
+     */
+    long increment(String key, int expiration);
+
+    /**
+     * Returns whether the store is reachable and responding.
+     *
+     * @return whether the store is healthy
+     */
+    boolean ping();
+
+    /**
+     * Returns the members of a sorted set whose score falls within the given range, inclusive.
+     *
+     * @param key the key of the sorted set
+     * @param minScore the lowest score to include
+     * @param maxScore the highest score to include
+     * @return the matching members
+     */
+    Set<String> getSortedSetRange(String key, double minScore, double maxScore);
+
+    /**
+     * Removes the members of a sorted set whose score falls within the given range, inclusive.
+     *
+     * @param key the key of the sorted set
+     * @param minScore the lowest score to remove
+     * @param maxScore the highest score to remove
+     */
+    void removeSortedSetRange(String key, double minScore, double maxScore);
+
     /**
      * Sets a key-value pair. It will overwrite existing records.
      *
@@ -60,4 +173,74 @@ public interface RedisService {
      * @param value the value to use
      */
     void set(String key, String value);
+
+    /**
+     * Sets a key to a binary value along with its TTL in a single command. It will overwrite existing records.
+     *
+     * @param key the key to use
+     * @param value the value to use
+     * @param expiration the TTL in seconds
+     */
+    void set(String key, byte[] value, int expiration);
+
+    /**
+     * Sets a key to a value along with its TTL, but only if the key does not exist. Only one of several concurrent
+     * callers can succeed, which makes this suitable for taking a lease.
+     *
+     * @param key the key to use
+     * @param value the value to use
+     * @param expiration the TTL in seconds
+     * @return whether the key was set
+     */
+    boolean setIfAbsent(String key, String value, int expiration);
+
+    /**
+     * Publishes a message to a channel, reaching every subscriber on every node.
+     *
+     * @param channel the channel to publish to
+     * @param message the message to publish
+     */
+    void publish(String channel, String message);
+
+    /**
+     * Subscribes a listener to one or more channels. The listener is invoked on a background thread with the message
+     * of every publication, and the subscription is re-established if the underlying connection drops. Anything
+     * published while the connection was down is lost, so the subscribed callback runs each time the subscription is
+     * (re)established to let listeners discard whatever state those messages would have invalidated.
+     *
+     * @param listener the listener to invoke with each message
+     * @param subscribed the callback to invoke each time the subscription is established
+     * @param channels the channels to subscribe to
+     */
+    void subscribe(Consumer<String> listener, Runnable subscribed, String... channels);
+
+    /**
+     * A set of commands that are queued and executed together by {@link #batch(Consumer)}.
+     */
+    interface Batch {
+
+        /**
+         * Queues a TTL update.
+         *
+         * @param key the key of the entry
+         * @param expiration the TTL in seconds
+         */
+        void expire(String key, int expiration);
+
+        /**
+         * Queues a lookup.
+         *
+         * @param key the key to lookup
+         */
+        void get(String key);
+
+        /**
+         * Queues a write along with its TTL.
+         *
+         * @param key the key to use
+         * @param value the value to use
+         * @param expiration the TTL in seconds
+         */
+        void set(String key, String value, int expiration);
+    }
 }
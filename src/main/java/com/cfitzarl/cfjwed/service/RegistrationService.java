@@ -24,8 +24,6 @@
 
 package com.cfitzarl.cfjwed.service;
 
-import com.cfitzarl.cfjwed.data.dao.ConfigDao;
-import com.cfitzarl.cfjwed.data.enums.ConfigKey;
 import com.cfitzarl.cfjwed.data.model.Account;
 import com.cfitzarl.cfjwed.data.model.Activation;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,9 +39,6 @@ public abstract class RegistrationService {
     @Autowired
     private ActivationService activationService;
 
-    @Autowired
-    private ConfigDao configDao;
-
     /**
      * Registers an account.
      *
@@ -59,7 +54,8 @@ public abstract class RegistrationService {
     public abstract boolean supports(Account account);
 
     /**
-     * Provides implementing classes with common email attributes.
+     * Provides implementing classes with common email attributes. The event title and URL are supplied to every
+     * template by the {@link EmailTemplateService}.
      *
      * @param activationToken the activation token
      * @param account the account being registered
@@ -67,8 +63,6 @@ public abstract class RegistrationService {
      */
     protected Map<String, Object> getCommonEmailAttrs(String activationToken, Account account) {
         Map<String, Object> attrs = new HashMap<>();
-        attrs.put("title", configDao.findByKey(ConfigKey.TITLE).getValue());
-        attrs.put("url", configDao.findByKey(ConfigKey.URL).getValue());
         attrs.put("token", activationToken);
         attrs.put("name", account.getFirstName());
         return attrs;
@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service;
+
+import com.cfitzarl.cfjwed.data.enums.ResponseStatus;
+import com.cfitzarl.cfjwed.data.model.Attendant;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * This keeps RSVP statistics as counters that are adjusted whenever an {@link Attendant} changes, rather than counting
+ * attendants each time the statistics are read. Every node holds the counters in memory, backed by a persisted copy
+ * that the nodes periodically reconcile against, and pushes changes to dashboards subscribed to the live feed.
+ */
+public interface RsvpCounterService {
+
+    /**
+     * Records that an attendant's response status or meal has changed. This must be called in the transaction that
+     * makes the change; the counters only move if it commits.
+     *
+     * @param oldStatus the previous status, or null if the attendant is new
+     * @param oldMealId the previously chosen meal, if any
+     * @param newStatus the new status, or null if the attendant was deleted
+     * @param newMealId the newly chosen meal, if any
+     */
+    void recordChange(ResponseStatus oldStatus, UUID oldMealId, ResponseStatus newStatus, UUID newMealId);
+
+    /**
+     * Records the changes to several attendants at once, between the state they were last persisted with and their
+     * current state. Their changes are added up so that each counter is only adjusted once. Like
+     * {@link #recordChange}, this must be called in the transaction that makes the changes.
+     *
+     * @param attendants the attendants that have changed
+     */
+    void recordChanges(Collection<Attendant> attendants);
+
+    /**
+     * Returns the number of attendants with each response status.
+     *
+     * @return the count per status, including statuses nobody has
+     */
+    Map<ResponseStatus, Long> getStatusCounts();
+
+    /**
+     * Returns the number of attendants who have chosen each meal.
+     *
+     * @return the count per meal ID; meals nobody has chosen may be absent
+     */
+    Map<UUID, Long> getMealCounts();
+
+    /**
+     * Subscribes to the live feed. The subscriber first receives a snapshot of all counts, then every change to them.
+     *
+     * @return the event stream
+     */
+    SseEmitter subscribe();
+}
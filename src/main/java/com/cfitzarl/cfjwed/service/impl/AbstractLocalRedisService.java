@@ -0,0 +1,284 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.service.RedisService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * This is the base for {@link RedisService} implementations that keep their data inside this process rather than in
+ * Redis. Subclasses only provide storage of key-value entries with an expiry time; the Redis command semantics,
+ * batches, and sorted sets are implemented here. Sorted sets are always kept on the heap, as they are only used for
+ * small, short-lived data. Nothing is published in-process, so subscriptions are accepted and never invoked.
+ * Conditional writes and increments are made atomic by a lock that only they take, so they are only atomic with respect
+ * to each other.
+ */
+public abstract class AbstractLocalRedisService implements RedisService {
+
+    private final Map<String, ConcurrentSkipListMap<String, Double>> sortedSets = new ConcurrentHashMap<>();
+
+    private final Object conditionalWriteLock = new Object();
+
+    /** The expiry given to entries written without a TTL. */
+    protected static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    /**
+     * Returns the value of an entry.
+     *
+     * @param key the key of the entry
+     * @param now the current time in epoch milliseconds
+     * @return the value, or null if the entry does not exist or has expired
+     */
+    protected abstract byte[] read(String key, long now);
+
+    /**
+     * Creates or replaces an entry.
+     *
+     * @param key the key of the entry
+     * @param value the value of the entry
+     * @param expiresAt the time at which the entry expires, in epoch milliseconds
+     */
+    protected abstract void write(String key, byte[] value, long expiresAt);
+
+    /**
+     * Changes the expiry of an entry if it exists and has not expired.
+     *
+     * @param key the key of the entry
+     * @param expiresAt the new expiry in epoch milliseconds
+     * @param now the current time in epoch milliseconds
+     */
+    protected abstract void touch(String key, long expiresAt, long now);
+
+    /**
+     * Removes an entry if it exists.
+     *
+     * @param key the key of the entry
+     */
+    protected abstract void remove(String key);
+
+    /**
+     * Removes all entries that have expired.
+     */
+    public abstract void sweep();
+
+    /** {@inheritDoc} **/
+    @Override
+    public void addToSortedSet(String key, double score, String member) {
+        sortedSets.computeIfAbsent(key, k -> new ConcurrentSkipListMap<>()).put(member, score);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public List<Object> batch(Consumer<Batch> commands) {
+        List<Object> results = new ArrayList<>();
+
+        commands.accept(new Batch() {
+            @Override
+            public void expire(String key, int expiration) {
+                AbstractLocalRedisService.this.expire(key, expiration);
+                results.add(null);
+            }
+
+            @Override
+            public void get(String key) {
+                results.add(AbstractLocalRedisService.this.get(key));
+            }
+
+            @Override
+            public void set(String key, String value, int expiration) {
+                AbstractLocalRedisService.this.set(key, encode(value), expiration);
+                results.add("OK");
+            }
+        });
+
+        return results;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public void delete(String key) {
+        remove(key);
+        sortedSets.remove(key);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public boolean deleteIfEqual(String key, String value) {
+        synchronized (conditionalWriteLock) {
+            if (!value.equals(get(key))) { return false; }
+
+            remove(key);
+            return true;
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public boolean exists(String key) {
+        return getBytes(key) != null;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public void expire(String key, int expiration) {
+        long now = System.currentTimeMillis();
+        touch(key, expiresAt(now, expiration), now);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public boolean expireIfEqual(String key, String value, int expiration) {
+        synchronized (conditionalWriteLock) {
+            if (!value.equals(get(key))) { return false; }
+
+            expire(key, expiration);
+            return true;
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public String get(String key) {
+        byte[] value = getBytes(key);
+        return (value == null) ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public byte[] getBytes(String key) {
+        return read(key, System.currentTimeMillis());
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public byte[] getAndExpire(String key, int expiration) {
+        expire(key, expiration);
+        return getBytes(key);
+    }
+
+    /**
+     * Entries do not expose how long they have left, so every increment gives the counter the full TTL again. Counters
+     * are only kept for short windows of time, which this extends by at most one TTL.
+     */
+    @Override
+    public long increment(String key, int expiration) {
+        synchronized (conditionalWriteLock) {
+            String current = get(key);
+            long value = ((current == null) ? 0 : Long.parseLong(current)) + 1;
+            set(key, encode(String.valueOf(value)), expiration);
+            return value;
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public boolean ping() {
+        return true;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public Set<String> getSortedSetRange(String key, double minScore, double maxScore) {
+        Set<String> members = new LinkedHashSet<>();
+        Map<String, Double> sortedSet = sortedSets.get(key);
+
+        if (sortedSet != null) {
+            sortedSet.entrySet().stream()
+                .filter(member -> member.getValue() >= minScore && member.getValue() <= maxScore)
+                .sorted(Map.Entry.comparingByValue())
+                .forEach(member -> members.add(member.getKey()));
+        }
+
+        return members;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public void removeSortedSetRange(String key, double minScore, double maxScore) {
+        Map<String, Double> sortedSet = sortedSets.get(key);
+
+        if (sortedSet != null) {
+            sortedSet.values().removeIf(score -> score >= minScore && score <= maxScore);
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public void set(String key, String value) {
+        write(key, encode(value), NO_EXPIRY);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public void set(String key, byte[] value, int expiration) {
+        write(key, value, expiresAt(System.currentTimeMillis(), expiration));
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public boolean setIfAbsent(String key, String value, int expiration) {
+        synchronized (conditionalWriteLock) {
+            if (exists(key)) { return false; }
+
+            set(key, encode(value), expiration);
+            // The write is refused rather than evicting anything when a bounded store is full
+            return exists(key);
+        }
+    }
+
+    /**
+     * There is no other node to reach, so publications are dropped.
+     */
+    @Override
+    public void publish(String channel, String message) {
+        // Intentionally empty
+    }
+
+    /**
+     * Nothing is ever published locally, so subscriptions are accepted and ignored.
+     */
+    @Override
+    public void subscribe(Consumer<String> listener, Runnable subscribed, String... channels) {
+        // Intentionally empty
+    }
+
+    private static long expiresAt(long now, int expiration) {
+        return now + TimeUnit.SECONDS.toMillis(expiration);
+    }
+
+    private static byte[] encode(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -27,10 +27,11 @@ package com.cfitzarl.cfjwed.service.impl;
 import com.cfitzarl.cfjwed.data.dao.AccountDao;
 import com.cfitzarl.cfjwed.data.enums.AccountType;
 import com.cfitzarl.cfjwed.data.model.Account;
+import com.cfitzarl.cfjwed.data.projection.LoginProjection;
 import com.cfitzarl.cfjwed.exception.DuplicateEmailException;
 import com.cfitzarl.cfjwed.service.AccountService;
+import com.cfitzarl.cfjwed.service.PasswordHashingService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -42,6 +43,9 @@ public class AccountServiceImpl implements AccountService {
     @Autowired
     protected AccountDao accountDao;
 
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
     /** {@inheritDoc} **/
     @Override
     public void delete(Account account) {
@@ -68,8 +72,24 @@ public class AccountServiceImpl implements AccountService {
 
     /** {@inheritDoc} **/
     @Override
-    public boolean hasValidCreds(Account account, String creds) {
-        return BCrypt.checkpw(creds, account.getPassword());
+    public LoginProjection findLoginByEmail(String email) {
+        return accountDao.findLoginByEmail(email);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public boolean hasValidCreds(LoginProjection login, String creds) {
+        if (!passwordHashingService.matches(creds, login.getPassword())) {
+            return false;
+        }
+
+        // The cleartext is only available at login, so this is the one chance to upgrade the hash to the current cost
+        if (passwordHashingService.needsRehash(login.getPassword())) {
+            login.setPassword(passwordHashingService.hash(creds));
+            accountDao.updatePassword(login.getId(), login.getPassword());
+        }
+
+        return true;
     }
 
     /** {@inheritDoc} **/
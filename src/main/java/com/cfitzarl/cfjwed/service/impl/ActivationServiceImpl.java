@@ -30,6 +30,7 @@ import com.cfitzarl.cfjwed.data.model.Activation;
 import com.cfitzarl.cfjwed.exception.ResourceNotFoundException;
 import com.cfitzarl.cfjwed.service.AccountService;
 import com.cfitzarl.cfjwed.service.ActivationService;
+import com.cfitzarl.cfjwed.service.PasswordHashingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -42,6 +43,9 @@ public class ActivationServiceImpl implements ActivationService {
     @Autowired
     private ActivationDao activationDao;
 
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
     /** {@inheritDoc} **/
     @Override
     public void activate(String token, String password) {
@@ -51,7 +55,7 @@ public class ActivationServiceImpl implements ActivationService {
 
         Account account = activation.getAccount();
         account.setActivated(true);
-        account.setPassword(password);
+        account.setPassword(passwordHashingService.hash(password));
         accountService.save(account);
 
         activationDao.delete(activation);
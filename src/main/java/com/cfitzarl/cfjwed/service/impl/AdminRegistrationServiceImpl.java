@@ -34,6 +34,7 @@ import com.cfitzarl.cfjwed.service.LocalizationService;
 import org.apache.commons.lang.RandomStringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Map;
 
@@ -54,6 +55,7 @@ public class AdminRegistrationServiceImpl extends RegistrationService {
 
     /** {@inheritDoc} **/
     @Override
+    @Transactional
     public void register(Account account) {
         String activationToken = RandomStringUtils.randomAlphanumeric(32);
 
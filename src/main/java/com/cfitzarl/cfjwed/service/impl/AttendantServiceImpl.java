@@ -26,16 +26,19 @@ package com.cfitzarl.cfjwed.service.impl;
 
 import com.cfitzarl.cfjwed.data.dao.AttendantDao;
 import com.cfitzarl.cfjwed.data.dao.InvitationDao;
-import com.cfitzarl.cfjwed.data.enums.ResponseStatus;
 import com.cfitzarl.cfjwed.data.model.Attendant;
-import com.cfitzarl.cfjwed.data.model.Invitation;
+import com.cfitzarl.cfjwed.data.projection.AttendantExportRow;
 import com.cfitzarl.cfjwed.exception.BadRequestException;
 import com.cfitzarl.cfjwed.service.AttendantService;
+import com.cfitzarl.cfjwed.service.RsvpCounterService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Component
 public class AttendantServiceImpl implements AttendantService {
@@ -46,34 +49,38 @@ public class AttendantServiceImpl implements AttendantService {
     @Autowired
     private InvitationDao invitationDao;
 
-    /** {@inheritDoc} **/
-    @Override
-    public long countByStatus(ResponseStatus status) {
-        return attendantDao.countByResponseStatus(status);
-    }
+    @Autowired
+    private RsvpCounterService rsvpCounterService;
 
     /** {@inheritDoc} **/
     @Override
+    @Transactional
     public void delete(UUID id) {
-        attendantDao.delete(id);
+        Attendant attendant = attendantDao.findOne(id);
+
+        if (attendant != null) {
+            attendantDao.delete(attendant);
+            rsvpCounterService.recordChange(
+                attendant.getPersistedResponseStatus(), attendant.getPersistedMealId(), null, null
+            );
+        }
     }
 
     /** {@inheritDoc} **/
     @Override
-    public List<Attendant> find() {
-        return attendantDao.findAll();
+    @Transactional(readOnly = true)
+    public void export(Consumer<AttendantExportRow> consumer) {
+        attendantDao.streamForExport(consumer);
     }
 
     /** {@inheritDoc} **/
     @Override
     public List<Attendant> findByInvitation(UUID id) {
-        Invitation invitation = invitationDao.findOne(id);
-
-        if (invitation == null) {
+        if (!invitationDao.exists(id)) {
             throw new BadRequestException("Invalid invitation ID provided");
         }
 
-        return attendantDao.findByInvitation(invitation);
+        return attendantDao.findByInvitationId(id);
     }
 
     /** {@inheritDoc} **/
@@ -84,7 +91,26 @@ public class AttendantServiceImpl implements AttendantService {
 
     /** {@inheritDoc} **/
     @Override
+    @Transactional
     public void save(Attendant attendant) {
+        persist(attendant);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    @Transactional
+    public void saveAll(Collection<Attendant> attendants) {
+        attendantDao.save(attendants);
+        rsvpCounterService.recordChanges(attendants);
+        attendants.forEach(Attendant::rememberPersistedState);
+    }
+
+    private void persist(Attendant attendant) {
         attendantDao.save(attendant);
+        rsvpCounterService.recordChange(
+            attendant.getPersistedResponseStatus(), attendant.getPersistedMealId(),
+            attendant.getResponseStatus(), attendant.getChosenMealId()
+        );
+        attendant.rememberPersistedState();
     }
 }
@@ -31,6 +31,7 @@ import com.cfitzarl.cfjwed.service.ConfigurationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -39,21 +40,32 @@ public class ConfigurationServiceImpl implements ConfigurationService {
     @Autowired
     private ConfigDao configDao;
 
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
     /** {@inheritDoc} **/
     @Override
     public List<Config> find() {
-        return configDao.findAll();
+        return new ArrayList<>(referenceDataCache.getConfigs().values());
     }
 
     /** {@inheritDoc} **/
     @Override
     public Config findByKey(ConfigKey configKey) {
-        return configDao.findByKey(configKey);
+        return referenceDataCache.getConfig(configKey);
     }
 
     /** {@inheritDoc} **/
     @Override
     public Config save(Config config) {
-        return configDao.save(config);
+        Config saved = configDao.save(config);
+        referenceDataCache.invalidateConfigs();
+        return saved;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public boolean ping() {
+        return configDao.count() > 0;
     }
 }
@@ -0,0 +1,276 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.core.metrics.MetricSource;
+import com.cfitzarl.cfjwed.data.model.EmailCampaign;
+import com.cfitzarl.cfjwed.data.model.OutboxEmail;
+import com.cfitzarl.cfjwed.data.projection.InvitationRecipient;
+import com.cfitzarl.cfjwed.service.EmailCampaignService;
+import com.cfitzarl.cfjwed.service.EmailDispatchingService;
+import com.cfitzarl.cfjwed.service.EmailOutboxService;
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * This runs email campaigns. Each running campaign is leased by one node, which reads its recipients a page at a time,
+ * renders their emails in parallel on a bounded fork/join pool and queues them in the outbox along with the campaign's
+ * progress. The outbox sends them no faster than the cluster's email rate allows, and queueing pauses while the outbox
+ * has a backlog, so that a campaign neither outruns the mail server nor fills the outbox during an outage. A campaign
+ * whose node stops is picked up by the next poll on any node once its lease expires, and carries on after the last
+ * page that was queued.
+ */
+@Component
+class EmailCampaignRunner implements MetricSource {
+
+    private static final String TEMPLATE = "campaign";
+
+    @Autowired
+    private EmailCampaignService emailCampaignService;
+
+    @Autowired
+    private EmailDispatchingService emailDispatchingService;
+
+    @Autowired
+    private EmailOutboxDispatcher emailOutboxDispatcher;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    @Qualifier("campaignRenderPool")
+    private ForkJoinPool renderPool;
+
+    @Autowired
+    @Qualifier("campaignTaskExecutor")
+    private ThreadPoolTaskExecutor taskExecutor;
+
+    @Value("${campaign.concurrency}")
+    private int concurrency;
+
+    @Value("${campaign.page.size}")
+    private int pageSize;
+
+    @Value("${campaign.lease.seconds}")
+    private int leaseSeconds;
+
+    @Value("${email.rate.per.second}")
+    private int ratePerSecond;
+
+    @Value("${campaign.outbox.high.watermark}")
+    private long outboxHighWatermark;
+
+    @Value("${campaign.backpressure.pause}")
+    private long backpressurePause;
+
+    private final AtomicInteger activeCampaigns = new AtomicInteger();
+
+    private final LongAdder queued = new LongAdder();
+
+    private final LongAdder skipped = new LongAdder();
+
+    private final LongAdder pages = new LongAdder();
+
+    private final LongAdder backpressurePauses = new LongAdder();
+
+    private volatile boolean running = true;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EmailCampaignRunner.class);
+
+    /**
+     * Each queued page renews the campaign's lease, so a page must be sent well before the lease runs out. Otherwise
+     * another node would take the campaign over while this one is still running it.
+     */
+    @PostConstruct
+    public void initialize() {
+        if ((double) pageSize / ratePerSecond >= leaseSeconds) {
+            throw new IllegalStateException(String.format(
+                "A campaign page of %d emails takes longer to send at %d per second than its %d second lease",
+                pageSize, ratePerSecond, leaseSeconds
+            ));
+        }
+    }
+
+    /**
+     * Starts running campaigns until the configured number are running. Campaigns that were left by a node that
+     * stopped are resumed by this poll.
+     */
+    @Scheduled(fixedDelayString = "${campaign.poll.interval}")
+    public void dispatch() {
+        int active;
+
+        while (running && ((active = activeCampaigns.get()) < concurrency)) {
+            if (!activeCampaigns.compareAndSet(active, active + 1)) { continue; }
+
+            try {
+                taskExecutor.execute(this::runNext);
+            } catch (TaskRejectedException e) {
+                activeCampaigns.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public String getMetricName() {
+        return "emailCampaigns";
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        metrics.put("queued", queued.sum());
+        metrics.put("skipped", skipped.sum());
+        metrics.put("pages", pages.sum());
+        metrics.put("backpressurePauses", backpressurePauses.sum());
+        metrics.put("activeCampaigns", activeCampaigns.get());
+        return metrics;
+    }
+
+    private void runNext() {
+        try {
+            EmailCampaign campaign = emailCampaignService.claim();
+            if (campaign != null) { run(campaign); }
+        } catch (RuntimeException e) {
+            LOGGER.error("Email campaign stopped, it will be resumed once its lease expires", e);
+        } finally {
+            activeCampaigns.decrementAndGet();
+        }
+    }
+
+    private void run(EmailCampaign campaign) {
+        UUID after = campaign.getLastInvitation();
+        String messageHtml = StringEscapeUtils.escapeHtml4(campaign.getMessage()).replace("\n", "<br/>");
+        LOGGER.info("Running email campaign {} after invitation {}", campaign.getId(), after);
+
+        while (running) {
+            if (!awaitOutboxCapacity(campaign)) { return; }
+
+            List<InvitationRecipient> page = emailCampaignService.findRecipients(campaign, after, pageSize);
+
+            if (page.isEmpty()) {
+                emailCampaignService.complete(campaign);
+                LOGGER.info("Email campaign {} has queued all of its emails", campaign.getId());
+                return;
+            }
+
+            List<OutboxEmail> emails = render(campaign, messageHtml, page);
+            after = page.get(page.size() - 1).getInvitationId();
+
+            if (!emailCampaignService.enqueue(campaign, after, emails, page.size() - emails.size())) {
+                LOGGER.info("Email campaign {} was cancelled or taken over by another node", campaign.getId());
+                return;
+            }
+
+            queued.add(emails.size());
+            skipped.add(page.size() - emails.size());
+            pages.increment();
+            emailOutboxDispatcher.dispatch();
+        }
+
+        emailCampaignService.release(campaign);
+    }
+
+    /**
+     * Waits while the outbox has more emails pending than the high watermark, keeping the campaign's lease alive.
+     *
+     * @return whether to carry on, which is not the case if the lease was lost or the node is stopping
+     */
+    private boolean awaitOutboxCapacity(EmailCampaign campaign) {
+        while (emailOutboxService.countPending() >= outboxHighWatermark) {
+            if (!running) {
+                emailCampaignService.release(campaign);
+                return false;
+            }
+
+            if (!emailCampaignService.renew(campaign)) { return false; }
+
+            backpressurePauses.increment();
+
+            try {
+                TimeUnit.MILLISECONDS.sleep(backpressurePause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emailCampaignService.release(campaign);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private List<OutboxEmail> render(EmailCampaign campaign, String messageHtml, List<InvitationRecipient> page) {
+        // A parallel stream started from within the pool runs on the pool, rather than on the shared common pool
+        return renderPool.submit(() -> page.parallelStream()
+            .map(recipient -> render(campaign, messageHtml, recipient))
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList())
+        ).join();
+    }
+
+    private OutboxEmail render(EmailCampaign campaign, String messageHtml, InvitationRecipient recipient) {
+        Map<String, Object> attrs = new HashMap<>();
+        attrs.put("name", recipient.getFirstName());
+        attrs.put("message", campaign.getMessage());
+        attrs.put("messageHtml", messageHtml);
+
+        try {
+            return emailDispatchingService.compose(recipient.getEmail(), campaign.getSubject(), TEMPLATE, attrs);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to render campaign {} for invitation {}", campaign.getId(),
+                recipient.getInvitationId(), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.data.dao.EmailCampaignDao;
+import com.cfitzarl.cfjwed.data.dao.InvitationDao;
+import com.cfitzarl.cfjwed.data.enums.CampaignAudience;
+import com.cfitzarl.cfjwed.data.enums.CampaignStatus;
+import com.cfitzarl.cfjwed.data.model.EmailCampaign;
+import com.cfitzarl.cfjwed.data.model.OutboxEmail;
+import com.cfitzarl.cfjwed.data.projection.InvitationRecipient;
+import com.cfitzarl.cfjwed.service.EmailCampaignService;
+import com.cfitzarl.cfjwed.service.EmailOutboxService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class EmailCampaignServiceImpl implements EmailCampaignService {
+
+    /** Sorts before every other ID, so that a campaign with no progress starts from the first invitation. */
+    private static final UUID FIRST_INVITATION = new UUID(0, 0);
+
+    @Autowired
+    private EmailCampaignDao emailCampaignDao;
+
+    @Autowired
+    private EmailCampaignRunner emailCampaignRunner;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private InvitationDao invitationDao;
+
+    @Value("${campaign.lease.seconds}")
+    private int leaseSeconds;
+
+    /** {@inheritDoc} **/
+    @Override
+    @Transactional
+    public EmailCampaign start(EmailCampaign campaign) {
+        boolean pendingOnly = campaign.getAudience() == CampaignAudience.PENDING;
+
+        campaign.setStatus(CampaignStatus.RUNNING);
+        campaign.setRecipients((int) invitationDao.countInvitationRecipients(pendingOnly));
+        EmailCampaign started = emailCampaignDao.save(campaign);
+
+        // Start on it right away rather than on the next poll, once it is visible to the runner
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                emailCampaignRunner.dispatch();
+            }
+        });
+
+        return started;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public List<EmailCampaign> find() {
+        return emailCampaignDao.findAllByOrderByStartedAtDesc();
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public EmailCampaign find(UUID id) {
+        return emailCampaignDao.findOne(id);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    @Transactional
+    public void cancel(EmailCampaign campaign) {
+        emailCampaignDao.end(campaign.getId().toString(), CampaignStatus.CANCELLED.name());
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    @Transactional
+    public EmailCampaign claim() {
+        String owner = UUID.randomUUID().toString();
+
+        if (emailCampaignDao.claim(owner, leaseSeconds) == 0) {
+            return null;
+        }
+
+        return emailCampaignDao.findByLeaseOwner(owner);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public List<InvitationRecipient> findRecipients(EmailCampaign campaign, UUID after, int limit) {
+        boolean pendingOnly = campaign.getAudience() == CampaignAudience.PENDING;
+        UUID from = (after == null) ? FIRST_INVITATION : after;
+
+        return invitationDao.findInvitationRecipients(from, pendingOnly, new PageRequest(0, limit));
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    @Transactional
+    public boolean enqueue(EmailCampaign campaign, UUID lastInvitation, List<OutboxEmail> emails, int skipped) {
+        // Recording progress first checks the lease, and locks the campaign until the emails are committed with it
+        int advanced = emailCampaignDao.advance(
+            campaign.getId().toString(), campaign.getLeaseOwner(), leaseSeconds, lastInvitation.toString(),
+            emails.size(), skipped
+        );
+
+        if (advanced == 0) {
+            return false;
+        }
+
+        for (OutboxEmail email : emails) {
+            email.setCampaign(campaign.getId());
+            emailOutboxService.enqueue(email);
+        }
+
+        return true;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    @Transactional
+    public boolean renew(EmailCampaign campaign) {
+        return emailCampaignDao.renew(campaign.getId().toString(), campaign.getLeaseOwner(), leaseSeconds) > 0;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    @Transactional
+    public void complete(EmailCampaign campaign) {
+        emailCampaignDao.end(campaign.getId().toString(), CampaignStatus.COMPLETED.name());
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    @Transactional
+    public void release(EmailCampaign campaign) {
+        emailCampaignDao.release(campaign.getId().toString(), campaign.getLeaseOwner());
+    }
+}
@@ -24,26 +24,23 @@
 
 package com.cfitzarl.cfjwed.service.impl;
 
-import com.cfitzarl.cfjwed.data.dao.ConfigDao;
 import com.cfitzarl.cfjwed.data.enums.ConfigKey;
+import com.cfitzarl.cfjwed.data.model.OutboxEmail;
+import com.cfitzarl.cfjwed.service.ConfigurationService;
 import com.cfitzarl.cfjwed.service.EmailDispatchingService;
-import com.cfitzarl.cfjwed.service.LocalizationService;
-import org.apache.velocity.app.VelocityEngine;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.cfitzarl.cfjwed.service.EmailOutboxService;
+import com.cfitzarl.cfjwed.service.EmailTemplateService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.ui.velocity.VelocityEngineUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.PostConstruct;
-import javax.mail.MessagingException;
-import javax.mail.internet.MimeMessage;
 import java.util.Map;
+import java.util.Properties;
 
 @Service
 public class EmailDispatchingServiceImpl implements EmailDispatchingService {
@@ -54,64 +51,68 @@ public class EmailDispatchingServiceImpl implements EmailDispatchingService {
     @Value("${email.port}")
     private int port;
 
-    @Autowired
-    private ConfigDao configDao;
+    @Value("${email.timeout}")
+    private int timeout;
 
     @Autowired
-    private JavaMailSenderImpl javaMailSender;
+    private ConfigurationService configurationService;
 
     @Autowired
-    private LocalizationService localizationService;
+    private EmailOutboxDispatcher emailOutboxDispatcher;
 
     @Autowired
-    @Qualifier("emailTaskExecutor")
-    private ThreadPoolTaskExecutor taskExecutor;
+    private EmailOutboxService emailOutboxService;
 
     @Autowired
-    private VelocityEngine velocityEngine;
+    private EmailTemplateService emailTemplateService;
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(EmailDispatchingServiceImpl.class);
+    @Autowired
+    private JavaMailSenderImpl javaMailSender;
 
     /**
      * This is invoked after the DI container initializes the class. It is used to set the host and port that the
-     * {@link JavaMailSenderImpl} uses to send the email. The default is localhost on port 25.
+     * {@link JavaMailSenderImpl} uses to send the email. The default is localhost on port 25. Every SMTP call is given
+     * a timeout, since the outbox relies on a send finishing well within the lease of its batch.
      */
     @PostConstruct
     private void configureMailSender() {
         javaMailSender.setHost(host);
         javaMailSender.setPort(port);
+
+        Properties properties = javaMailSender.getJavaMailProperties();
+        properties.setProperty("mail.smtp.connectiontimeout", String.valueOf(timeout));
+        properties.setProperty("mail.smtp.timeout", String.valueOf(timeout));
+        properties.setProperty("mail.smtp.writetimeout", String.valueOf(timeout));
     }
 
     /** {@inheritDoc} **/
     @Override
+    @Transactional
     public void send(String to, String subject, String template, Map<String, Object> attrs) {
-        // Add message source decorator to attributes list for localization
-        attrs.put("localeSource", localizationService);
-
-        String htmlFilename = String.format("/email-templates/%s-html.vm", template);
-        String textFilename = String.format("/email-templates/%s-text.vm", template);
-
-        String htmlContent = VelocityEngineUtils.mergeTemplateIntoString(velocityEngine, htmlFilename, "UTF-8", attrs);
-        String textContent = VelocityEngineUtils.mergeTemplateIntoString(velocityEngine, textFilename, "UTF-8", attrs);
-
-        try {
-            MimeMessage message = javaMailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            String fromEmail = configDao.findByKey(ConfigKey.EMAIL).getValue();
-            String fromTitle = configDao.findByKey(ConfigKey.TITLE).getValue();
-
-            String from = String.format("%s <%s>", fromTitle, fromEmail);
-
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setFrom(from);
-            helper.setReplyTo(from);
-            helper.setText(textContent, htmlContent);
+        emailOutboxService.enqueue(compose(to, subject, template, attrs));
+
+        // Deliver right away rather than on the next poll, once the email is visible to the dispatcher
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                emailOutboxDispatcher.dispatch();
+            }
+        });
+    }
 
-            taskExecutor.submit(new MailRunner(message, javaMailSender));
-        } catch (MessagingException e) {
-            LOGGER.error("Error generating mail message", e);
-        }
+    /** {@inheritDoc} **/
+    @Override
+    public OutboxEmail compose(String to, String subject, String template, Map<String, Object> attrs) {
+        String fromEmail = configurationService.findByKey(ConfigKey.EMAIL).getValue();
+        String fromTitle = configurationService.findByKey(ConfigKey.TITLE).getValue();
+
+        OutboxEmail email = new OutboxEmail();
+        email.setRecipient(to);
+        email.setSender(String.format("%s <%s>", fromTitle, fromEmail));
+        email.setSubject(subject);
+        email.setHtmlBody(emailTemplateService.renderHtml(template, attrs));
+        email.setTextBody(emailTemplateService.renderText(template, attrs));
+
+        return email;
     }
 }
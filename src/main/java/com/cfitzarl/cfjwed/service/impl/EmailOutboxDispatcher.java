@@ -0,0 +1,220 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.core.metrics.MetricSource;
+import com.cfitzarl.cfjwed.data.model.OutboxEmail;
+import com.cfitzarl.cfjwed.service.EmailOutboxService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This delivers the emails in the outbox. Up to a configured number of workers each claim a batch of due emails, send
+ * them, record the outcome and claim the next batch, until the outbox has nothing due. Workers are started by a poll
+ * and whenever an email is enqueued, so throughput grows with the number of workers per node and with the number of
+ * nodes, all of which drain the same outbox. Each worker sends over its own held {@link SmtpConnection}, so the
+ * number of workers is also the size of the SMTP connection pool. Every send first takes a permit from the
+ * {@link EmailRateLimiter}, which keeps the cluster as a whole within the mail server's rate limit.
+ *
+ * <p>Each email is recorded as soon as it is sent, and a worker renews its batch's lease once half of it has passed.
+ * SMTP calls time out well within the other half, so the lease does not run out while a worker is still sending and
+ * another worker cannot claim and send the same emails. Should the lease be lost anyway, for instance because the
+ * worker was paused, the rest of the batch is left to whoever took it over.</p>
+ */
+@Component
+class EmailOutboxDispatcher implements MetricSource {
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private JavaMailSenderImpl javaMailSender;
+
+    @Autowired
+    private EmailRateLimiter emailRateLimiter;
+
+    @Autowired
+    @Qualifier("emailTaskExecutor")
+    private ThreadPoolTaskExecutor taskExecutor;
+
+    @Value("${email.outbox.threads}")
+    private int threads;
+
+    @Value("${email.outbox.batch.size}")
+    private int batchSize;
+
+    @Value("${email.outbox.connection.max.messages}")
+    private int maxMessagesPerConnection;
+
+    @Value("${email.outbox.lease.seconds}")
+    private int leaseSeconds;
+
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    private final LongAdder sent = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder leasesLost = new LongAdder();
+
+    private volatile boolean running = true;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    /**
+     * Starts workers until the configured number are running. Emails that are due for a retry, or that were leased by a
+     * node that died, are picked up by this poll.
+     */
+    @Scheduled(fixedDelayString = "${email.outbox.poll.interval}")
+    public void dispatch() {
+        int active;
+
+        while (running && ((active = activeWorkers.get()) < threads)) {
+            if (!activeWorkers.compareAndSet(active, active + 1)) { continue; }
+
+            try {
+                taskExecutor.execute(this::drain);
+            } catch (TaskRejectedException e) {
+                activeWorkers.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public String getMetricName() {
+        return "emailOutbox";
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        metrics.put("sent", sent.sum());
+        metrics.put("failed", failed.sum());
+        metrics.put("batches", batches.sum());
+        metrics.put("leasesLost", leasesLost.sum());
+        metrics.put("activeWorkers", activeWorkers.get());
+        return metrics;
+    }
+
+    private void drain() {
+        // Each worker holds one SMTP connection for as long as it has emails to send
+        try (SmtpConnection connection = new SmtpConnection(javaMailSender, maxMessagesPerConnection)) {
+            List<OutboxEmail> batch;
+
+            do {
+                batch = emailOutboxService.claim(batchSize);
+                if (!batch.isEmpty()) { send(batch, connection); }
+            } while (running && (batch.size() == batchSize));
+        } catch (RuntimeException e) {
+            LOGGER.error("Email outbox worker stopped, the next poll will restart it", e);
+        } finally {
+            activeWorkers.decrementAndGet();
+        }
+    }
+
+    void send(List<OutboxEmail> batch, SmtpConnection connection) {
+        long renewAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(leaseSeconds) / 2;
+        batches.increment();
+
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEmail email = batch.get(i);
+
+            if (System.currentTimeMillis() >= renewAt) {
+                renewAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(leaseSeconds) / 2;
+
+                if (emailOutboxService.renew(email.getLeaseOwner()) < batch.size() - i) {
+                    leaseLost(email);
+                    return;
+                }
+            }
+
+            if (!emailRateLimiter.acquire()) { return; }
+
+            boolean leased;
+
+            try {
+                connection.send(toMimeMessage(email));
+                leased = emailOutboxService.markSent(email);
+                sent.increment();
+            } catch (MessagingException e) {
+                LOGGER.warn("Unable to send email {} to {}", email.getId(), email.getRecipient(), e);
+                leased = emailOutboxService.markFailed(email, e.getMessage());
+                failed.increment();
+            }
+
+            if (!leased) {
+                leaseLost(email);
+                return;
+            }
+        }
+    }
+
+    private void leaseLost(OutboxEmail email) {
+        leasesLost.increment();
+        LOGGER.warn("Lost the lease on the batch of email {}, leaving the rest of it to its new owner", email.getId());
+    }
+
+    private MimeMessage toMimeMessage(OutboxEmail email) throws MessagingException {
+        MimeMessage message = javaMailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setFrom(email.getSender());
+        helper.setReplyTo(email.getSender());
+        helper.setText(email.getTextBody(), email.getHtmlBody());
+
+        return message;
+    }
+}
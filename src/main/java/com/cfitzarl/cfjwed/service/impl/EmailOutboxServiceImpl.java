@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.data.dao.OutboxEmailDao;
+import com.cfitzarl.cfjwed.data.enums.OutboxStatus;
+import com.cfitzarl.cfjwed.data.model.OutboxEmail;
+import com.cfitzarl.cfjwed.data.projection.OutboxStatusCount;
+import com.cfitzarl.cfjwed.service.EmailOutboxService;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+public class EmailOutboxServiceImpl implements EmailOutboxService {
+
+    /** The length of the last_error column. */
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    @Autowired
+    private OutboxEmailDao outboxEmailDao;
+
+    @Value("${email.outbox.lease.seconds}")
+    private int leaseSeconds;
+
+    @Value("${email.outbox.max.attempts}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.backoff.seconds}")
+    private long backoffSeconds;
+
+    @Value("${email.outbox.max.backoff.seconds}")
+    private long maxBackoffSeconds;
+
+    /** {@inheritDoc} **/
+    @Override
+    @Transactional
+    public void enqueue(OutboxEmail email) {
+        outboxEmailDao.save(email);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public long countPending() {
+        return outboxEmailDao.countByStatus(OutboxStatus.PENDING);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public Map<OutboxStatus, Long> countByCampaign(UUID campaign) {
+        Map<OutboxStatus, Long> counts = new EnumMap<>(OutboxStatus.class);
+
+        for (OutboxStatus status : OutboxStatus.values()) {
+            counts.put(status, 0L);
+        }
+
+        for (OutboxStatusCount count : outboxEmailDao.countByCampaign(campaign)) {
+            counts.put(count.getStatus(), count.getCount());
+        }
+
+        return counts;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    @Transactional
+    public List<OutboxEmail> claim(int limit) {
+        String owner = UUID.randomUUID().toString();
+
+        if (outboxEmailDao.claim(owner, leaseSeconds, limit) == 0) {
+            return Collections.emptyList();
+        }
+
+        return outboxEmailDao.findByLeaseOwner(owner);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    @Transactional
+    public int renew(String owner) {
+        return outboxEmailDao.renew(owner, leaseSeconds);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    @Transactional
+    public boolean markSent(OutboxEmail email) {
+        return outboxEmailDao.markSent(email.getId().toString(), email.getLeaseOwner()) > 0;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    @Transactional
+    public boolean markFailed(OutboxEmail email, String error) {
+        int attempts = email.getAttempts() + 1;
+        OutboxStatus status = (attempts >= maxAttempts) ? OutboxStatus.FAILED : OutboxStatus.PENDING;
+
+        // Double the wait after every failure, so that a mail server outage is not hammered
+        long delay = Math.min(backoffSeconds << Math.min(attempts - 1, 30), maxBackoffSeconds);
+
+        return outboxEmailDao.markFailed(
+            email.getId().toString(), email.getLeaseOwner(), status.name(), delay,
+            StringUtils.abbreviate(error, MAX_ERROR_LENGTH)
+        ) > 0;
+    }
+}
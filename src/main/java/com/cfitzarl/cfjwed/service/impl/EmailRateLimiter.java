@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.core.metrics.MetricSource;
+import com.cfitzarl.cfjwed.service.RedisService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This limits how many emails the whole cluster hands to the mail server each second. Every send takes a permit from a
+ * Redis counter for the current second, and a sender that finds the second's permits gone waits for the next one, so
+ * the combined rate of every worker on every node stays within the limit however many of them there are. While Redis
+ * is unavailable permits are counted on each node, and the limit holds per node instead.
+ */
+@Component
+class EmailRateLimiter implements MetricSource {
+
+    private static final String KEY_PREFIX = "cfjwed:email-rate:";
+
+    /** Long enough to outlive its second on nodes whose clocks are slightly ahead **/
+    private static final int WINDOW_TTL_SECONDS = 5;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Value("${email.rate.per.second}")
+    private int ratePerSecond;
+
+    private final LongAdder waits = new LongAdder();
+
+    /**
+     * Takes a permit to send one email, waiting until one is available.
+     *
+     * @return whether a permit was taken, which is not the case if the thread was interrupted while waiting
+     */
+    boolean acquire() {
+        while (true) {
+            long now = System.currentTimeMillis();
+            long second = TimeUnit.MILLISECONDS.toSeconds(now);
+
+            if (redisService.increment(KEY_PREFIX + second, WINDOW_TTL_SECONDS) <= ratePerSecond) { return true; }
+
+            waits.increment();
+
+            try {
+                TimeUnit.MILLISECONDS.sleep(TimeUnit.SECONDS.toMillis(second + 1) - now);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public String getMetricName() {
+        return "emailRate";
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        metrics.put("ratePerSecond", ratePerSecond);
+        metrics.put("waits", waits.sum());
+        return metrics;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.data.enums.ConfigKey;
+import com.cfitzarl.cfjwed.service.ConfigurationService;
+import com.cfitzarl.cfjwed.service.EmailTemplateService;
+import com.cfitzarl.cfjwed.service.LocalizationService;
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Service
+public class EmailTemplateServiceImpl implements EmailTemplateService {
+
+    /** Buffers that grew beyond this while rendering an unusually large email are not kept for reuse. */
+    private static final int MAX_POOLED_BUFFER = 64 * 1024;
+
+    @Autowired
+    private ConfigurationService configurationService;
+
+    @Autowired
+    private LocalizationService localizationService;
+
+    @Autowired
+    private VelocityEngine velocityEngine;
+
+    private final ConcurrentMap<String, Template> templates = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Locale, StaticFragments> fragmentsByLocale = new ConcurrentHashMap<>();
+
+    // Each rendering thread reuses one buffer, rather than growing a new one for every email
+    private final ThreadLocal<StringWriter> writers = ThreadLocal.withInitial(() -> new StringWriter(4096));
+
+    /** {@inheritDoc} **/
+    @Override
+    public String renderHtml(String template, Map<String, Object> attrs) {
+        return render(template + "-html", attrs);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public String renderText(String template, Map<String, Object> attrs) {
+        return render(template + "-text", attrs);
+    }
+
+    private String render(String name, Map<String, Object> attrs) {
+        Template template = templates.computeIfAbsent(
+            name, key -> velocityEngine.getTemplate(String.format("/email-templates/%s.vm", key), "UTF-8")
+        );
+
+        // Recipient attributes are layered over the shared context, which is never written to
+        VelocityContext context = new VelocityContext(attrs, staticFragments().getContext());
+        StringWriter writer = writers.get();
+
+        try {
+            template.merge(context, writer);
+            return writer.toString();
+        } finally {
+            if (writer.getBuffer().capacity() > MAX_POOLED_BUFFER) {
+                writers.remove();
+            } else {
+                writer.getBuffer().setLength(0);
+            }
+        }
+    }
+
+    private StaticFragments staticFragments() {
+        Locale locale = LocaleContextHolder.getLocale();
+        String title = configurationService.findByKey(ConfigKey.TITLE).getValue();
+        String url = configurationService.findByKey(ConfigKey.URL).getValue();
+
+        StaticFragments fragments = fragmentsByLocale.get(locale);
+
+        if ((fragments == null) || !fragments.isFor(title, url)) {
+            fragments = new StaticFragments(localizationService, title, url);
+            fragmentsByLocale.put(locale, fragments);
+        }
+
+        return fragments;
+    }
+
+    /**
+     * The parts of an email that are the same for every recipient in a locale, until the event title or URL change.
+     * Localized messages are resolved on first use and then kept, so they must only take the title and URL as
+     * arguments. This is exposed to templates as {@code $fragments}, which requires it to be public.
+     */
+    public static final class StaticFragments {
+
+        private final LocalizationService localizationService;
+
+        private final String title;
+
+        private final String url;
+
+        private final VelocityContext context;
+
+        private final ConcurrentMap<String, String> messages = new ConcurrentHashMap<>();
+
+        StaticFragments(LocalizationService localizationService, String title, String url) {
+            this.localizationService = localizationService;
+            this.title = title;
+            this.url = url;
+
+            context = new VelocityContext();
+            context.put("title", title);
+            context.put("url", url);
+            context.put("localeSource", localizationService);
+            context.put("fragments", this);
+        }
+
+        /**
+         * Returns a localized message that is formatted with the event title ({0}) and URL ({1}).
+         *
+         * @param code the message code
+         * @return the message
+         */
+        public String message(String code) {
+            return messages.computeIfAbsent(code, key -> {
+                List<String> args = Arrays.asList(title, url);
+                return localizationService.getMessage(key, args);
+            });
+        }
+
+        boolean isFor(String title, String url) {
+            return Objects.equals(this.title, title) && Objects.equals(this.url, url);
+        }
+
+        VelocityContext getContext() {
+            return context;
+        }
+    }
+}
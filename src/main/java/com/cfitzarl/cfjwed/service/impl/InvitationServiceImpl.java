@@ -26,18 +26,34 @@ package com.cfitzarl.cfjwed.service.impl;
 
 import com.cfitzarl.cfjwed.data.dao.AccountDao;
 import com.cfitzarl.cfjwed.data.dao.InvitationDao;
+import com.cfitzarl.cfjwed.data.dto.KeysetCursor;
 import com.cfitzarl.cfjwed.data.model.Account;
+import com.cfitzarl.cfjwed.data.model.Attendant;
 import com.cfitzarl.cfjwed.data.model.Invitation;
+import com.cfitzarl.cfjwed.data.model.OutboxEmail;
+import com.cfitzarl.cfjwed.data.projection.InvitationRecipient;
+import com.cfitzarl.cfjwed.service.EmailOutboxService;
 import com.cfitzarl.cfjwed.service.InvitationService;
+import com.cfitzarl.cfjwed.service.RsvpCounterService;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.joda.time.DateTime;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class InvitationServiceImpl implements InvitationService {
@@ -45,9 +61,15 @@ public class InvitationServiceImpl implements InvitationService {
     @Autowired
     private AccountDao accountDao;
 
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
     @Autowired
     private InvitationDao invitationDao;
 
+    @Autowired
+    private RsvpCounterService rsvpCounterService;
+
     /** {@inheritDoc} **/
     @Override
     public long getTotalCount() {
@@ -56,12 +78,21 @@ public class InvitationServiceImpl implements InvitationService {
 
     /** {@inheritDoc} **/
     @Override
+    @Transactional
     public void delete(UUID id) {
         Invitation invitation = invitationDao.findOne(id);
         if (invitation != null) {
             if (invitation.getAccount() != null) {
                 accountDao.delete(invitation.getAccount());
             }
+
+            // The database removes the attendants along with the invitation, so count them out here
+            for (Attendant attendant : invitation.getAttendants()) {
+                rsvpCounterService.recordChange(
+                    attendant.getPersistedResponseStatus(), attendant.getPersistedMealId(), null, null
+                );
+            }
+
             invitationDao.delete(id);
         }
     }
@@ -72,6 +103,12 @@ public class InvitationServiceImpl implements InvitationService {
         return invitationDao.findOne(id);
     }
 
+    /** {@inheritDoc} **/
+    @Override
+    public Invitation findDetail(UUID id) {
+        return invitationDao.findDetail(id);
+    }
+
     /** {@inheritDoc} **/
     @Override
     public Invitation findByAccount(Account account) {
@@ -81,12 +118,47 @@ public class InvitationServiceImpl implements InvitationService {
     /** {@inheritDoc} **/
     @Override
     public Page<Invitation> find(Integer page, Integer limit) {
-        return invitationDao.findAll(new PageRequest(page, limit, Sort.Direction.ASC, "name"));
+        PageRequest pageRequest = new PageRequest(page, limit, Sort.Direction.ASC, "name");
+        Page<UUID> ids = invitationDao.findIds(pageRequest);
+
+        if (!ids.hasContent()) {
+            return new PageImpl<>(Collections.emptyList(), pageRequest, ids.getTotalElements());
+        }
+
+        return new PageImpl<>(findInOrder(ids.getContent()), pageRequest, ids.getTotalElements());
     }
 
+    /** {@inheritDoc} **/
     @Override
-    public List<Invitation> findUnresponded() {
-        return null;
+    public Slice<Invitation> findAfter(KeysetCursor after, int limit) {
+        // Ask for one more than needed to learn whether another page follows
+        PageRequest pageRequest = new PageRequest(0, limit + 1);
+
+        List<UUID> ids = (after == null)
+            ? invitationDao.findFirstIds(pageRequest)
+            : invitationDao.findIdsAfter(after.getName(), after.getId(), pageRequest);
+
+        boolean hasNext = ids.size() > limit;
+        if (hasNext) { ids = ids.subList(0, limit); }
+
+        List<Invitation> invitations = ids.isEmpty() ? Collections.emptyList() : findInOrder(ids);
+        return new SliceImpl<>(invitations, new PageRequest(0, limit), hasNext);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public List<InvitationRecipient> findReminderRecipients(UUID after, UUID before, DateTime cutoff, int limit) {
+        return invitationDao.findReminderRecipients(after, before, cutoff, new PageRequest(0, limit));
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    @Transactional
+    public void markReminded(Collection<UUID> ids, DateTime remindedAt, Collection<OutboxEmail> reminders) {
+        if (ids.isEmpty()) { return; }
+
+        invitationDao.markReminded(ids, remindedAt);
+        reminders.forEach(emailOutboxService::enqueue);
     }
 
     /** {@inheritDoc} **/
@@ -112,4 +184,16 @@ public class InvitationServiceImpl implements InvitationService {
         Invitation invitation = invitationDao.findByCode(code);
         return (invitation != null) && (invitation.getAccount() != null);
     }
+
+    /**
+     * Loads invitations with their attendants and returns them in the order of the given IDs.
+     */
+    private List<Invitation> findInOrder(List<UUID> ids) {
+        Map<UUID, Invitation> invitations = new HashMap<>();
+        for (Invitation invitation : invitationDao.findWithAttendantsByIdIn(ids)) {
+            invitations.put(invitation.getId(), invitation);
+        }
+
+        return ids.stream().map(invitations::get).collect(Collectors.toList());
+    }
 }
@@ -24,7 +24,6 @@
 
 package com.cfitzarl.cfjwed.service.impl;
 
-import com.cfitzarl.cfjwed.data.dao.ConfigDao;
 import com.cfitzarl.cfjwed.data.dao.InvitationDao;
 import com.cfitzarl.cfjwed.data.enums.AccountType;
 import com.cfitzarl.cfjwed.data.enums.ConfigKey;
@@ -32,12 +31,14 @@ import com.cfitzarl.cfjwed.data.model.Account;
 import com.cfitzarl.cfjwed.data.model.Invitation;
 import com.cfitzarl.cfjwed.exception.BadRequestException;
 import com.cfitzarl.cfjwed.service.AccountService;
+import com.cfitzarl.cfjwed.service.ConfigurationService;
 import com.cfitzarl.cfjwed.service.EmailDispatchingService;
 import com.cfitzarl.cfjwed.service.LocalizationService;
 import com.cfitzarl.cfjwed.service.RegistrationService;
 import org.apache.commons.lang.RandomStringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
 import java.util.Map;
@@ -49,7 +50,7 @@ public class InviteeRegistrationServiceImpl extends RegistrationService {
     private AccountService accountService;
 
     @Autowired
-    private ConfigDao configDao;
+    private ConfigurationService configurationService;
 
     @Autowired
     private EmailDispatchingService emailDispatcher;
@@ -62,6 +63,7 @@ public class InviteeRegistrationServiceImpl extends RegistrationService {
 
     /** {@inheritDoc} **/
     @Override
+    @Transactional
     public void register(Account account) {
         Invitation invitation = invitationDao.findByCode(account.getInvitationCode());
 
@@ -80,7 +82,7 @@ public class InviteeRegistrationServiceImpl extends RegistrationService {
         String activationToken = RandomStringUtils.randomAlphanumeric(32);
 
         // Send registration email
-        String title = configDao.findByKey(ConfigKey.TITLE).getValue();
+        String title = configurationService.findByKey(ConfigKey.TITLE).getValue();
         String subject = localizationService.getMessage("email.activation.invitee.subject", Collections.singletonList(title));
         Map<String, Object> attrs = getCommonEmailAttrs(activationToken, account);
         emailDispatcher.send(account.getEmail(), subject, "invitee-activation-email", attrs);
@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This is an in-process stand-in for Redis that is used while Redis is unreachable. It only holds what was written to
+ * this node, so it is no substitute for the shared store, but it keeps sessions created or refreshed during an outage
+ * working instead of failing every request. Expired entries are dropped lazily on access and periodically swept, and
+ * writes are refused once the configured number of entries is reached so that an outage cannot exhaust the heap.
+ */
+public class LocalRedisService extends AbstractLocalRedisService {
+
+    private final int maxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalRedisService.class);
+
+    /**
+     * @param maxEntries the maximum number of keys held
+     */
+    public LocalRedisService(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    @Scheduled(fixedDelay = 60000)
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    protected byte[] read(String key, long now) {
+        Entry entry = entries.get(key);
+
+        if (entry != null && entry.isExpired(now)) {
+            entries.remove(key, entry);
+            return null;
+        }
+
+        return (entry == null) ? null : entry.value;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    protected void write(String key, byte[] value, long expiresAt) {
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            sweep();
+
+            if (entries.size() >= maxEntries) {
+                LOGGER.debug("Local Redis fallback is full, dropping write for {}", key);
+                return;
+            }
+        }
+
+        entries.put(key, new Entry(value, expiresAt));
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    protected void touch(String key, long expiresAt, long now) {
+        entries.computeIfPresent(key, (k, entry) -> entry.isExpired(now) ? null : new Entry(entry.value, expiresAt));
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    protected void remove(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * A value along with the time, in epoch milliseconds, at which it expires.
+     */
+    private static class Entry {
+
+        private final byte[] value;
+        private final long expiresAt;
+
+        Entry(byte[] value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
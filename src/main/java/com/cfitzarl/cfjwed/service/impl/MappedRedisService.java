@@ -0,0 +1,543 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.core.metrics.MetricSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.zip.CRC32;
+
+/**
+ * This stores entries in a fixed-size hash table inside a memory-mapped file, for deployments that would rather not
+ * run Redis. Lookups involve no network and no heap beyond the returned value, and since the table lives in the page
+ * cache it survives restarts: the file is simply mapped again on startup.
+ *
+ * <p>The file starts with a header recording its layout, followed by a power-of-two number of equally sized slots.
+ * Collisions are resolved by linear probing, and removals shift later entries of the same probe run back instead of
+ * leaving tombstones, so lookups never have to skip over deleted slots. Each slot is laid out as:</p>
+ *
+ * <pre>
+ * [state:1][checksum:4][hash:4][expiresAt:8][keyLength:2][valueLength:4][key][value]
+ * </pre>
+ *
+ * <p>The checksum is a CRC32 of everything after it and is written before the slot is marked used. The header also
+ * records whether the file was closed cleanly. If it was not, a write or a removal may have been cut short, leaving a
+ * torn slot or, since a removal shifts entries one at a time, an entry that is duplicated or no longer reachable from
+ * its home slot. Opening such a file therefore drops every slot whose checksum does not match and moves or drops
+ * entries until each key is found exactly once.</p>
+ *
+ * <p>Entries that do not fit in a slot are refused. Reads are optimistic and only fall back to a shared lock if a write
+ * raced with them; writes take an exclusive lock.</p>
+ */
+public class MappedRedisService extends AbstractLocalRedisService implements MetricSource {
+
+    private final File file;
+
+    private final int slots;
+
+    private final int slotSize;
+
+    private final int mask;
+
+    private final int maxEntries;
+
+    private final StampedLock lock = new StampedLock();
+
+    private RandomAccessFile randomAccessFile;
+
+    private MappedByteBuffer buffer;
+
+    /** Each thread needs its own view of the buffer for relative bulk reads. */
+    private ThreadLocal<ByteBuffer> views;
+
+    /** Scratch space for moving slots, only used while holding the write lock. */
+    private final byte[] scratch;
+
+    /** Only changed under the write lock, but read without it for metrics. */
+    private volatile int size;
+
+    private static final int MAGIC = 0x43464a57;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int SHUTDOWN_OFFSET = 16;
+
+    private static final int CLEAN_SHUTDOWN = 1;
+    private static final int OPEN = 0;
+
+    private static final byte EMPTY = 0;
+    private static final byte USED = 1;
+
+    private static final int STATE_OFFSET = 0;
+    private static final int CHECKSUM_OFFSET = 1;
+    private static final int HASH_OFFSET = 5;
+    private static final int EXPIRES_OFFSET = 9;
+    private static final int KEY_LENGTH_OFFSET = 17;
+    private static final int VALUE_LENGTH_OFFSET = 19;
+    private static final int DATA_OFFSET = 23;
+
+    /** Slots swept per acquisition of the write lock, so that a sweep never stalls readers for long. */
+    private static final int SWEEP_CHUNK = 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedRedisService.class);
+
+    /**
+     * @param file the file backing the table
+     * @param slots the number of slots, which must be a power of two
+     * @param slotSize the size of each slot in bytes
+     */
+    public MappedRedisService(File file, int slots, int slotSize) {
+        if (Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("The number of slots must be a power of two");
+        }
+
+        if ((long) slots * slotSize + HEADER_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The table cannot exceed 2GB");
+        }
+
+        this.file = file;
+        this.slots = slots;
+        this.slotSize = slotSize;
+        this.mask = slots - 1;
+        this.maxEntries = slots / 4 * 3;
+        this.scratch = new byte[slotSize];
+    }
+
+    /**
+     * Maps the file, creating it if needed. A file written with a different layout is discarded, and one that was not
+     * closed cleanly is repaired.
+     *
+     * @throws IOException if the file cannot be mapped
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        long length = HEADER_SIZE + (long) slots * slotSize;
+
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+
+        randomAccessFile = new RandomAccessFile(file, "rw");
+
+        if (randomAccessFile.length() != 0 && !hasLayout(randomAccessFile)) {
+            LOGGER.warn("{} was written with a different layout and will be discarded", file);
+            randomAccessFile.setLength(0);
+        }
+
+        randomAccessFile.setLength(length);
+        buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+        views = ThreadLocal.withInitial(buffer::duplicate);
+
+        boolean clean = buffer.getInt(SHUTDOWN_OFFSET) == CLEAN_SHUTDOWN;
+
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putInt(8, slots);
+        buffer.putInt(12, slotSize);
+        buffer.putInt(SHUTDOWN_OFFSET, OPEN);
+        // The marker has to reach the disk before any slot changes, or a crash could leave them behind unrepaired
+        buffer.force();
+
+        if (!clean) {
+            int dropped = repair();
+            if (dropped > 0) { LOGGER.warn("{} was not closed cleanly; dropped {} damaged entries", file, dropped); }
+        }
+
+        int used = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (state(slot) == USED) { used++; }
+        }
+        size = used;
+
+        LOGGER.info("Mapped {} with {} entries", file, size);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        long stamp = lock.writeLock();
+
+        try {
+            buffer.force();
+            buffer.putInt(SHUTDOWN_OFFSET, CLEAN_SHUTDOWN);
+            buffer.force();
+            randomAccessFile.close();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    @Scheduled(fixedDelay = 60000)
+    public void sweep() {
+        long now = System.currentTimeMillis();
+
+        for (int start = 0; start < slots; start += SWEEP_CHUNK) {
+            long stamp = lock.writeLock();
+
+            try {
+                for (int slot = start; slot < Math.min(start + SWEEP_CHUNK, slots); slot++) {
+                    // Removal may shift the next entry of the run into this slot, so check it again
+                    while (state(slot) == USED && buffer.getLong(offset(slot) + EXPIRES_OFFSET) <= now) {
+                        removeAt(slot);
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    protected byte[] read(String key, long now) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(key);
+
+        long stamp = lock.tryOptimisticRead();
+        byte[] value = null;
+
+        try {
+            value = readValue(keyBytes, hash, now);
+        } catch (RuntimeException e) {
+            // A concurrent write can leave a torn slot behind; validation below catches it
+        }
+
+        if (lock.validate(stamp)) {
+            return value;
+        }
+
+        stamp = lock.readLock();
+
+        try {
+            return readValue(keyBytes, hash, now);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    protected void write(String key, byte[] value, long expiresAt) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+        if (DATA_OFFSET + keyBytes.length + value.length > slotSize) {
+            LOGGER.warn("Refusing to store {} bytes, which exceeds the slot size of {}", value.length, slotSize);
+            return;
+        }
+
+        int hash = hash(key);
+        long stamp = lock.writeLock();
+
+        try {
+            int slot = find(keyBytes, hash);
+
+            if (slot < 0) {
+                if (size >= maxEntries) {
+                    LOGGER.warn("Mapped store is full, dropping write");
+                    return;
+                }
+
+                slot = hash & mask;
+                while (state(slot) == USED) { slot = (slot + 1) & mask; }
+                size++;
+            }
+
+            int offset = offset(slot);
+            ByteBuffer view = views.get();
+            buffer.putInt(offset + HASH_OFFSET, hash);
+            buffer.putLong(offset + EXPIRES_OFFSET, expiresAt);
+            buffer.putShort(offset + KEY_LENGTH_OFFSET, (short) keyBytes.length);
+            buffer.putInt(offset + VALUE_LENGTH_OFFSET, value.length);
+            view.position(offset + DATA_OFFSET);
+            view.put(keyBytes);
+            view.put(value);
+            buffer.putInt(offset + CHECKSUM_OFFSET, checksum(offset));
+
+            // Marking the slot last means a crash mid-write never leaves a half-written entry visible
+            buffer.put(offset + STATE_OFFSET, USED);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    protected void touch(String key, long expiresAt, long now) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(key);
+        long stamp = lock.writeLock();
+
+        try {
+            int slot = find(keyBytes, hash);
+
+            if (slot >= 0 && buffer.getLong(offset(slot) + EXPIRES_OFFSET) > now) {
+                buffer.putLong(offset(slot) + EXPIRES_OFFSET, expiresAt);
+                buffer.putInt(offset(slot) + CHECKSUM_OFFSET, checksum(offset(slot)));
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    protected void remove(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(key);
+        long stamp = lock.writeLock();
+
+        try {
+            int slot = find(keyBytes, hash);
+            if (slot >= 0) { removeAt(slot); }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public String getMetricName() {
+        return "mappedStore";
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        metrics.put("entries", size);
+        metrics.put("maxEntries", maxEntries);
+        metrics.put("slotSize", slotSize);
+        return metrics;
+    }
+
+    private byte[] readValue(byte[] keyBytes, int hash, long now) {
+        int slot = find(keyBytes, hash);
+        if (slot < 0) { return null; }
+
+        int offset = offset(slot);
+        if (buffer.getLong(offset + EXPIRES_OFFSET) <= now) { return null; }
+
+        int valueLength = buffer.getInt(offset + VALUE_LENGTH_OFFSET);
+        if (valueLength < 0 || DATA_OFFSET + keyBytes.length + valueLength > slotSize) { return null; }
+
+        byte[] value = new byte[valueLength];
+        ByteBuffer view = views.get();
+        view.position(offset + DATA_OFFSET + keyBytes.length);
+        view.get(value);
+        return value;
+    }
+
+    /**
+     * Returns the slot holding a key, or -1 if it is absent.
+     */
+    private int find(byte[] keyBytes, int hash) {
+        int slot = hash & mask;
+
+        for (int probes = 0; probes < slots; probes++) {
+            if (state(slot) == EMPTY) { return -1; }
+
+            int offset = offset(slot);
+
+            if (buffer.getInt(offset + HASH_OFFSET) == hash
+                    && buffer.getShort(offset + KEY_LENGTH_OFFSET) == keyBytes.length
+                    && keyEquals(offset + DATA_OFFSET, keyBytes)) {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Empties a slot and shifts back any later entries of its probe run that would otherwise become unreachable.
+     */
+    private void removeAt(int slot) {
+        int hole = slot;
+        int next = slot;
+
+        while (true) {
+            next = (next + 1) & mask;
+            if (state(next) == EMPTY) { break; }
+
+            int home = buffer.getInt(offset(next) + HASH_OFFSET) & mask;
+
+            // An entry may only move back to the hole if the hole lies between its home slot and where it is now
+            boolean reachable = (hole <= next) ? (hole < home && home <= next) : (hole < home || home <= next);
+
+            if (!reachable) {
+                copySlot(next, hole);
+                hole = next;
+            }
+        }
+
+        buffer.put(offset(hole) + STATE_OFFSET, EMPTY);
+        size--;
+    }
+
+    /**
+     * Brings a file that was not closed cleanly back to a consistent table. Slots whose checksum does not match are
+     * emptied, which can cut later entries off from their home slot, so each remaining entry is then looked up by its
+     * key: one that is unreachable is moved to the first free slot of its probe run, and one that is found elsewhere
+     * is a copy left behind by an interrupted removal and is emptied. Both can cut off further entries, including ones
+     * already checked where a run wraps around the end of the table, so this repeats until nothing changes.
+     *
+     * @return the number of entries dropped
+     */
+    private int repair() {
+        int dropped = 0;
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            for (int slot = 0; slot < slots; slot++) {
+                if (state(slot) != USED) { continue; }
+
+                int offset = offset(slot);
+
+                if (!hasValidChecksum(offset)) {
+                    buffer.put(offset + STATE_OFFSET, EMPTY);
+                    dropped++;
+                    changed = true;
+                    continue;
+                }
+
+                int hash = buffer.getInt(offset + HASH_OFFSET);
+                byte[] keyBytes = new byte[buffer.getShort(offset + KEY_LENGTH_OFFSET)];
+                ByteBuffer view = views.get();
+                view.position(offset + DATA_OFFSET);
+                view.get(keyBytes);
+
+                int found = find(keyBytes, hash);
+                if (found == slot) { continue; }
+
+                buffer.put(offset + STATE_OFFSET, EMPTY);
+                changed = true;
+
+                if (found >= 0) {
+                    dropped++;
+                    continue;
+                }
+
+                int target = hash & mask;
+                while (state(target) == USED) { target = (target + 1) & mask; }
+                copySlot(slot, target);
+                buffer.put(offset(target) + STATE_OFFSET, USED);
+            }
+        }
+
+        return dropped;
+    }
+
+    private boolean hasValidChecksum(int offset) {
+        int keyLength = buffer.getShort(offset + KEY_LENGTH_OFFSET);
+        int valueLength = buffer.getInt(offset + VALUE_LENGTH_OFFSET);
+
+        if (keyLength < 0 || valueLength < 0 || (long) DATA_OFFSET + keyLength + valueLength > slotSize) {
+            return false;
+        }
+
+        return buffer.getInt(offset + CHECKSUM_OFFSET) == checksum(offset);
+    }
+
+    /**
+     * Computes the checksum of a slot from its hash through the end of its value.
+     */
+    private int checksum(int offset) {
+        int end = offset + DATA_OFFSET + buffer.getShort(offset + KEY_LENGTH_OFFSET)
+            + buffer.getInt(offset + VALUE_LENGTH_OFFSET);
+
+        CRC32 crc = new CRC32();
+        ByteBuffer view = views.get();
+        view.limit(end).position(offset + HASH_OFFSET);
+
+        try {
+            crc.update(view);
+        } finally {
+            view.limit(view.capacity());
+        }
+
+        return (int) crc.getValue();
+    }
+
+    private void copySlot(int from, int to) {
+        ByteBuffer view = views.get();
+        view.position(offset(from));
+        view.get(scratch);
+        view.position(offset(to));
+        view.put(scratch);
+    }
+
+    private boolean keyEquals(int offset, byte[] keyBytes) {
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (buffer.get(offset + i) != keyBytes[i]) { return false; }
+        }
+        return true;
+    }
+
+    private byte state(int slot) {
+        return buffer.get(offset(slot) + STATE_OFFSET);
+    }
+
+    private int offset(int slot) {
+        return HEADER_SIZE + slot * slotSize;
+    }
+
+    private boolean hasLayout(RandomAccessFile existing) throws IOException {
+        existing.seek(0);
+        return existing.readInt() == MAGIC
+            && existing.readInt() == FORMAT_VERSION
+            && existing.readInt() == slots
+            && existing.readInt() == slotSize;
+    }
+
+    /**
+     * Spreads the bits of the string hash, which is stable across restarts, so that similar keys land far apart.
+     */
+    private static int hash(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+}
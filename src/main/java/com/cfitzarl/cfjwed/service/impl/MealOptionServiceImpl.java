@@ -24,12 +24,9 @@
 
 package com.cfitzarl.cfjwed.service.impl;
 
-import com.cfitzarl.cfjwed.data.dao.AttendantDao;
 import com.cfitzarl.cfjwed.data.dao.MealOptionDao;
 import com.cfitzarl.cfjwed.data.model.MealOption;
 import com.cfitzarl.cfjwed.service.MealOptionService;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -41,44 +38,34 @@ import java.util.UUID;
 public class MealOptionServiceImpl implements MealOptionService {
 
     @Autowired
-    private AttendantDao attendantDao;
+    private MealOptionDao mealOptionDao;
 
     @Autowired
-    private MealOptionDao mealOptionDao;
+    private ReferenceDataCache referenceDataCache;
 
     /** {@inheritDoc} **/
     @Override
     public void delete(UUID id) {
         mealOptionDao.delete(id);
+        referenceDataCache.invalidateMealOptions();
     }
 
     /** {@inheritDoc} **/
     @Override
     public List<MealOption> find() {
-        return mealOptionDao.findAll();
+        return new ArrayList<>(referenceDataCache.getMealOptions().values());
     }
 
     /** {@inheritDoc} **/
     @Override
     public MealOption find(UUID id) {
-        return mealOptionDao.findOne(id);
-    }
-
-    /** {@inheritDoc} **/
-    @Override
-    public List<Pair<MealOption, Long>> getChosenMealCount() {
-        List<Pair<MealOption, Long>> mealGroupings = new ArrayList<>();
-
-        for (MealOption option : find()) {
-            mealGroupings.add(new ImmutablePair<>(option, attendantDao.countByMeal(option)));
-        }
-
-        return mealGroupings;
+        return referenceDataCache.getMealOption(id);
     }
 
     /** {@inheritDoc} **/
     @Override
     public void save(MealOption mealOption) {
         mealOptionDao.save(mealOption);
+        referenceDataCache.invalidateMealOptions();
     }
 }
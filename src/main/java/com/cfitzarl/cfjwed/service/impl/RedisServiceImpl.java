@@ -24,22 +24,188 @@
 
 package com.cfitzarl.cfjwed.service.impl;
 
+import com.cfitzarl.cfjwed.core.metrics.MetricSource;
+import com.cfitzarl.cfjwed.core.redis.RedisNode;
+import com.cfitzarl.cfjwed.core.redis.RedisTopology;
 import com.cfitzarl.cfjwed.service.RedisService;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.SafeEncoder;
 
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * This talks to the Redis nodes of the {@link RedisTopology}. Every key lives on one node, so single-key commands go
+ * straight to it, batches are split into one pipeline per node, and subscriptions listen on every node since keyspace
+ * notifications are only published by the node holding the key.
+ */
 @Service
-public class RedisServiceImpl implements RedisService {
+public class RedisServiceImpl implements RedisService, MetricSource {
 
     @Autowired
-    private JedisPool jedisPool;
+    private RedisTopology redisTopology;
+
+    @Value("${jedis.keyspace.events}")
+    private String keyspaceEvents;
+
+    private final List<JedisPubSub> subscriptions = new CopyOnWriteArrayList<>();
+
+    private final AtomicBoolean keyspaceEventsRequested = new AtomicBoolean();
+
+    private volatile boolean running = true;
+
+    private final Map<String, String> scriptShas = new ConcurrentHashMap<>();
+
+    private final LongAdder borrowFailures = new LongAdder();
+
+    private final LongAdder replicaMisses = new LongAdder();
+
+    /**
+     * Fetches a value and, if it exists, resets its TTL. Scripts run atomically, so this cannot race with expiry.
+     */
+    private static final String GET_AND_EXPIRE_SCRIPT =
+        "local value = redis.call('GET', KEYS[1]) " +
+        "if value then redis.call('EXPIRE', KEYS[1], ARGV[1]) end " +
+        "return value";
+
+    /**
+     * Increments a counter and gives it a TTL if it has none, which is only the case when the increment created it.
+     */
+    private static final String INCREMENT_SCRIPT =
+        "local value = redis.call('INCR', KEYS[1]) " +
+        "if redis.call('TTL', KEYS[1]) == -1 then redis.call('EXPIRE', KEYS[1], ARGV[1]) end " +
+        "return value";
+
+    /**
+     * Removes a key only if it holds the given value, so that a lease is only ever released by its owner.
+     */
+    private static final String DELETE_IF_EQUAL_SCRIPT =
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end " +
+        "return 0";
+
+    /**
+     * Resets the TTL of a key only if it holds the given value, so that a lease is only ever renewed by its owner.
+     */
+    private static final String EXPIRE_IF_EQUAL_SCRIPT =
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('EXPIRE', KEYS[1], ARGV[2]) end " +
+        "return 0";
+
+    private static final long RESUBSCRIBE_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisServiceImpl.class);
+
+    /**
+     * Keyspace notifications are disabled by default in Redis, so they are switched on here when configured. This
+     * happens with the first subscription, since nothing else needs them, and Redis is therefore never contacted when
+     * another store is selected. Managed Redis offerings frequently reject CONFIG commands, in which case notifications
+     * must be enabled server-side.
+     */
+    private void enableKeyspaceEvents() {
+        if (StringUtils.isBlank(keyspaceEvents) || !keyspaceEventsRequested.compareAndSet(false, true)) { return; }
+
+        for (RedisNode node : redisTopology.getNodes()) {
+            try (Jedis jedis = connection(node.getPrimary())) {
+                jedis.configSet("notify-keyspace-events", keyspaceEvents);
+            } catch (JedisException e) {
+                LOGGER.warn("Unable to enable keyspace notifications on {}; cached sessions will rely on their TTL",
+                    node.getName(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void closeSubscriptions() {
+        running = false;
+
+        for (JedisPubSub subscription : subscriptions) {
+            if (subscription.isSubscribed()) {
+                subscription.unsubscribe();
+            }
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public void addToSortedSet(String key, double score, String member) {
+        try (Jedis jedis = connection(key)) {
+            jedis.zadd(key, score, member);
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public List<Object> batch(Consumer<Batch> commands) {
+        List<BatchCommand> recorded = new ArrayList<>();
+        commands.accept(new RecordingBatch(recorded));
+
+        Map<RedisNode, List<Integer>> indexesByNode = new LinkedHashMap<>();
+        for (int i = 0; i < recorded.size(); i++) {
+            indexesByNode.computeIfAbsent(redisTopology.nodeFor(recorded.get(i).key), n -> new ArrayList<>()).add(i);
+        }
+
+        Object[] results = new Object[recorded.size()];
+
+        for (Map.Entry<RedisNode, List<Integer>> entry : indexesByNode.entrySet()) {
+            List<Integer> indexes = entry.getValue();
+
+            try (Jedis jedis = connection(entry.getKey().getPrimary())) {
+                Pipeline pipeline = jedis.pipelined();
+                indexes.forEach(i -> recorded.get(i).command.accept(pipeline));
+                List<Object> nodeResults = pipeline.syncAndReturnAll();
+
+                for (int i = 0; i < indexes.size(); i++) {
+                    results[indexes.get(i)] = nodeResults.get(i);
+                }
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public void delete(String key) {
+        try (Jedis jedis = connection(key)) {
+            jedis.del(key);
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public boolean deleteIfEqual(String key, String value) {
+        try (Jedis jedis = connection(key)) {
+            return Long.valueOf(1).equals(eval(jedis, DELETE_IF_EQUAL_SCRIPT, key, value));
+        }
+    }
 
     /** {@inheritDoc} **/
     @Override
     public boolean exists(String key) {
-        try (Jedis jedis = jedisPool.getResource()) {
+        try (Jedis jedis = readConnection(key)) {
             return jedis.exists(key);
         }
     }
@@ -47,24 +213,289 @@ public class RedisServiceImpl implements RedisService {
     /** {@inheritDoc} **/
     @Override
     public void expire(String key, int expiration) {
-        try (Jedis jedis = jedisPool.getResource()) {
+        try (Jedis jedis = connection(key)) {
             jedis.expire(key, expiration);
         }
     }
 
+    /** {@inheritDoc} **/
+    @Override
+    public boolean expireIfEqual(String key, String value, int expiration) {
+        try (Jedis jedis = connection(key)) {
+            return Long.valueOf(1).equals(eval(jedis, EXPIRE_IF_EQUAL_SCRIPT, key, value, String.valueOf(expiration)));
+        }
+    }
+
     /** {@inheritDoc} **/
     @Override
     public String get(String key) {
-        try (Jedis jedis = jedisPool.getResource()) {
+        try (Jedis jedis = readConnection(key)) {
             return jedis.get(key);
         }
     }
 
+    /** {@inheritDoc} **/
+    @Override
+    public byte[] getBytes(String key) {
+        RedisNode node = redisTopology.nodeFor(key);
+        byte[] encodedKey = SafeEncoder.encode(key);
+
+        try (Jedis jedis = connection(node.getReadPool())) {
+            byte[] value = jedis.get(encodedKey);
+            if ((value != null) || (node.getReplica() == null)) { return value; }
+        }
+
+        // The replica may not have caught up with an entry that was only just written to the primary
+        replicaMisses.increment();
+
+        try (Jedis jedis = connection(node.getPrimary())) {
+            return jedis.get(encodedKey);
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public byte[] getAndExpire(String key, int expiration) {
+        try (Jedis jedis = connection(key)) {
+            return (byte[]) eval(jedis, GET_AND_EXPIRE_SCRIPT, key, String.valueOf(expiration));
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public long increment(String key, int expiration) {
+        try (Jedis jedis = connection(key)) {
+            return (Long) eval(jedis, INCREMENT_SCRIPT, key, String.valueOf(expiration));
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public boolean ping() {
+        for (RedisNode node : redisTopology.getNodes()) {
+            try (Jedis jedis = connection(node.getPrimary())) {
+                if (!"PONG".equals(jedis.ping())) { return false; }
+            } catch (JedisException e) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public Set<String> getSortedSetRange(String key, double minScore, double maxScore) {
+        try (Jedis jedis = readConnection(key)) {
+            return jedis.zrangeByScore(key, minScore, maxScore);
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public void removeSortedSetRange(String key, double minScore, double maxScore) {
+        try (Jedis jedis = connection(key)) {
+            jedis.zremrangeByScore(key, minScore, maxScore);
+        }
+    }
+
     /** {@inheritDoc} **/
     @Override
     public void set(String key, String value) {
-        try (Jedis jedis = jedisPool.getResource()) {
+        try (Jedis jedis = connection(key)) {
             jedis.set(key, value);
         }
     }
+
+    /** {@inheritDoc} **/
+    @Override
+    public void set(String key, byte[] value, int expiration) {
+        try (Jedis jedis = connection(key)) {
+            jedis.setex(SafeEncoder.encode(key), expiration, value);
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public boolean setIfAbsent(String key, String value, int expiration) {
+        try (Jedis jedis = connection(key)) {
+            return "OK".equals(jedis.set(key, value, "NX", "EX", expiration));
+        }
+    }
+
+    /**
+     * Every node carries the same subscriptions, so publishing to the node owning the channel reaches all of them.
+     */
+    @Override
+    public void publish(String channel, String message) {
+        try (Jedis jedis = connection(channel)) {
+            jedis.publish(channel, message);
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public void subscribe(Consumer<String> listener, Runnable subscribed, String... channels) {
+        enableKeyspaceEvents();
+
+        for (RedisNode node : redisTopology.getNodes()) {
+            subscribe(node, listener, subscribed, channels);
+        }
+    }
+
+    private void subscribe(RedisNode node, Consumer<String> listener, Runnable subscribed, String... channels) {
+        JedisPubSub subscription = new JedisPubSub() {
+            @Override
+            public void onMessage(String channel, String message) {
+                listener.accept(message);
+            }
+
+            @Override
+            public void onSubscribe(String channel, int subscribedChannels) {
+                subscribed.run();
+            }
+        };
+
+        subscriptions.add(subscription);
+
+        Thread subscriber = new Thread(() -> {
+            while (running) {
+                // A subscribed connection is blocked for the lifetime of the subscription
+                try (Jedis jedis = connection(node.getPrimary())) {
+                    jedis.subscribe(subscription, channels);
+                } catch (JedisException e) {
+                    LOGGER.warn("Redis subscription to {} dropped, retrying in {} ms", node.getName(),
+                        RESUBSCRIBE_DELAY_MILLIS, e);
+                    sleepQuietly(RESUBSCRIBE_DELAY_MILLIS);
+                }
+            }
+        }, "redis-subscriber-" + subscriptions.size());
+
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public String getMetricName() {
+        return "redisPool";
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public Map<String, Number> getMetrics() {
+        List<JedisPool> pools = new ArrayList<>();
+        for (RedisNode node : redisTopology.getNodes()) {
+            pools.add(node.getPrimary());
+            if (node.getReplica() != null) { pools.add(node.getReplica()); }
+        }
+
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        metrics.put("nodes", redisTopology.getNodes().size());
+        metrics.put("active", pools.stream().mapToInt(JedisPool::getNumActive).sum());
+        metrics.put("idle", pools.stream().mapToInt(JedisPool::getNumIdle).sum());
+        metrics.put("waiters", pools.stream().mapToInt(JedisPool::getNumWaiters).sum());
+        metrics.put("maxBorrowWaitMillis",
+            pools.stream().mapToLong(JedisPool::getMaxBorrowWaitTimeMillis).max().orElse(0));
+        metrics.put("borrowFailures", borrowFailures.sum());
+        metrics.put("replicaMisses", replicaMisses.sum());
+        return metrics;
+    }
+
+    /**
+     * Borrows a connection to the primary holding a key.
+     */
+    private Jedis connection(String key) {
+        return connection(redisTopology.nodeFor(key).getPrimary());
+    }
+
+    /**
+     * Borrows a connection for reading a key, which goes to a replica if one is configured.
+     */
+    private Jedis readConnection(String key) {
+        return connection(redisTopology.nodeFor(key).getReadPool());
+    }
+
+    /**
+     * Borrows a connection from a pool, counting the times none could be had within the configured wait.
+     */
+    private Jedis connection(JedisPool pool) {
+        try {
+            return pool.getResource();
+        } catch (JedisConnectionException e) {
+            borrowFailures.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs a script against a single key by its SHA, loading it first if this is the first time it is used.
+     */
+    private Object eval(Jedis jedis, String script, String key, String... args) {
+        List<byte[]> keys = Collections.singletonList(SafeEncoder.encode(key));
+        List<byte[]> encodedArgs = new ArrayList<>(args.length);
+        for (String arg : args) { encodedArgs.add(SafeEncoder.encode(arg)); }
+
+        String sha = scriptShas.computeIfAbsent(script, jedis::scriptLoad);
+
+        try {
+            return jedis.evalsha(SafeEncoder.encode(sha), keys, encodedArgs);
+        } catch (JedisDataException e) {
+            // The script cache is flushed when Redis restarts, so load it again and retry once
+            if ((e.getMessage() == null) || !e.getMessage().startsWith("NOSCRIPT")) { throw e; }
+
+            jedis.scriptLoad(script);
+            return jedis.evalsha(SafeEncoder.encode(sha), keys, encodedArgs);
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A command of a batch, recorded so that it can be sent to the node holding its key.
+     */
+    private static class BatchCommand {
+
+        private final String key;
+
+        private final Consumer<Pipeline> command;
+
+        BatchCommand(String key, Consumer<Pipeline> command) {
+            this.key = key;
+            this.command = command;
+        }
+    }
+
+    /**
+     * Records the commands of a {@link Batch} in order.
+     */
+    private static class RecordingBatch implements Batch {
+
+        private final List<BatchCommand> commands;
+
+        RecordingBatch(List<BatchCommand> commands) {
+            this.commands = commands;
+        }
+
+        @Override
+        public void expire(String key, int expiration) {
+            commands.add(new BatchCommand(key, pipeline -> pipeline.expire(key, expiration)));
+        }
+
+        @Override
+        public void get(String key) {
+            commands.add(new BatchCommand(key, pipeline -> pipeline.get(key)));
+        }
+
+        @Override
+        public void set(String key, String value, int expiration) {
+            commands.add(new BatchCommand(key, pipeline -> pipeline.setex(key, expiration, value)));
+        }
+    }
 }
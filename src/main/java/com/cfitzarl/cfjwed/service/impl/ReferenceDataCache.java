@@ -0,0 +1,283 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.core.metrics.MetricSource;
+import com.cfitzarl.cfjwed.data.dao.ConfigDao;
+import com.cfitzarl.cfjwed.data.dao.MealOptionDao;
+import com.cfitzarl.cfjwed.data.enums.ConfigKey;
+import com.cfitzarl.cfjwed.data.model.Config;
+import com.cfitzarl.cfjwed.data.model.MealOption;
+import com.cfitzarl.cfjwed.service.RedisService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This holds immutable snapshots of the reference data that nearly every request reads but that only administrators
+ * ever change: the event configuration and the meal options. Snapshots are loaded on first use and dropped whenever
+ * either set changes, both on the node performing the write and, through a Redis broadcast, on every other node.
+ * Because a broadcast can be lost, either while the subscription is reconnecting or while the publishing node cannot
+ * reach Redis, both snapshots are also dropped whenever the subscription is (re)established and reloaded once they
+ * are older than the configured TTL, which bounds how long a node can serve data another node has changed.
+ *
+ * The entities handed out are detached copies shared between threads, so they must never be modified. Anything that
+ * needs to update one must load a managed instance through its DAO.
+ */
+@Component
+class ReferenceDataCache implements MetricSource {
+
+    static final String CHANNEL = "cfjwed:reference-data";
+
+    private static final String CONFIGS = "configs";
+
+    private static final String MEAL_OPTIONS = "mealOptions";
+
+    @Autowired
+    private ConfigDao configDao;
+
+    @Autowired
+    private MealOptionDao mealOptionDao;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Value("${reference.data.ttl}")
+    private int ttl;
+
+    /** Bumped on every invalidation so that a load racing with a write never installs what it read before it **/
+    private final AtomicLong version = new AtomicLong();
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    private volatile Map<ConfigKey, Config> configs;
+
+    private volatile Map<UUID, MealOption> mealOptions;
+
+    private volatile long configsLoadedAt;
+
+    private volatile long mealOptionsLoadedAt;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    @PostConstruct
+    public void initialize() {
+        redisService.subscribe(this::invalidateLocally, this::invalidateAllLocally, CHANNEL);
+    }
+
+    /**
+     * Returns the config stored under a key.
+     *
+     * @param key the key
+     * @return the config, or null if there is none
+     */
+    Config getConfig(ConfigKey key) {
+        return getConfigs().get(key);
+    }
+
+    /**
+     * Returns every config, keyed by its {@link ConfigKey}.
+     *
+     * @return an unmodifiable map of configs
+     */
+    Map<ConfigKey, Config> getConfigs() {
+        Map<ConfigKey, Config> snapshot = configs;
+
+        if (snapshot == null || isExpired(configsLoadedAt)) {
+            long observed = version.get();
+            long loadedAt = System.currentTimeMillis();
+            Map<ConfigKey, Config> loaded = new EnumMap<>(ConfigKey.class);
+
+            for (Config config : configDao.findAll()) {
+                loaded.put(config.getKey(), copy(config));
+            }
+
+            Map<ConfigKey, Config> built = Collections.unmodifiableMap(loaded);
+            install(observed, () -> {
+                configsLoadedAt = loadedAt;
+                configs = built;
+            });
+            return built;
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Returns a meal option by its id.
+     *
+     * @param id the meal option id
+     * @return the meal option, or null if there is none
+     */
+    MealOption getMealOption(UUID id) {
+        return getMealOptions().get(id);
+    }
+
+    /**
+     * Returns every meal option, keyed by id in the order they were read from the database.
+     *
+     * @return an unmodifiable map of meal options
+     */
+    Map<UUID, MealOption> getMealOptions() {
+        Map<UUID, MealOption> snapshot = mealOptions;
+
+        if (snapshot == null || isExpired(mealOptionsLoadedAt)) {
+            long observed = version.get();
+            long loadedAt = System.currentTimeMillis();
+            Map<UUID, MealOption> loaded = new LinkedHashMap<>();
+
+            for (MealOption option : mealOptionDao.findAll()) {
+                loaded.put(option.getId(), copy(option));
+            }
+
+            Map<UUID, MealOption> built = Collections.unmodifiableMap(loaded);
+            install(observed, () -> {
+                mealOptionsLoadedAt = loadedAt;
+                mealOptions = built;
+            });
+            return built;
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Drops the config snapshot on every node once the current transaction, if any, commits.
+     */
+    void invalidateConfigs() {
+        afterCommit(CONFIGS);
+    }
+
+    /**
+     * Drops the meal option snapshot on every node once the current transaction, if any, commits.
+     */
+    void invalidateMealOptions() {
+        afterCommit(MEAL_OPTIONS);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public String getMetricName() {
+        return "referenceData";
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        metrics.put("loads", loads.sum());
+        metrics.put("invalidations", invalidations.sum());
+        metrics.put("configs", (configs == null) ? 0 : configs.size());
+        metrics.put("mealOptions", (mealOptions == null) ? 0 : mealOptions.size());
+        return metrics;
+    }
+
+    private void afterCommit(String set) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            broadcast(set);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                broadcast(set);
+            }
+        });
+    }
+
+    private void broadcast(String set) {
+        invalidateLocally(set);
+
+        try {
+            redisService.publish(CHANNEL, set);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to broadcast invalidation of {}, other nodes will serve stale data", set, e);
+        }
+    }
+
+    private synchronized void invalidateLocally(String set) {
+        version.incrementAndGet();
+        invalidations.increment();
+
+        if (CONFIGS.equals(set)) {
+            configs = null;
+        } else if (MEAL_OPTIONS.equals(set)) {
+            mealOptions = null;
+        }
+    }
+
+    private synchronized void invalidateAllLocally() {
+        invalidateLocally(CONFIGS);
+        invalidateLocally(MEAL_OPTIONS);
+    }
+
+    private boolean isExpired(long loadedAt) {
+        return System.currentTimeMillis() - loadedAt >= TimeUnit.SECONDS.toMillis(ttl);
+    }
+
+    private synchronized void install(long observed, Runnable assignment) {
+        loads.increment();
+
+        if (version.get() == observed) {
+            assignment.run();
+        }
+    }
+
+    private static Config copy(Config source) {
+        Config config = new Config();
+        config.setId(source.getId());
+        config.setLastUpdated(source.getLastUpdated());
+        config.setKey(source.getKey());
+        config.setDisplayType(source.getDisplayType());
+        config.setValue(source.getValue());
+        return config;
+    }
+
+    private static MealOption copy(MealOption source) {
+        MealOption option = new MealOption();
+        option.setId(source.getId());
+        option.setLastUpdated(source.getLastUpdated());
+        option.setName(source.getName());
+        option.setDescription(source.getDescription());
+        return option;
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.core.metrics.MetricSource;
+import com.cfitzarl.cfjwed.core.resilience.CircuitBreaker;
+import com.cfitzarl.cfjwed.service.RedisService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * This guards Redis with a {@link CircuitBreaker}. Calls go to Redis while the breaker is closed; when Redis fails or
+ * slows down enough to open the breaker, calls are served by a local fallback instead of tying up request threads.
+ * Writes are mirrored to the fallback at all times, so sessions that were active on this node before an outage keep
+ * working through it. Anything written only by other nodes is unavailable until Redis recovers. Conditional writes
+ * are how nodes take leases from one another, and a local fallback would grant every node the same lease, so they are
+ * never served by the fallback and instead fail while Redis is unavailable. A single breaker guards every shard, so
+ * enough failures on one shard send the calls for all of them to the fallback until it closes again.
+ */
+public class ResilientRedisService implements RedisService, MetricSource {
+
+    private final RedisService remote;
+
+    private final RedisService fallback;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final LongAdder remoteFailures = new LongAdder();
+
+    private final LongAdder fallbackCalls = new LongAdder();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResilientRedisService.class);
+
+    /**
+     * @param remote the Redis-backed service
+     * @param fallback the service used while the breaker is open
+     * @param circuitBreaker the breaker guarding the remote service
+     */
+    public ResilientRedisService(RedisService remote, RedisService fallback, CircuitBreaker circuitBreaker) {
+        this.remote = remote;
+        this.fallback = fallback;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public void addToSortedSet(String key, double score, String member) {
+        write(service -> service.addToSortedSet(key, score, member));
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public List<Object> batch(Consumer<Batch> commands) {
+        return execute(service -> service.batch(commands));
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public void delete(String key) {
+        write(service -> service.delete(key));
+    }
+
+    /**
+     * Fails without calling Redis while the breaker is open.
+     */
+    @Override
+    public boolean deleteIfEqual(String key, String value) {
+        return executeRemote(service -> service.deleteIfEqual(key, value));
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public boolean exists(String key) {
+        return execute(service -> service.exists(key));
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public void expire(String key, int expiration) {
+        write(service -> service.expire(key, expiration));
+    }
+
+    /**
+     * Fails without calling Redis while the breaker is open.
+     */
+    @Override
+    public boolean expireIfEqual(String key, String value, int expiration) {
+        return executeRemote(service -> service.expireIfEqual(key, value, expiration));
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public String get(String key) {
+        return execute(service -> service.get(key));
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public byte[] getBytes(String key) {
+        return execute(service -> service.getBytes(key));
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public byte[] getAndExpire(String key, int expiration) {
+        fallback.expire(key, expiration);
+        return execute(service -> service.getAndExpire(key, expiration));
+    }
+
+    /**
+     * Counts locally while the breaker is open, so a limit enforced with counters holds for each node on its own.
+     */
+    @Override
+    public long increment(String key, int expiration) {
+        return execute(service -> service.increment(key, expiration));
+    }
+
+    /**
+     * Reports Redis as down while the breaker is open, without calling it.
+     */
+    @Override
+    public boolean ping() {
+        return circuitBreaker.getState() != CircuitBreaker.State.OPEN && remote.ping();
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public Set<String> getSortedSetRange(String key, double minScore, double maxScore) {
+        return execute(service -> service.getSortedSetRange(key, minScore, maxScore));
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public void removeSortedSetRange(String key, double minScore, double maxScore) {
+        write(service -> service.removeSortedSetRange(key, minScore, maxScore));
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public void set(String key, String value) {
+        write(service -> service.set(key, value));
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public void set(String key, byte[] value, int expiration) {
+        write(service -> service.set(key, value, expiration));
+    }
+
+    /**
+     * Fails without calling Redis while the breaker is open.
+     */
+    @Override
+    public boolean setIfAbsent(String key, String value, int expiration) {
+        return executeRemote(service -> service.setIfAbsent(key, value, expiration));
+    }
+
+    /**
+     * Publications are only meaningful to other nodes, so they are dropped rather than handed to the fallback.
+     */
+    @Override
+    public void publish(String channel, String message) {
+        execute(service -> {
+            if (service != fallback) { service.publish(channel, message); }
+            return null;
+        });
+    }
+
+    /**
+     * Subscriptions manage their own reconnection and are never routed through the breaker.
+     */
+    @Override
+    public void subscribe(Consumer<String> listener, Runnable subscribed, String... channels) {
+        remote.subscribe(listener, subscribed, channels);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public String getMetricName() {
+        return "redisBreaker";
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        metrics.put("open", (circuitBreaker.getState() == CircuitBreaker.State.CLOSED) ? 0 : 1);
+        metrics.put("timesOpened", circuitBreaker.getTimesOpened());
+        metrics.put("rejectedCalls", circuitBreaker.getRejectedCalls());
+        metrics.put("remoteFailures", remoteFailures.sum());
+        metrics.put("fallbackCalls", fallbackCalls.sum());
+        return metrics;
+    }
+
+    /**
+     * Applies a write to the fallback and then, through the breaker, to Redis.
+     */
+    private void write(Consumer<RedisService> operation) {
+        operation.accept(fallback);
+        execute(service -> {
+            // The fallback has already been written to
+            if (service != fallback) { operation.accept(service); }
+            return null;
+        });
+    }
+
+    /**
+     * Runs an operation against Redis if the breaker allows it, and against the fallback otherwise or if Redis fails.
+     * Any other error is rethrown, but still counted as a failure so that the breaker always learns the outcome of a
+     * call it let through; otherwise a failed probe would keep it half-open for good.
+     */
+    private <T> T execute(Function<RedisService, T> operation) {
+        if (!circuitBreaker.allowRequest()) {
+            fallbackCalls.increment();
+            return operation.apply(fallback);
+        }
+
+        long start = System.nanoTime();
+
+        try {
+            T result = operation.apply(remote);
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(System.nanoTime() - start);
+            remoteFailures.increment();
+            if (!(e instanceof JedisException)) { throw e; }
+
+            fallbackCalls.increment();
+            LOGGER.debug("Redis call failed, using local fallback", e);
+            return operation.apply(fallback);
+        }
+    }
+
+    /**
+     * Runs a conditional write against Redis if the breaker allows it, and reports it as failed otherwise. Errors other
+     * than those of Redis are counted and rethrown as in {@link #execute(Function)}.
+     */
+    private boolean executeRemote(Function<RedisService, Boolean> operation) {
+        if (!circuitBreaker.allowRequest()) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+
+        try {
+            boolean result = operation.apply(remote);
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(System.nanoTime() - start);
+            remoteFailures.increment();
+            if (!(e instanceof JedisException)) { throw e; }
+
+            LOGGER.debug("Redis conditional write failed", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.core.scheduling.JobCoordinator;
+import com.cfitzarl.cfjwed.data.dao.AttendantDao;
+import com.cfitzarl.cfjwed.data.dao.RsvpCounterDao;
+import com.cfitzarl.cfjwed.data.dto.RsvpCountsDTO;
+import com.cfitzarl.cfjwed.data.enums.ResponseStatus;
+import com.cfitzarl.cfjwed.data.model.Attendant;
+import com.cfitzarl.cfjwed.data.model.RsvpCounter;
+import com.cfitzarl.cfjwed.data.projection.StatusMealCount;
+import com.cfitzarl.cfjwed.service.RsvpCounterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Counters are keyed like their persisted rows, e.g. {@code status:ACCEPTED} or {@code meal:<id>}. A change is written
+ * to the persisted counters inside the caller's transaction, which reads back the values and revisions it produced and
+ * hands them to the in-memory counters once it commits. Changes made on other nodes only reach the persisted counters,
+ * so each node periodically syncs its in-memory counters with them. Both paths only ever replace a counter with a
+ * value of a higher revision, so a change is counted once however the two interleave. Every so often the persisted
+ * counters are themselves rebuilt from the attendants to correct any drift, such as attendants removed by a cascading
+ * delete in the database.
+ *
+ * <p>Events to the live feed are sent from a single thread, so subscribers see them in the order they happened. Every
+ * sync also sends subscribers a fresh snapshot, which keeps idle connections alive and corrects any delta a client
+ * might have missed.</p>
+ */
+@Service
+public class RsvpCounterServiceImpl implements RsvpCounterService {
+
+    @Autowired
+    private AttendantDao attendantDao;
+
+    @Autowired
+    private JobCoordinator jobCoordinator;
+
+    @Autowired
+    private RsvpCounterDao rsvpCounterDao;
+
+    @Autowired
+    @Qualifier("statsFeedExecutor")
+    private TaskExecutor statsFeedExecutor;
+
+    @Value("${stats.feed.timeout}")
+    private long feedTimeout;
+
+    private final Map<String, CounterState> counters = new ConcurrentHashMap<>();
+
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+    private static final String REBUILD_JOB = "rsvp-counter-rebuild";
+
+    private static final String STATUS_PREFIX = "status:";
+    private static final String MEAL_PREFIX = "meal:";
+
+    private static final String SNAPSHOT_EVENT = "snapshot";
+    private static final String DELTA_EVENT = "delta";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RsvpCounterServiceImpl.class);
+
+    /** {@inheritDoc} **/
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChange(ResponseStatus oldStatus, UUID oldMealId, ResponseStatus newStatus, UUID newMealId) {
+        // Sorted so that concurrent transactions lock counter rows in the same order and cannot deadlock
+        Map<String, Long> deltas = new TreeMap<>();
+        addDeltas(deltas, oldStatus, oldMealId, newStatus, newMealId);
+        apply(deltas);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChanges(Collection<Attendant> attendants) {
+        Map<String, Long> deltas = new TreeMap<>();
+
+        for (Attendant attendant : attendants) {
+            addDeltas(deltas, attendant.getPersistedResponseStatus(), attendant.getPersistedMealId(),
+                attendant.getResponseStatus(), attendant.getChosenMealId());
+        }
+
+        apply(deltas);
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public Map<ResponseStatus, Long> getStatusCounts() {
+        Map<ResponseStatus, Long> statusCounts = new EnumMap<>(ResponseStatus.class);
+
+        for (ResponseStatus status : ResponseStatus.values()) {
+            CounterState counter = counters.get(STATUS_PREFIX + status);
+            statusCounts.put(status, (counter != null) ? counter.value : 0L);
+        }
+
+        return statusCounts;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public Map<UUID, Long> getMealCounts() {
+        Map<UUID, Long> mealCounts = new HashMap<>();
+
+        counters.forEach((key, counter) -> {
+            if (key.startsWith(MEAL_PREFIX)) {
+                mealCounts.put(UUID.fromString(key.substring(MEAL_PREFIX.length())), counter.value);
+            }
+        });
+
+        return mealCounts;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(feedTimeout);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+
+        // Queued behind any pending deltas, so the snapshot is sent before anything that happens after it is taken
+        execute(() -> {
+            if (send(emitter, SNAPSHOT_EVENT, snapshot())) {
+                subscribers.add(emitter);
+            }
+        });
+
+        return emitter;
+    }
+
+    /**
+     * Brings the in-memory counters in line with the persisted ones, picking up changes made on other nodes.
+     */
+    @Scheduled(fixedDelayString = "${stats.counters.sync.interval}")
+    public void sync() {
+        Map<String, Long> moved = advance(rsvpCounterDao.findAll());
+
+        if (!moved.isEmpty()) {
+            LOGGER.debug("Synced {} RSVP counters changed elsewhere", moved.size());
+        }
+
+        if (!subscribers.isEmpty()) {
+            publish(SNAPSHOT_EVENT, snapshot());
+        }
+    }
+
+    /**
+     * Recomputes the persisted counters from the attendants themselves. Only one node rebuilds them each time.
+     */
+    @Transactional
+    @Scheduled(cron = "${stats.counters.rebuild.cron}")
+    public void rebuild() {
+        jobCoordinator.runExclusively(REBUILD_JOB, this::rebuildCounters);
+    }
+
+    private void rebuildCounters() {
+        // The counters are locked before the attendants are counted, so a change committed before the count is in it,
+        // and one that commits after it has to wait for the lock before it can adjust the rebuilt counters
+        Map<String, Long> values = new TreeMap<>();
+
+        // Counters that nothing counts any more, such as those of deleted meals, drop to zero
+        for (RsvpCounter existing : rsvpCounterDao.findAllForUpdate()) {
+            values.put(existing.getKey(), 0L);
+        }
+
+        for (StatusMealCount count : attendantDao.countGroupedByStatusAndMeal()) {
+            values.merge(STATUS_PREFIX + count.getStatus(), count.getCount(), Long::sum);
+
+            if (count.getMealId() != null) {
+                values.merge(MEAL_PREFIX + count.getMealId(), count.getCount(), Long::sum);
+            }
+        }
+
+        values.forEach(rsvpCounterDao::set);
+
+        LOGGER.info("Rebuilt {} RSVP counters", values.size());
+    }
+
+    private static void addDeltas(Map<String, Long> deltas, ResponseStatus oldStatus, UUID oldMealId,
+                                  ResponseStatus newStatus, UUID newMealId) {
+        if (oldStatus != null) { deltas.merge(STATUS_PREFIX + oldStatus, -1L, Long::sum); }
+        if (oldMealId != null) { deltas.merge(MEAL_PREFIX + oldMealId, -1L, Long::sum); }
+        if (newStatus != null) { deltas.merge(STATUS_PREFIX + newStatus, 1L, Long::sum); }
+        if (newMealId != null) { deltas.merge(MEAL_PREFIX + newMealId, 1L, Long::sum); }
+    }
+
+    private void apply(Map<String, Long> deltas) {
+        deltas.values().removeIf(delta -> delta == 0);
+
+        if (deltas.isEmpty()) { return; }
+
+        deltas.forEach(rsvpCounterDao::increment);
+        List<RsvpCounter> updated = rsvpCounterDao.findCurrent(deltas.keySet());
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                Map<String, Long> moved = advance(updated);
+                if (!moved.isEmpty()) { publish(DELTA_EVENT, toDTO(moved)); }
+            }
+        });
+    }
+
+    /**
+     * Takes on every persisted counter that is newer than the one held.
+     *
+     * @return how far each counter that was taken on moved
+     */
+    private Map<String, Long> advance(Collection<RsvpCounter> persisted) {
+        Map<String, Long> moved = new HashMap<>();
+
+        for (RsvpCounter counter : persisted) {
+            counters.compute(counter.getKey(), (key, held) -> {
+                if ((held != null) && (held.revision >= counter.getRevision())) { return held; }
+
+                long delta = counter.getValue() - ((held != null) ? held.value : 0L);
+                if (delta != 0) { moved.put(key, delta); }
+                return new CounterState(counter.getValue(), counter.getRevision());
+            });
+        }
+
+        return moved;
+    }
+
+    private RsvpCountsDTO snapshot() {
+        Map<String, Long> values = new HashMap<>();
+        counters.forEach((key, counter) -> values.put(key, counter.value));
+        return toDTO(values);
+    }
+
+    private void publish(String event, RsvpCountsDTO counts) {
+        if (subscribers.isEmpty()) { return; }
+
+        execute(() -> {
+            for (SseEmitter subscriber : subscribers) {
+                if (!send(subscriber, event, counts)) {
+                    subscribers.remove(subscriber);
+                }
+            }
+        });
+    }
+
+    private void execute(Runnable task) {
+        try {
+            statsFeedExecutor.execute(task);
+        } catch (TaskRejectedException e) {
+            LOGGER.warn("Stats feed is backed up, dropping an update");
+        }
+    }
+
+    /**
+     * Sends an event, completing the emitter if the client has gone away.
+     *
+     * @return whether the event was sent
+     */
+    private static boolean send(SseEmitter emitter, String event, RsvpCountsDTO counts) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(counts, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private static RsvpCountsDTO toDTO(Map<String, Long> values) {
+        RsvpCountsDTO dto = new RsvpCountsDTO();
+
+        values.forEach((key, value) -> {
+            if (key.startsWith(STATUS_PREFIX)) {
+                dto.getStatuses().put(ResponseStatus.valueOf(key.substring(STATUS_PREFIX.length())), value);
+            } else if (key.startsWith(MEAL_PREFIX)) {
+                dto.getMeals().put(UUID.fromString(key.substring(MEAL_PREFIX.length())), value);
+            }
+        });
+
+        return dto;
+    }
+
+    /**
+     * The value of a counter along with the revision it was persisted with.
+     */
+    private static class CounterState {
+
+        private final long value;
+
+        private final long revision;
+
+        CounterState(long value, long revision) {
+            this.value = value;
+            this.revision = revision;
+        }
+    }
+}
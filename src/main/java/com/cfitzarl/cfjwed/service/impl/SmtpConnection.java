@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import javax.mail.MessagingException;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.Date;
+
+/**
+ * A single SMTP connection that is held open across many messages, so that the TCP handshake, EHLO and STARTTLS are
+ * paid once per connection instead of once per email as with {@link JavaMailSenderImpl#send(MimeMessage)}. It is
+ * opened on first use, reopened once when the server has dropped it, and recycled after a maximum number of messages
+ * since many servers cap the messages they accept per session. It is not thread-safe; each worker holds its own.
+ */
+class SmtpConnection implements AutoCloseable {
+
+    private final JavaMailSenderImpl mailSender;
+
+    private final int maxMessages;
+
+    private Transport transport;
+
+    private int messageCount;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SmtpConnection.class);
+
+    SmtpConnection(JavaMailSenderImpl mailSender, int maxMessages) {
+        this.mailSender = mailSender;
+        this.maxMessages = Math.max(maxMessages, 1);
+    }
+
+    /**
+     * Sends a message over the held connection. A failure that leaves the connection open is the message's fault (e.g.
+     * a rejected recipient) and is rethrown as is; if a reused connection was dropped, the message is retried once on a
+     * fresh connection.
+     *
+     * @param message the message to send
+     * @throws MessagingException if the message could not be sent
+     */
+    void send(MimeMessage message) throws MessagingException {
+        if (message.getSentDate() == null) {
+            message.setSentDate(new Date());
+        }
+        message.saveChanges();
+
+        if (messageCount >= maxMessages) {
+            close();
+        }
+
+        boolean reused = (transport != null);
+
+        try {
+            connect().sendMessage(message, message.getAllRecipients());
+        } catch (MessagingException e) {
+            if ((transport != null) && transport.isConnected()) { throw e; }
+
+            close();
+
+            // Only a connection that was held open since an earlier message can have gone stale
+            if (!reused) { throw e; }
+
+            LOGGER.debug("SMTP connection was dropped, reconnecting", e);
+            connect().sendMessage(message, message.getAllRecipients());
+        }
+
+        messageCount++;
+    }
+
+    /**
+     * Closes the connection if it is open. The next {@link #send(MimeMessage)} opens a new one.
+     */
+    @Override
+    public void close() {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                LOGGER.debug("Unable to cleanly close SMTP connection", e);
+            }
+        }
+
+        transport = null;
+        messageCount = 0;
+    }
+
+    private Transport connect() throws MessagingException {
+        if (transport == null) {
+            String protocol = (mailSender.getProtocol() != null) ? mailSender.getProtocol() : "smtp";
+            String username = mailSender.getUsername();
+            String password = mailSender.getPassword();
+
+            // Match JavaMailSenderImpl, which treats empty credentials as none
+            if ("".equals(username)) {
+                username = null;
+                password = "".equals(password) ? null : password;
+            }
+
+            Transport connecting = mailSender.getSession().getTransport(protocol);
+            connecting.connect(mailSender.getHost(), mailSender.getPort(), username, password);
+            transport = connecting;
+        }
+
+        return transport;
+    }
+}
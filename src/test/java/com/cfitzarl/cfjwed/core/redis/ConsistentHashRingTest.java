@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.redis;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConsistentHashRingTest {
+
+    private static final int KEYS = 30000;
+
+    @Test
+    public void testKeysAreSpreadEvenly() {
+        ConsistentHashRing<String> ring = ring(3);
+        Map<String, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.get("session-" + i), 1, Integer::sum);
+        }
+
+        for (int count : counts.values()) {
+            assertTrue("Uneven share: " + counts, Math.abs(count - KEYS / 3) < KEYS / 3 * 0.2);
+        }
+    }
+
+    @Test
+    public void testAddingANodeOnlyMovesKeysToIt() {
+        ConsistentHashRing<String> before = ring(3);
+        ConsistentHashRing<String> after = ring(4);
+        int moved = 0;
+
+        for (int i = 0; i < KEYS; i++) {
+            String key = "session-" + i;
+            String previous = before.get(key);
+            String current = after.get(key);
+
+            if (!previous.equals(current)) {
+                assertEquals("node-3", current);
+                moved++;
+            }
+        }
+
+        assertTrue("Moved " + moved + " keys", Math.abs(moved - KEYS / 4) < KEYS / 4 * 0.2);
+    }
+
+    @Test
+    public void testNodeOrderDoesNotMatter() {
+        Map<String, String> reversed = new LinkedHashMap<>();
+        for (int i = 2; i >= 0; i--) {
+            reversed.put("node-" + i, "node-" + i);
+        }
+
+        ConsistentHashRing<String> ring = ring(3);
+        ConsistentHashRing<String> reversedRing = new ConsistentHashRing<>(reversed, 160);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ring.get("session-" + i), reversedRing.get("session-" + i));
+        }
+    }
+
+    private static ConsistentHashRing<String> ring(int nodes) {
+        Map<String, String> named = new LinkedHashMap<>();
+        for (int i = 0; i < nodes; i++) {
+            named.put("node-" + i, "node-" + i);
+        }
+        return new ConsistentHashRing<>(named, 160);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.scheduling;
+
+import com.cfitzarl.cfjwed.core.config.JsonMapperRegistry;
+import com.cfitzarl.cfjwed.data.dto.JobExecutionDTO;
+import com.cfitzarl.cfjwed.service.RedisService;
+import com.cfitzarl.cfjwed.service.impl.LocalRedisService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.internal.util.reflection.Whitebox;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JobCoordinatorTest {
+
+    private RedisService redisService;
+
+    private JobCoordinator first;
+
+    private JobCoordinator second;
+
+    @Before
+    public void setUp() {
+        redisService = new LocalRedisService(1000);
+        first = coordinator();
+        second = coordinator();
+    }
+
+    @After
+    public void tearDown() {
+        first.stop();
+        second.stop();
+    }
+
+    @Test
+    public void testExclusiveJobRunsOnOneNode() {
+        List<String> runs = new ArrayList<>();
+
+        assertTrue(first.runExclusively("job", () -> runs.add("first")));
+        assertFalse(second.runExclusively("job", () -> runs.add("second")));
+
+        assertEquals(1, runs.size());
+        assertEquals(1, first.findHistory("job").size());
+    }
+
+    @Test
+    public void testPartitionsAreSplitBetweenLiveNodes() {
+        first.heartbeat();
+        second.heartbeat();
+
+        List<JobPartition> partitions = new ArrayList<>();
+
+        // Whichever node gets to a partition first runs it, so the first node to finish helps with the rest
+        int ran = first.runPartitioned("job", partitions::add) + second.runPartitioned("job", partitions::add);
+        partitions.sort(Comparator.comparingInt(JobPartition::getIndex));
+
+        assertEquals(2, ran);
+        assertEquals(2, partitions.size());
+        assertEquals(2, partitions.get(0).getCount());
+        assertEquals(partitions.get(0).getUpperBound(), partitions.get(1).getLowerBound());
+        assertEquals(new UUID(0, 0), partitions.get(0).getLowerBound());
+        assertEquals(new UUID(-1L, -1L), partitions.get(1).getUpperBound());
+    }
+
+    @Test
+    public void testLeaseIsRenewedWhileWorkOutlivesIt() {
+        Whitebox.setInternalState(first, "leaseSeconds", 1);
+        List<Boolean> takenOver = new ArrayList<>();
+
+        first.runExclusively("job", () -> {
+            sleep(2500);
+            takenOver.add(second.runExclusively("job", () -> { }));
+        });
+
+        assertEquals(Collections.singletonList(false), takenOver);
+    }
+
+    @Test
+    public void testFailedJobIsReleased() {
+        try {
+            first.runExclusively("job", () -> { throw new IllegalStateException(); });
+            fail("Expected the failure to be thrown");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+
+        assertTrue(second.runExclusively("job", () -> { }));
+
+        List<JobExecutionDTO> history = first.findHistory("job");
+        assertEquals(2, history.size());
+        assertEquals(1, history.stream().filter(JobExecutionDTO::isSucceeded).count());
+    }
+
+    private JobCoordinator coordinator() {
+        JobCoordinator coordinator = new JobCoordinator();
+        Whitebox.setInternalState(coordinator, "jsonMapperRegistry", new JsonMapperRegistry());
+        Whitebox.setInternalState(coordinator, "redisService", redisService);
+        Whitebox.setInternalState(coordinator, "leaseSeconds", 60);
+        Whitebox.setInternalState(coordinator, "runWindowSeconds", 3600);
+        Whitebox.setInternalState(coordinator, "nodeTimeoutSeconds", 30);
+        Whitebox.setInternalState(coordinator, "historyRetentionDays", 30);
+        Whitebox.setInternalState(coordinator, "heartbeatInterval", 100L);
+        coordinator.initialize();
+        return coordinator;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.security;
+
+import com.cfitzarl.cfjwed.data.dao.AccountDao;
+import com.cfitzarl.cfjwed.data.dto.AuthenticationDTO;
+import com.cfitzarl.cfjwed.data.enums.AccountType;
+import com.cfitzarl.cfjwed.data.projection.LoginProjection;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AccessTokenServiceTest {
+
+    @InjectMocks
+    private AccessTokenService accessTokenService;
+
+    @Mock
+    private AccountDao accountDao;
+
+    @Mock
+    private AccessTokenDenyList denyList;
+
+    private AuthenticationDTO session;
+
+    @Before
+    public void setUp() {
+        Whitebox.setInternalState(accessTokenService, "authMode", AccessTokenService.SIGNED_MODE);
+        Whitebox.setInternalState(accessTokenService, "secret", Base64.getEncoder().encodeToString(new byte[32]));
+        Whitebox.setInternalState(accessTokenService, "tokenTtl", 300);
+        accessTokenService.initialize();
+
+        session = new AuthenticationDTO();
+        session.setAccountId(UUID.randomUUID());
+        session.setRole("ROLE_INVITEE");
+        session.setCsrf("csrf");
+        session.setToken("refresh");
+    }
+
+    @Test
+    public void testIssuedTokenVerifies() throws Exception {
+        AccessToken accessToken = accessTokenService.verify(accessTokenService.issue(session).getToken());
+
+        assertNotNull(accessToken);
+        assertEquals(session.getAccountId(), accessToken.getAccountId());
+        assertEquals("ROLE_INVITEE", accessToken.getRole());
+        assertEquals("csrf", accessToken.getCsrf());
+    }
+
+    @Test
+    public void testExpiredTokenIsRejected() throws Exception {
+        Whitebox.setInternalState(accessTokenService, "tokenTtl", -1);
+
+        assertNull(accessTokenService.verify(accessTokenService.issue(session).getToken()));
+    }
+
+    @Test
+    public void testTamperedTokenIsRejected() throws Exception {
+        String token = accessTokenService.issue(session).getToken();
+        char flipped = (token.charAt(3) == 'A') ? 'B' : 'A';
+
+        assertNull(accessTokenService.verify(token.substring(0, 3) + flipped + token.substring(4)));
+    }
+
+    @Test
+    public void testDescribeRebuildsSessionFromToken() throws Exception {
+        UUID invitationId = UUID.randomUUID();
+        LoginProjection login = new LoginProjection(session.getAccountId(), "guest@example.com", "First", "Last",
+            "hash", true, AccountType.INVITEE, invitationId);
+        when(accountDao.findLoginById(session.getAccountId())).thenReturn(login);
+        String token = accessTokenService.issue(session).getToken();
+
+        AuthenticationDTO described = accessTokenService.describe(token);
+
+        assertEquals("guest@example.com", described.getEmail());
+        assertEquals(invitationId, described.getInvitationId());
+        assertEquals(token, described.getToken());
+        assertNull(described.getRefreshToken());
+        assertNull(accessTokenService.describe("refresh"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSignedModeRequiresSecret() {
+        Whitebox.setInternalState(accessTokenService, "secret", "");
+        accessTokenService.initialize();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.security;
+
+import com.cfitzarl.cfjwed.data.dto.AuthenticationDTO;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+public class BinarySessionCodecTest {
+
+    private final BinarySessionCodec codec = new BinarySessionCodec();
+
+    @Test
+    public void testDecodeReturnsEncodedSession() throws Exception {
+        AuthenticationDTO session = new AuthenticationDTO();
+        session.setAccountId(UUID.randomUUID());
+        session.setEmail("jane@example.com");
+        session.setCsrf("csrf");
+        session.setFirstName("Jane");
+        session.setLastName("Doe");
+        session.setRole("ROLE_INVITEE");
+        session.setToken("token");
+
+        assertEquals(session, codec.decode(codec.encode(session), 0));
+    }
+
+    @Test
+    public void testDecodeHonorsOffset() throws Exception {
+        AuthenticationDTO session = new AuthenticationDTO();
+        session.setInvitationId(UUID.randomUUID());
+
+        byte[] payload = codec.encode(session);
+        byte[] data = new byte[payload.length + 1];
+        System.arraycopy(payload, 0, data, 1, payload.length);
+
+        assertEquals(session, codec.decode(data, 1));
+    }
+}
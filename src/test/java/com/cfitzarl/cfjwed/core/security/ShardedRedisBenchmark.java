@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.core.security;
+
+import com.cfitzarl.cfjwed.core.redis.RedisNode;
+import com.cfitzarl.cfjwed.core.redis.RedisTopology;
+import com.cfitzarl.cfjwed.core.resilience.CircuitBreaker;
+import com.cfitzarl.cfjwed.data.dto.AuthenticationDTO;
+import com.cfitzarl.cfjwed.data.enums.AccountType;
+import com.cfitzarl.cfjwed.service.impl.LocalRedisService;
+import com.cfitzarl.cfjwed.service.impl.RedisServiceImpl;
+import com.cfitzarl.cfjwed.service.impl.ResilientRedisService;
+import org.mockito.internal.util.reflection.Whitebox;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures session read/write throughput against an increasing number of Redis nodes, to show how it scales with
+ * sharding. Start local instances with {@code make redis-up}, then run {@code make redis-benchmark}. Requests go
+ * through the same stack the application uses: the session serializer, the {@link ResilientRedisService} and its
+ * circuit breaker, and {@link RedisServiceImpl} routing keys over the murmur3 ring. Each Redis instance is
+ * single-threaded, so on one machine throughput scales until the nodes run out of cores.
+ *
+ * <p>Arguments are the {@code host:port} of each node; the number of client threads and seconds per run can be set
+ * with the {@code threads} and {@code seconds} system properties. Calls the breaker diverted to the local fallback are
+ * reported alongside each run, since they do not touch Redis and would otherwise inflate the result.</p>
+ */
+public class ShardedRedisBenchmark {
+
+    private static final int EXPIRATION = 60;
+
+    public static void main(String[] args) throws Exception {
+        int threads = Integer.getInteger("threads", 64);
+        int seconds = Integer.getInteger("seconds", 10);
+
+        SessionSerializer serializer = new SessionSerializer();
+        Whitebox.setInternalState(serializer, "codecs", Collections.singletonList(new BinarySessionCodec()));
+        Whitebox.setInternalState(serializer, "codecName", "binary");
+        serializer.initialize();
+
+        for (int nodeCount = 1; nodeCount <= args.length; nodeCount++) {
+            Map<String, RedisNode> nodes = new LinkedHashMap<>();
+
+            for (int i = 0; i < nodeCount; i++) {
+                String[] address = args[i].split(":");
+                JedisPoolConfig poolConfig = new JedisPoolConfig();
+                poolConfig.setMaxTotal(threads);
+                JedisPool pool = new JedisPool(poolConfig, address[0], Integer.parseInt(address[1]));
+                nodes.put(args[i], new RedisNode(args[i], pool, null));
+            }
+
+            RedisTopology topology = new RedisTopology(nodes, 160);
+            RedisServiceImpl remote = new RedisServiceImpl();
+            Whitebox.setInternalState(remote, "redisTopology", topology);
+
+            CircuitBreaker circuitBreaker = new CircuitBreaker(50, 20, 50, 80, 250, 10000);
+            ResilientRedisService redisService =
+                new ResilientRedisService(remote, new LocalRedisService(10000), circuitBreaker);
+
+            double opsPerSecond = run(redisService, serializer, threads, seconds);
+            Map<String, Number> metrics = redisService.getMetrics();
+            topology.close();
+
+            System.out.printf("%d node(s): %,.0f ops/s (%s fallback calls, breaker opened %s times)%n", nodeCount,
+                opsPerSecond, metrics.get("fallbackCalls"), metrics.get("timesOpened"));
+        }
+    }
+
+    private static double run(ResilientRedisService redisService, SessionSerializer serializer, int threads,
+                              int seconds) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        LongAdder operations = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Runnable> clients = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            clients.add(() -> {
+                while (System.nanoTime() < deadline) {
+                    AuthenticationDTO session = session();
+
+                    try {
+                        redisService.set(session.getToken(), serializer.encode(session), EXPIRATION);
+                        serializer.decode(redisService.getAndExpire(session.getToken(), EXPIRATION));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+
+                    operations.add(2);
+                }
+            });
+        }
+
+        clients.forEach(executor::execute);
+        executor.shutdown();
+        executor.awaitTermination(seconds + 30, TimeUnit.SECONDS);
+
+        return operations.sum() / (double) seconds;
+    }
+
+    private static AuthenticationDTO session() {
+        AuthenticationDTO session = new AuthenticationDTO();
+        session.setAccountId(UUID.randomUUID());
+        session.setEmail("guest@example.com");
+        session.setCsrf(UUID.randomUUID().toString());
+        session.setFirstName("Jane");
+        session.setLastName("Doe");
+        session.setRole(AccountType.INVITEE.toString());
+        session.setToken(UUID.randomUUID().toString());
+        session.setRefreshToken(UUID.randomUUID().toString());
+        return session;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.data.dto;
+
+import com.cfitzarl.cfjwed.exception.BadRequestException;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+public class KeysetCursorTest {
+
+    private static final String NAME = "The Smith-M\u00fcller Family: 2nd";
+
+    private static final UUID ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    /** The cursor for {@link #NAME} and {@link #ID}, with the name encoded as UTF-8 **/
+    private static final String TOKEN =
+        "MDAwMDAwMDAtMDAwMC0wMDAwLTAwMDAtMDAwMDAwMDAwMDAxVGhlIFNtaXRoLU3DvGxsZXIgRmFtaWx5OiAybmQ";
+
+    @Test
+    public void testCursorSurvivesEncoding() {
+        KeysetCursor decoded = KeysetCursor.decode(new KeysetCursor(NAME, ID).encode());
+
+        assertEquals(NAME, decoded.getName());
+        assertEquals(ID, decoded.getId());
+    }
+
+    @Test
+    public void testNameIsEncodedAsUtf8() {
+        assertEquals(TOKEN, new KeysetCursor(NAME, ID).encode());
+        assertEquals(NAME, KeysetCursor.decode(TOKEN).getName());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testMalformedCursorIsRejected() {
+        KeysetCursor.decode("not a cursor");
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.data.dto.mapper;
+
+import com.cfitzarl.cfjwed.data.dao.AccountDao;
+import com.cfitzarl.cfjwed.data.dto.AccountDTO;
+import com.cfitzarl.cfjwed.data.model.Account;
+import com.cfitzarl.cfjwed.service.PasswordHashingService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AccountMapperTest {
+
+    @InjectMocks
+    private AccountMapperImpl accountMapper;
+
+    @Mock
+    private AccountDao accountDao;
+
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
+    @Test
+    public void testToDtoLeavesOutCredentials() {
+        Account account = new Account();
+        account.setId(UUID.randomUUID());
+        account.setEmail("guest@example.com");
+        account.setPassword("hash");
+        account.setInvitationCode("code");
+
+        AccountDTO dto = accountMapper.toDto(account);
+
+        assertEquals(account.getId(), dto.getId());
+        assertEquals("guest@example.com", dto.getEmail());
+        assertNull(dto.getPassword());
+        assertNull(dto.getInvitationCode());
+    }
+
+    @Test
+    public void testToEntityUpdatesExistingAccountAndHashesPassword() {
+        Account account = new Account();
+        account.setId(UUID.randomUUID());
+        account.setInvitationCode("code");
+
+        AccountDTO dto = new AccountDTO();
+        dto.setId(account.getId());
+        dto.setFirstName("First");
+        dto.setPassword("password");
+
+        when(accountDao.findOne(account.getId())).thenReturn(account);
+        when(passwordHashingService.hash("password")).thenReturn("hash");
+
+        assertSame(account, accountMapper.toEntity(dto));
+        assertEquals("First", account.getFirstName());
+        assertEquals("hash", account.getPassword());
+        assertEquals("code", account.getInvitationCode());
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.data.dto.mapper;
+
+import com.cfitzarl.cfjwed.data.dto.AttendantDTO;
+import com.cfitzarl.cfjwed.data.dto.InvitationDTO;
+import com.cfitzarl.cfjwed.data.enums.ResponseStatus;
+import com.cfitzarl.cfjwed.data.model.Attendant;
+import com.cfitzarl.cfjwed.data.model.Invitation;
+import com.cfitzarl.cfjwed.data.model.MealOption;
+import org.modelmapper.Converter;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.spi.MappingContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the generated mappers with the reflective ModelMapper path they replaced, by converting a page of
+ * invitations and the attendants of each, as the invitation list and attendant endpoints do. The ModelMapper side
+ * registers the same hand-written converters the application used to, so the difference is the cost of the type map
+ * lookup and mapping context on every call. Run it with {@code make mapper-benchmark}, and add {@code -prof gc} to the
+ * arguments to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private static final int GUESTS_PER_INVITATION = 3;
+
+    private final List<Invitation> invitations = new ArrayList<>();
+
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    private final InvitationMapper invitationMapper = new InvitationMapperImpl();
+
+    private final AttendantMapper attendantMapper = new AttendantMapperImpl();
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(MapperBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setUp() {
+        modelMapper.addConverter(new InvitationToDtoConverter());
+        modelMapper.addConverter(new AttendantToDtoConverter());
+
+        MealOption meal = new MealOption();
+        meal.setId(UUID.randomUUID());
+
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Invitation invitation = new Invitation();
+            invitation.setId(UUID.randomUUID());
+            invitation.setName("Invitation " + i);
+            invitation.setAddress(i + " Main Street");
+            invitation.setCode(Integer.toHexString(i));
+
+            for (int j = 0; j < GUESTS_PER_INVITATION; j++) {
+                Attendant attendant = new Attendant();
+                attendant.setId(UUID.randomUUID());
+                attendant.setName("Guest " + j);
+                attendant.setResponseStatus(ResponseStatus.ACCEPTED);
+                attendant.setMeal(meal);
+                attendant.setInvitation(invitation);
+                invitation.getAttendants().add(attendant);
+            }
+
+            invitations.add(invitation);
+        }
+    }
+
+    @Benchmark
+    public List<Object> modelMapper() {
+        List<Object> dtos = new ArrayList<>();
+
+        for (Invitation invitation : invitations) {
+            dtos.add(modelMapper.map(invitation, InvitationDTO.class));
+
+            for (Attendant attendant : invitation.getAttendants()) {
+                dtos.add(modelMapper.map(attendant, AttendantDTO.class));
+            }
+        }
+
+        return dtos;
+    }
+
+    @Benchmark
+    public List<Object> generatedMappers() {
+        List<Object> dtos = new ArrayList<>();
+
+        for (Invitation invitation : invitations) {
+            dtos.add(invitationMapper.toDto(invitation));
+
+            for (Attendant attendant : invitation.getAttendants()) {
+                dtos.add(attendantMapper.toDto(attendant));
+            }
+        }
+
+        return dtos;
+    }
+
+    private static class InvitationToDtoConverter implements Converter<Invitation, InvitationDTO> {
+
+        @Override
+        public InvitationDTO convert(MappingContext<Invitation, InvitationDTO> mappingContext) {
+            Invitation source = mappingContext.getSource();
+
+            InvitationDTO invitationDTO = new InvitationDTO();
+            invitationDTO.setId(source.getId());
+            invitationDTO.setName(source.getName());
+            invitationDTO.setAddress(source.getAddress());
+            invitationDTO.setGuestCount(source.getAttendants().size());
+            invitationDTO.setCode(source.getCode());
+
+            return invitationDTO;
+        }
+    }
+
+    private static class AttendantToDtoConverter implements Converter<Attendant, AttendantDTO> {
+
+        @Override
+        public AttendantDTO convert(MappingContext<Attendant, AttendantDTO> mappingContext) {
+            Attendant source = mappingContext.getSource();
+
+            AttendantDTO dto = new AttendantDTO();
+            dto.setId(source.getId());
+            dto.setName(source.getName());
+            dto.setResponseStatus(source.getResponseStatus());
+            dto.setInvitation(source.getInvitation().getId());
+
+            if (source.getMeal() != null) {
+                dto.setDiningOption(source.getMeal().getId());
+            }
+
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service;
+
+import com.cfitzarl.cfjwed.core.scheduling.JobCoordinator;
+import com.cfitzarl.cfjwed.core.scheduling.JobPartition;
+import com.cfitzarl.cfjwed.data.enums.ConfigKey;
+import com.cfitzarl.cfjwed.data.model.Config;
+import com.cfitzarl.cfjwed.data.model.OutboxEmail;
+import com.cfitzarl.cfjwed.data.projection.InvitationRecipient;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class InvitationReminderServiceTest {
+
+    private static final UUID FIRST = new UUID(0, 0);
+
+    private static final UUID LAST = new UUID(-1L, -1L);
+
+    @InjectMocks
+    private InvitationReminderService invitationReminderService;
+
+    @Mock
+    private ConfigurationService configurationService;
+
+    @Mock
+    private EmailDispatchingService emailDispatchingService;
+
+    @Mock
+    private InvitationService invitationService;
+
+    @Mock
+    private JobCoordinator jobCoordinator;
+
+    @Mock
+    private LocalizationService localizationService;
+
+    @Captor
+    private ArgumentCaptor<Collection<UUID>> idsCaptor;
+
+    @Before
+    public void setUp() {
+        Whitebox.setInternalState(invitationReminderService, "timeInterval", 5);
+        Whitebox.setInternalState(invitationReminderService, "pageSize", 2);
+
+        Config title = new Config();
+        title.setValue("Wedding");
+        when(configurationService.findByKey(ConfigKey.TITLE)).thenReturn(title);
+        doAnswer(invocation -> {
+            ((Consumer<JobPartition>) invocation.getArguments()[1]).accept(new JobPartition(0, 1));
+            return 1;
+        }).when(jobCoordinator).runPartitioned(eq("invitation-reminders"), any());
+        when(emailDispatchingService.compose(anyString(), anyString(), eq("reminder"), anyMap()))
+                .thenReturn(mock(OutboxEmail.class));
+    }
+
+    @Test
+    public void testRemindersArePagedByInvitation() {
+        InvitationRecipient first = recipient(1);
+        InvitationRecipient second = recipient(2);
+        InvitationRecipient third = recipient(3);
+
+        when(invitationService.findReminderRecipients(eq(FIRST), eq(LAST), any(DateTime.class), eq(2)))
+                .thenReturn(Arrays.asList(first, second));
+        UUID secondId = second.getInvitationId();
+        when(invitationService.findReminderRecipients(eq(secondId), eq(LAST), any(DateTime.class), eq(2)))
+                .thenReturn(Collections.singletonList(third));
+
+        invitationReminderService.sendReminderEmails();
+
+        verify(invitationService, times(2))
+                .markReminded(idsCaptor.capture(), any(DateTime.class), anyCollectionOf(OutboxEmail.class));
+        List<Collection<UUID>> pages = idsCaptor.getAllValues();
+        assertEquals(Arrays.asList(first.getInvitationId(), second.getInvitationId()), pages.get(0));
+        assertEquals(Collections.singletonList(third.getInvitationId()), pages.get(1));
+        verify(invitationService, never())
+                .findReminderRecipients(eq(third.getInvitationId()), eq(LAST), any(DateTime.class), eq(2));
+    }
+
+    @Test
+    public void testNoRemindersQueuesNothing() {
+        when(invitationService.findReminderRecipients(eq(FIRST), eq(LAST), any(DateTime.class), eq(2)))
+                .thenReturn(Collections.emptyList());
+
+        invitationReminderService.sendReminderEmails();
+
+        verify(emailDispatchingService, never()).compose(anyString(), anyString(), anyString(), anyMap());
+    }
+
+    private static InvitationRecipient recipient(long id) {
+        return new InvitationRecipient(new UUID(0, id), "guest" + id + "@example.com", "Guest");
+    }
+}
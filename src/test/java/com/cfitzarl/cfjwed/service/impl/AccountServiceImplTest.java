@@ -27,7 +27,9 @@ package com.cfitzarl.cfjwed.service.impl;
 import com.cfitzarl.cfjwed.data.dao.AccountDao;
 import com.cfitzarl.cfjwed.data.enums.AccountType;
 import com.cfitzarl.cfjwed.data.model.Account;
+import com.cfitzarl.cfjwed.data.projection.LoginProjection;
 import com.cfitzarl.cfjwed.exception.DuplicateEmailException;
+import com.cfitzarl.cfjwed.service.PasswordHashingService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -44,6 +46,7 @@ import static org.junit.Assert.assertTrue;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -54,6 +57,9 @@ public class AccountServiceImplTest {
     @Mock
     private AccountDao accountDao;
 
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
     @InjectMocks
     private AccountServiceImpl accountService;
 
@@ -99,10 +105,25 @@ public class AccountServiceImplTest {
 
     @Test
     public void hasValidCredsReturnsCorrectResponse() throws Exception {
-        account.setPassword("password");
+        LoginProjection login = createLogin("hash");
+        when(passwordHashingService.matches("password", "hash")).thenReturn(true);
+
+        assertTrue(accountService.hasValidCreds(login, "password"));
+        assertFalse(accountService.hasValidCreds(login, "notPassword"));
+
+        verify(accountDao, never()).updatePassword(any(UUID.class), anyString());
+    }
 
-        assertTrue(accountService.hasValidCreds(account, "password"));
-        assertFalse(accountService.hasValidCreds(account, "notPassword"));
+    @Test
+    public void testHasValidCredsRehashesOutdatedHash() throws Exception {
+        LoginProjection login = createLogin("oldHash");
+        when(passwordHashingService.matches("password", "oldHash")).thenReturn(true);
+        when(passwordHashingService.needsRehash("oldHash")).thenReturn(true);
+        when(passwordHashingService.hash("password")).thenReturn("newHash");
+
+        assertTrue(accountService.hasValidCreds(login, "password"));
+
+        verify(accountDao, times(1)).updatePassword(login.getId(), "newHash");
     }
 
     @Test
@@ -125,4 +146,10 @@ public class AccountServiceImplTest {
 
         accountService.save(dupedAccount);
     }
+
+    private LoginProjection createLogin(String password) {
+        return new LoginProjection(
+            UUID.randomUUID(), "email@email.com", "First", "Last", password, true, AccountType.INVITEE, null
+        );
+    }
 }
\ No newline at end of file
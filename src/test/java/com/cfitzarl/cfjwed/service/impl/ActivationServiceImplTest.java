@@ -29,12 +29,14 @@ import com.cfitzarl.cfjwed.data.model.Account;
 import com.cfitzarl.cfjwed.data.model.Activation;
 import com.cfitzarl.cfjwed.exception.ResourceNotFoundException;
 import com.cfitzarl.cfjwed.service.AccountService;
+import com.cfitzarl.cfjwed.service.PasswordHashingService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
@@ -56,6 +58,9 @@ public class ActivationServiceImplTest {
     @Mock
     private ActivationDao activationDao;
 
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
     @Test(expected = ResourceNotFoundException.class)
     public void testActivateThrowsResourceNotFoundWhenActivationNotFound() {
         when(activationDao.findByToken(anyString())).thenReturn(null);
@@ -71,8 +76,11 @@ public class ActivationServiceImplTest {
 
         when(activationDao.findByToken("1234")).thenReturn(activation);
 
+        when(passwordHashingService.hash("password")).thenReturn("hash");
+
         activationService.activate("1234", "password");
 
+        assertEquals("hash", account.getPassword());
         verify(activationDao, times(1)).delete(activation);
     }
 
@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.data.dao.AttendantDao;
+import com.cfitzarl.cfjwed.data.enums.ResponseStatus;
+import com.cfitzarl.cfjwed.data.model.Attendant;
+import com.cfitzarl.cfjwed.service.RsvpCounterService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AttendantServiceImplTest {
+
+    @InjectMocks
+    private AttendantServiceImpl attendantService;
+
+    @Mock
+    private AttendantDao attendantDao;
+
+    @Mock
+    private RsvpCounterService rsvpCounterService;
+
+    @Test
+    public void testSaveAllRecordsTheBatchOnce() {
+        Attendant first = attendant(ResponseStatus.ACCEPTED);
+        Attendant second = attendant(ResponseStatus.DECLINED);
+        List<Attendant> attendants = Arrays.asList(first, second);
+
+        // The counters must see the state each attendant was persisted with before this save
+        doAnswer(invocation -> {
+            assertNull(first.getPersistedResponseStatus());
+            return null;
+        }).when(rsvpCounterService).recordChanges(attendants);
+
+        attendantService.saveAll(attendants);
+
+        verify(attendantDao, times(1)).save(attendants);
+        verify(rsvpCounterService, times(1)).recordChanges(attendants);
+        verify(rsvpCounterService, never()).recordChange(any(), any(), any(), any());
+        assertEquals(ResponseStatus.ACCEPTED, first.getPersistedResponseStatus());
+        assertEquals(ResponseStatus.DECLINED, second.getPersistedResponseStatus());
+    }
+
+    private static Attendant attendant(ResponseStatus status) {
+        Attendant attendant = new Attendant();
+        attendant.setResponseStatus(status);
+        return attendant;
+    }
+}
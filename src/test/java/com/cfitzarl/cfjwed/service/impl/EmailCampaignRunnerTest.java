@@ -0,0 +1,181 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.data.model.EmailCampaign;
+import com.cfitzarl.cfjwed.data.model.OutboxEmail;
+import com.cfitzarl.cfjwed.data.projection.InvitationRecipient;
+import com.cfitzarl.cfjwed.service.EmailCampaignService;
+import com.cfitzarl.cfjwed.service.EmailDispatchingService;
+import com.cfitzarl.cfjwed.service.EmailOutboxService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EmailCampaignRunnerTest {
+
+    @InjectMocks
+    private EmailCampaignRunner emailCampaignRunner;
+
+    @Mock
+    private EmailCampaignService emailCampaignService;
+
+    @Mock
+    private EmailDispatchingService emailDispatchingService;
+
+    @Mock
+    private EmailOutboxDispatcher emailOutboxDispatcher;
+
+    @Mock
+    private EmailOutboxService emailOutboxService;
+
+    @Captor
+    private ArgumentCaptor<List<OutboxEmail>> emails;
+
+    private final ForkJoinPool renderPool = new ForkJoinPool(2);
+
+    private final ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+
+    private final EmailCampaign campaign = new EmailCampaign();
+
+    private final InvitationRecipient first = new InvitationRecipient(UUID.randomUUID(), "a@example.com", "A");
+
+    private final InvitationRecipient second = new InvitationRecipient(UUID.randomUUID(), "b@example.com", "B");
+
+    @Before
+    public void setUp() {
+        taskExecutor.initialize();
+
+        Whitebox.setInternalState(emailCampaignRunner, "renderPool", renderPool);
+        Whitebox.setInternalState(emailCampaignRunner, "taskExecutor", taskExecutor);
+        Whitebox.setInternalState(emailCampaignRunner, "concurrency", 1);
+        Whitebox.setInternalState(emailCampaignRunner, "pageSize", 2);
+        Whitebox.setInternalState(emailCampaignRunner, "ratePerSecond", 1000);
+        Whitebox.setInternalState(emailCampaignRunner, "leaseSeconds", 60);
+        Whitebox.setInternalState(emailCampaignRunner, "outboxHighWatermark", 100L);
+        Whitebox.setInternalState(emailCampaignRunner, "backpressurePause", 10L);
+        emailCampaignRunner.initialize();
+
+        campaign.setId(UUID.randomUUID());
+        campaign.setSubject("Subject");
+        campaign.setMessage("Message");
+
+        when(emailCampaignService.claim()).thenReturn(campaign);
+        when(emailDispatchingService.compose(anyString(), anyString(), anyString(),
+            anyMapOf(String.class, Object.class))).thenAnswer(invocation -> new OutboxEmail());
+    }
+
+    @After
+    public void tearDown() {
+        taskExecutor.shutdown();
+        renderPool.shutdown();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPageSlowerThanTheLeaseIsRejected() {
+        Whitebox.setInternalState(emailCampaignRunner, "pageSize", 600);
+        Whitebox.setInternalState(emailCampaignRunner, "ratePerSecond", 10);
+
+        emailCampaignRunner.initialize();
+    }
+
+    @Test
+    public void testRunQueuesEveryPageAndCompletes() {
+        when(emailCampaignService.findRecipients(eq(campaign), isNull(UUID.class), eq(2)))
+            .thenReturn(Arrays.asList(first, second));
+        when(emailCampaignService.findRecipients(campaign, second.getInvitationId(), 2))
+            .thenReturn(Collections.emptyList());
+        when(emailCampaignService.enqueue(eq(campaign), any(UUID.class), anyListOf(OutboxEmail.class), anyInt()))
+            .thenReturn(true);
+
+        emailCampaignRunner.dispatch();
+
+        verify(emailCampaignService, timeout(5000)).complete(campaign);
+        verify(emailCampaignService).enqueue(eq(campaign), eq(second.getInvitationId()), emails.capture(), eq(0));
+        assertEquals(2, emails.getValue().size());
+    }
+
+    @Test
+    public void testRunStopsWhenLeaseIsLost() {
+        when(emailCampaignService.findRecipients(eq(campaign), isNull(UUID.class), eq(2)))
+            .thenReturn(Arrays.asList(first, second));
+        when(emailCampaignService.enqueue(eq(campaign), any(UUID.class), anyListOf(OutboxEmail.class), anyInt()))
+            .thenReturn(false);
+
+        emailCampaignRunner.dispatch();
+
+        verify(emailCampaignService, timeout(5000)).enqueue(eq(campaign), any(UUID.class),
+            anyListOf(OutboxEmail.class), anyInt());
+        verify(emailCampaignService, never()).complete(campaign);
+        verify(emailCampaignService, never()).findRecipients(campaign, second.getInvitationId(), 2);
+    }
+
+    @Test
+    public void testRunSkipsRecipientsThatFailToRender() {
+        when(emailCampaignService.findRecipients(eq(campaign), isNull(UUID.class), eq(2)))
+            .thenReturn(Arrays.asList(first, second));
+        when(emailCampaignService.findRecipients(campaign, second.getInvitationId(), 2))
+            .thenReturn(Collections.emptyList());
+        when(emailCampaignService.enqueue(eq(campaign), any(UUID.class), anyListOf(OutboxEmail.class), anyInt()))
+            .thenReturn(true);
+        when(emailDispatchingService.compose(eq("b@example.com"), anyString(), anyString(),
+            anyMapOf(String.class, Object.class))).thenThrow(new IllegalStateException("broken template"));
+
+        emailCampaignRunner.dispatch();
+
+        verify(emailCampaignService, timeout(5000)).complete(campaign);
+        verify(emailCampaignService).enqueue(eq(campaign), eq(second.getInvitationId()), emails.capture(), eq(1));
+        assertEquals(1, emails.getValue().size());
+    }
+}
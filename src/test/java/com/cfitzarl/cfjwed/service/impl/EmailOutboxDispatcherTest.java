@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.data.model.OutboxEmail;
+import com.cfitzarl.cfjwed.service.EmailOutboxService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import javax.mail.internet.MimeMessage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EmailOutboxDispatcherTest {
+
+    @InjectMocks
+    private EmailOutboxDispatcher emailOutboxDispatcher;
+
+    @Mock
+    private EmailOutboxService emailOutboxService;
+
+    @Mock
+    private EmailRateLimiter emailRateLimiter;
+
+    @Mock
+    private SmtpConnection connection;
+
+    private List<OutboxEmail> batch;
+
+    @Before
+    public void setUp() {
+        Whitebox.setInternalState(emailOutboxDispatcher, "javaMailSender", new JavaMailSenderImpl());
+        Whitebox.setInternalState(emailOutboxDispatcher, "leaseSeconds", 120);
+
+        batch = Arrays.asList(email(), email());
+        when(emailOutboxService.markSent(any(OutboxEmail.class))).thenReturn(true);
+        when(emailRateLimiter.acquire()).thenReturn(true);
+    }
+
+    @Test
+    public void testEmailsAreMarkedAsTheyAreSent() throws Exception {
+        emailOutboxDispatcher.send(batch, connection);
+
+        verify(connection, times(2)).send(any(MimeMessage.class));
+        verify(emailOutboxService).markSent(same(batch.get(0)));
+        verify(emailOutboxService).markSent(same(batch.get(1)));
+        verify(emailOutboxService, never()).renew(anyString());
+    }
+
+    @Test
+    public void testBatchStopsWhenLeaseExpiresDuringIt() throws Exception {
+        // Renew before every email, as if each send took half the lease
+        Whitebox.setInternalState(emailOutboxDispatcher, "leaseSeconds", 0);
+        when(emailOutboxService.renew("owner")).thenReturn(2, 0);
+
+        emailOutboxDispatcher.send(batch, connection);
+
+        verify(connection, times(1)).send(any(MimeMessage.class));
+        verify(emailOutboxService).markSent(same(batch.get(0)));
+        verify(emailOutboxService, never()).markSent(same(batch.get(1)));
+    }
+
+    @Test
+    public void testEverySendTakesAPermit() throws Exception {
+        when(emailRateLimiter.acquire()).thenReturn(true, false);
+
+        emailOutboxDispatcher.send(batch, connection);
+
+        verify(emailRateLimiter, times(2)).acquire();
+        verify(connection, times(1)).send(any(MimeMessage.class));
+    }
+
+    @Test
+    public void testBatchStopsWhenEmailWasTakenOver() throws Exception {
+        when(emailOutboxService.markSent(same(batch.get(0)))).thenReturn(false);
+
+        emailOutboxDispatcher.send(batch, connection);
+
+        verify(connection, times(1)).send(any(MimeMessage.class));
+        verify(emailOutboxService, never()).markSent(same(batch.get(1)));
+    }
+
+    private static OutboxEmail email() {
+        OutboxEmail email = new OutboxEmail();
+        email.setId(UUID.randomUUID());
+        email.setLeaseOwner("owner");
+        email.setRecipient("guest@example.com");
+        email.setSender("hosts@example.com");
+        email.setSubject("Subject");
+        email.setTextBody("Text");
+        email.setHtmlBody("<p>Html</p>");
+        return email;
+    }
+}
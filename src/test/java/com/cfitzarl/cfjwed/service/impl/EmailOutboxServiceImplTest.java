@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.data.dao.OutboxEmailDao;
+import com.cfitzarl.cfjwed.data.model.OutboxEmail;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EmailOutboxServiceImplTest {
+
+    @InjectMocks
+    private EmailOutboxServiceImpl emailOutboxService;
+
+    @Mock
+    private OutboxEmailDao outboxEmailDao;
+
+    @Before
+    public void setUp() {
+        Whitebox.setInternalState(emailOutboxService, "leaseSeconds", 120);
+        Whitebox.setInternalState(emailOutboxService, "maxAttempts", 3);
+        Whitebox.setInternalState(emailOutboxService, "backoffSeconds", 30L);
+        Whitebox.setInternalState(emailOutboxService, "maxBackoffSeconds", 100L);
+    }
+
+    @Test
+    public void testClaimSkipsLookupWhenNothingClaimed() {
+        when(outboxEmailDao.claim(anyString(), eq(120), eq(20))).thenReturn(0);
+
+        List<OutboxEmail> claimed = emailOutboxService.claim(20);
+
+        assertTrue(claimed.isEmpty());
+        verify(outboxEmailDao, never()).findByLeaseOwner(anyString());
+    }
+
+    @Test
+    public void testMarkSentReportsLostLease() {
+        OutboxEmail email = email(0);
+        when(outboxEmailDao.markSent(email.getId().toString(), "owner")).thenReturn(0);
+
+        assertFalse(emailOutboxService.markSent(email));
+    }
+
+    @Test
+    public void testMarkFailedBacksOffExponentially() {
+        OutboxEmail email = email(1);
+
+        emailOutboxService.markFailed(email, "error");
+
+        verify(outboxEmailDao).markFailed(email.getId().toString(), "owner", "PENDING", 60L, "error");
+    }
+
+    @Test
+    public void testMarkFailedCapsBackoffAndGivesUpAfterMaxAttempts() {
+        OutboxEmail email = email(2);
+
+        emailOutboxService.markFailed(email, "error");
+
+        verify(outboxEmailDao).markFailed(email.getId().toString(), "owner", "FAILED", 100L, "error");
+    }
+
+    private OutboxEmail email(int attempts) {
+        OutboxEmail email = new OutboxEmail();
+        email.setId(UUID.randomUUID());
+        email.setAttempts(attempts);
+        email.setLeaseOwner("owner");
+        return email;
+    }
+}
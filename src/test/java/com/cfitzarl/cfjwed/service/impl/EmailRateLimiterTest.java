@@ -0,0 +1,67 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.internal.util.reflection.Whitebox;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EmailRateLimiterTest {
+
+    /** Two limiters sharing a store stand in for two nodes sharing Redis **/
+    private final EmailRateLimiter first = new EmailRateLimiter();
+
+    private final EmailRateLimiter second = new EmailRateLimiter();
+
+    @Before
+    public void setUp() {
+        LocalRedisService store = new LocalRedisService(100);
+
+        for (EmailRateLimiter limiter : new EmailRateLimiter[] { first, second }) {
+            Whitebox.setInternalState(limiter, "redisService", store);
+            Whitebox.setInternalState(limiter, "ratePerSecond", 2);
+        }
+    }
+
+    @Test
+    public void testRateIsSharedBetweenNodes() throws Exception {
+        // Start at the top of a second, so that all three permits are asked for within it
+        TimeUnit.MILLISECONDS.sleep(1000 - System.currentTimeMillis() % 1000);
+        long start = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+
+        assertTrue(first.acquire());
+        assertTrue(second.acquire());
+        assertTrue(first.acquire());
+
+        assertTrue(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) > start);
+        assertEquals(1L, first.getMetrics().get("waits"));
+        assertEquals(0L, second.getMetrics().get("waits"));
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.data.enums.ConfigKey;
+import com.cfitzarl.cfjwed.data.model.Config;
+import com.cfitzarl.cfjwed.service.ConfigurationService;
+import com.cfitzarl.cfjwed.service.LocalizationService;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.support.ReloadableResourceBundleMessageSource;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares rendering a batch of personalized invitee emails through the {@link EmailTemplateServiceImpl} with the path
+ * it replaced, which merged each template by name on an engine without resource caching and resolved every localized
+ * message for every recipient. Run it with {@code make template-benchmark}, and add
+ * {@code -prof gc} to the arguments to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailTemplateBenchmark {
+
+    private static final int RECIPIENTS = 1000;
+
+    private static final String TEMPLATE = "invitee-activation-email";
+
+    private final List<Map<String, Object>> recipients = new ArrayList<>();
+
+    private final Map<ConfigKey, Config> configs = new EnumMap<>(ConfigKey.class);
+
+    private final EmailTemplateServiceImpl emailTemplateService = new EmailTemplateServiceImpl();
+
+    private LocalizationService localizationService;
+
+    private VelocityEngine uncachedEngine;
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(EmailTemplateBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setUp() {
+        ReloadableResourceBundleMessageSource messageSource = new ReloadableResourceBundleMessageSource();
+        messageSource.setBasenames("classpath:locales/emails");
+        localizationService = new LocalizationServiceImpl();
+        Whitebox.setInternalState(localizationService, "messageSource", messageSource);
+
+        config(ConfigKey.TITLE, "Jane & John's Wedding");
+        config(ConfigKey.URL, "https://wedding.example.com");
+
+        uncachedEngine = engine(false);
+
+        Whitebox.setInternalState(emailTemplateService, "configurationService", new ConfigStub());
+        Whitebox.setInternalState(emailTemplateService, "localizationService", localizationService);
+        Whitebox.setInternalState(emailTemplateService, "velocityEngine", engine(true));
+
+        for (int i = 0; i < RECIPIENTS; i++) {
+            Map<String, Object> attrs = new HashMap<>();
+            attrs.put("name", "Guest " + i);
+            attrs.put("token", Integer.toHexString(i * 7919));
+            recipients.add(attrs);
+        }
+    }
+
+    @Benchmark
+    public List<String> perRecipient() {
+        List<String> emails = new ArrayList<>();
+
+        for (Map<String, Object> recipient : recipients) {
+            String title = configs.get(ConfigKey.TITLE).getValue();
+            String url = configs.get(ConfigKey.URL).getValue();
+
+            // Shared messages are resolved again for every recipient
+            Map<String, Object> attrs = new HashMap<>(recipient);
+            attrs.put("title", title);
+            attrs.put("url", url);
+            attrs.put("localeSource", localizationService);
+            attrs.put("fragments", new EmailTemplateServiceImpl.StaticFragments(localizationService, title, url));
+
+            String html = String.format("/email-templates/%s-html.vm", TEMPLATE);
+            String text = String.format("/email-templates/%s-text.vm", TEMPLATE);
+
+            emails.add(merge(html, attrs));
+            emails.add(merge(text, attrs));
+        }
+
+        return emails;
+    }
+
+    @Benchmark
+    public List<String> templateService() {
+        List<String> emails = new ArrayList<>();
+
+        for (Map<String, Object> recipient : recipients) {
+            Map<String, Object> attrs = new HashMap<>(recipient);
+            emails.add(emailTemplateService.renderHtml(TEMPLATE, attrs));
+            emails.add(emailTemplateService.renderText(TEMPLATE, attrs));
+        }
+
+        return emails;
+    }
+
+    private String merge(String template, Map<String, Object> attrs) {
+        StringWriter writer = new StringWriter();
+        uncachedEngine.mergeTemplate(template, "UTF-8", new VelocityContext(attrs), writer);
+        return writer.toString();
+    }
+
+    private void config(ConfigKey key, String value) {
+        Config config = new Config();
+        config.setKey(key);
+        config.setValue(value);
+        configs.put(key, config);
+    }
+
+    private static VelocityEngine engine(boolean cached) {
+        VelocityEngine engine = new VelocityEngine();
+        engine.setProperty("resource.loader", "class");
+        engine.setProperty(
+            "class.resource.loader.class", "org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader"
+        );
+        engine.setProperty("class.resource.loader.cache", String.valueOf(cached));
+        engine.init();
+        return engine;
+    }
+
+    private class ConfigStub implements ConfigurationService {
+
+        @Override
+        public List<Config> find() {
+            return new ArrayList<>(configs.values());
+        }
+
+        @Override
+        public Config findByKey(ConfigKey configKey) {
+            return configs.get(configKey);
+        }
+
+        @Override
+        public Config save(Config config) {
+            // Rendering never saves configs
+            return config;
+        }
+
+        @Override
+        public boolean ping() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.data.enums.ConfigKey;
+import com.cfitzarl.cfjwed.data.model.Config;
+import com.cfitzarl.cfjwed.service.ConfigurationService;
+import com.cfitzarl.cfjwed.service.LocalizationService;
+import org.apache.velocity.app.VelocityEngine;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertTrue;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EmailTemplateServiceImplTest {
+
+    private static final String HEADER = "email.activation.invitee.header";
+
+    @InjectMocks
+    private EmailTemplateServiceImpl emailTemplateService;
+
+    @Mock
+    private ConfigurationService configurationService;
+
+    @Mock
+    private LocalizationService localizationService;
+
+    @Spy
+    private VelocityEngine velocityEngine = new VelocityEngine();
+
+    @Before
+    public void setUp() {
+        velocityEngine.setProperty("resource.loader", "class");
+        velocityEngine.setProperty(
+            "class.resource.loader.class", "org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader"
+        );
+        velocityEngine.init();
+
+        when(localizationService.getMessage(anyString(), any(List.class))).thenAnswer(invocation -> {
+            List<?> args = (List<?>) invocation.getArguments()[1];
+            return invocation.getArguments()[0] + args.toString();
+        });
+
+        configure("Our Wedding");
+    }
+
+    @Test
+    public void testRenderCombinesRecipientAndSharedValues() {
+        String text = emailTemplateService.renderText("invitee-activation-email", attrs("Jane"));
+
+        assertTrue(text.contains("email.activation.invitee.greeting[Jane]"));
+        assertTrue(text.contains(HEADER + "[Our Wedding, http://example.com]"));
+    }
+
+    @Test
+    public void testRenderResolvesSharedMessagesOncePerConfiguration() {
+        emailTemplateService.renderHtml("invitee-activation-email", attrs("Jane"));
+        emailTemplateService.renderHtml("invitee-activation-email", attrs("John"));
+
+        verify(localizationService, times(1)).getMessage(eq(HEADER), anyListOf(String.class));
+
+        configure("Our Big Day");
+        String html = emailTemplateService.renderHtml("invitee-activation-email", attrs("Jane"));
+
+        verify(localizationService, times(2)).getMessage(eq(HEADER), anyListOf(String.class));
+        assertTrue(html.contains(HEADER + "[Our Big Day, http://example.com]"));
+    }
+
+    @Test
+    public void testRenderParsesTemplateOnce() {
+        emailTemplateService.renderText("invitee-activation-email", attrs("Jane"));
+        emailTemplateService.renderText("invitee-activation-email", attrs("John"));
+
+        verify(velocityEngine, times(1)).getTemplate("/email-templates/invitee-activation-email-text.vm", "UTF-8");
+    }
+
+    private void configure(String title) {
+        when(configurationService.findByKey(ConfigKey.TITLE)).thenReturn(config(ConfigKey.TITLE, title));
+        when(configurationService.findByKey(ConfigKey.URL)).thenReturn(config(ConfigKey.URL, "http://example.com"));
+    }
+
+    private Config config(ConfigKey key, String value) {
+        Config config = new Config();
+        config.setKey(key);
+        config.setValue(value);
+        return config;
+    }
+
+    private Map<String, Object> attrs(String name) {
+        Map<String, Object> attrs = new HashMap<>();
+        attrs.put("name", name);
+        attrs.put("token", "token");
+        return attrs;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MappedRedisServiceTest {
+
+    private File file;
+
+    private MappedRedisService service;
+
+    private static final int SLOTS = 64;
+    private static final int SLOT_SIZE = 128;
+    private static final int HEADER_SIZE = 64;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("mapped", ".db");
+        file.delete();
+        service = open();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        service.close();
+        file.delete();
+    }
+
+    @Test
+    public void testEntriesSurviveReopening() throws IOException {
+        service.set("first", "one");
+        service.set("second", new byte[] { 1, 2, 3 }, 3600);
+
+        service.close();
+        service = open();
+
+        assertEquals("one", service.get("first"));
+        assertEquals(3, service.getBytes("second").length);
+        assertEquals(2, service.getMetrics().get("entries"));
+    }
+
+    @Test
+    public void testRemovalKeepsCollidingEntriesReachable() {
+        for (int i = 0; i < 48; i++) {
+            service.set("key" + i, "value" + i);
+        }
+
+        for (int i = 0; i < 48; i += 2) {
+            service.delete("key" + i);
+        }
+
+        for (int i = 0; i < 48; i++) {
+            assertEquals(i % 2 == 0 ? null : "value" + i, service.get("key" + i));
+        }
+    }
+
+    @Test
+    public void testOverwriteReplacesValue() {
+        service.set("key", "a much longer first value");
+        service.set("key", "short");
+
+        assertEquals("short", service.get("key"));
+        assertEquals(1, service.getMetrics().get("entries"));
+    }
+
+    @Test
+    public void testEntriesLargerThanASlotAreRefused() {
+        service.set("key", new byte[200], 3600);
+
+        assertFalse(service.exists("key"));
+    }
+
+    @Test
+    public void testWritesAreRefusedOnceFull() {
+        for (int i = 0; i < 64; i++) {
+            service.set("key" + i, "value");
+        }
+
+        assertEquals(48, service.getMetrics().get("entries"));
+        assertTrue(service.exists("key0"));
+        assertNull(service.get("key63"));
+    }
+
+    @Test
+    public void testConditionalWritesOnlyApplyToTheOwner() {
+        assertTrue(service.setIfAbsent("lease", "first", 60));
+        assertFalse(service.setIfAbsent("lease", "second", 60));
+
+        assertFalse(service.expireIfEqual("lease", "second", 60));
+        assertFalse(service.deleteIfEqual("lease", "second"));
+        assertEquals("first", service.get("lease"));
+
+        assertTrue(service.deleteIfEqual("lease", "first"));
+        assertTrue(service.setIfAbsent("lease", "second", 60));
+    }
+
+    @Test
+    public void testTornEntriesAreDroppedAfterACrash() throws IOException {
+        for (int i = 0; i < 32; i++) {
+            service.set("key" + i, "value" + i);
+        }
+
+        int slot = slotOf("key7");
+        byte[] contents = readSlot(slot);
+        contents[new String(contents, StandardCharsets.ISO_8859_1).indexOf("value7")] ^= 1;
+        writeSlot(slot, contents);
+
+        // Abandon the open instance to simulate a crash
+        service = open();
+
+        assertNull(service.get("key7"));
+        assertEquals(31, service.getMetrics().get("entries"));
+
+        for (int i = 0; i < 32; i++) {
+            if (i != 7) { assertEquals("value" + i, service.get("key" + i)); }
+        }
+    }
+
+    @Test
+    public void testInterruptedRemovalIsRepairedAfterACrash() throws IOException {
+        for (int i = 0; i < 48; i++) {
+            service.set("key" + i, "value" + i);
+        }
+
+        String removed = null;
+        int slot = -1;
+
+        for (int i = 0; i < 48 && removed == null; i++) {
+            slot = slotOf("key" + i);
+            if (readSlot((slot + 1) % SLOTS)[0] != 0) { removed = "key" + i; }
+        }
+
+        // A removal that shifted the next entry of the run into the hole and then died
+        writeSlot(slot, readSlot((slot + 1) % SLOTS));
+        service = open();
+
+        assertNull(service.get(removed));
+        assertEquals(47, service.getMetrics().get("entries"));
+
+        for (int i = 0; i < 48; i++) {
+            if (!removed.equals("key" + i)) { assertEquals("value" + i, service.get("key" + i)); }
+        }
+
+        for (int i = 0; i < 48; i++) {
+            service.delete("key" + i);
+        }
+
+        assertEquals(0, service.getMetrics().get("entries"));
+    }
+
+    private MappedRedisService open() throws IOException {
+        MappedRedisService mapped = new MappedRedisService(file, SLOTS, SLOT_SIZE);
+        mapped.open();
+        return mapped;
+    }
+
+    private int slotOf(String key) throws IOException {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            byte[] contents = readSlot(slot);
+            String data = new String(contents, StandardCharsets.ISO_8859_1);
+            if (contents[0] != 0 && data.contains(key + "value")) { return slot; }
+        }
+
+        throw new AssertionError(key + " is not stored");
+    }
+
+    private byte[] readSlot(int slot) throws IOException {
+        byte[] contents = new byte[SLOT_SIZE];
+
+        try (RandomAccessFile raw = new RandomAccessFile(file, "r")) {
+            raw.seek(HEADER_SIZE + (long) slot * SLOT_SIZE);
+            raw.readFully(contents);
+        }
+
+        return contents;
+    }
+
+    private void writeSlot(int slot, byte[] contents) throws IOException {
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(HEADER_SIZE + (long) slot * SLOT_SIZE);
+            raw.write(contents);
+        }
+    }
+}
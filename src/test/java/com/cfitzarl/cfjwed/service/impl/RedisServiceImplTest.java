@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.core.redis.RedisNode;
+import com.cfitzarl.cfjwed.core.redis.RedisTopology;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.util.SafeEncoder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RedisServiceImplTest {
+
+    @InjectMocks
+    private RedisServiceImpl redisService;
+
+    @Mock
+    private RedisTopology redisTopology;
+
+    @Mock
+    private JedisPool primaryPool;
+
+    @Mock
+    private JedisPool replicaPool;
+
+    @Mock
+    private Jedis primary;
+
+    @Mock
+    private Jedis replica;
+
+    private static final String KEY = "token";
+
+    private static final byte[] VALUE = { 1, 2, 3 };
+
+    @Before
+    public void setup() {
+        when(redisTopology.nodeFor(KEY)).thenReturn(new RedisNode("node", primaryPool, replicaPool));
+        when(primaryPool.getResource()).thenReturn(primary);
+        when(replicaPool.getResource()).thenReturn(replica);
+    }
+
+    @Test
+    public void testReplicaHitIsServedByTheReplica() {
+        when(replica.get(SafeEncoder.encode(KEY))).thenReturn(VALUE);
+
+        assertArrayEquals(VALUE, redisService.getBytes(KEY));
+        verify(primary, never()).get(any(byte[].class));
+    }
+
+    @Test
+    public void testReplicaMissFallsBackToThePrimary() {
+        when(primary.get(SafeEncoder.encode(KEY))).thenReturn(VALUE);
+
+        assertArrayEquals(VALUE, redisService.getBytes(KEY));
+        assertEquals(1L, redisService.getMetrics().get("replicaMisses"));
+    }
+
+    @Test
+    public void testMissOnBothReturnsNull() {
+        assertNull(redisService.getBytes(KEY));
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.data.dao.ConfigDao;
+import com.cfitzarl.cfjwed.data.dao.MealOptionDao;
+import com.cfitzarl.cfjwed.data.enums.ConfigKey;
+import com.cfitzarl.cfjwed.data.model.Config;
+import com.cfitzarl.cfjwed.data.model.MealOption;
+import com.cfitzarl.cfjwed.service.RedisService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReferenceDataCacheTest {
+
+    @InjectMocks
+    private ReferenceDataCache referenceDataCache;
+
+    @Mock
+    private ConfigDao configDao;
+
+    @Mock
+    private MealOptionDao mealOptionDao;
+
+    @Mock
+    private RedisService redisService;
+
+    @Before
+    public void setup() {
+        Whitebox.setInternalState(referenceDataCache, "ttl", 300);
+    }
+
+    @Test
+    public void testConfigsAreLoadedOnceAndCopied() {
+        Config config = config("Our Wedding");
+        when(configDao.findAll()).thenReturn(Collections.singletonList(config));
+
+        Config cached = referenceDataCache.getConfig(ConfigKey.TITLE);
+        referenceDataCache.getConfig(ConfigKey.TITLE);
+
+        assertEquals("Our Wedding", cached.getValue());
+        assertNotSame(config, cached);
+        assertNull(referenceDataCache.getConfig(ConfigKey.EMAIL));
+        verify(configDao, times(1)).findAll();
+    }
+
+    @Test
+    public void testInvalidationReloadsAndBroadcasts() {
+        when(configDao.findAll())
+            .thenReturn(Collections.singletonList(config("Before")))
+            .thenReturn(Collections.singletonList(config("After")));
+
+        assertEquals("Before", referenceDataCache.getConfig(ConfigKey.TITLE).getValue());
+        referenceDataCache.invalidateConfigs();
+        assertEquals("After", referenceDataCache.getConfig(ConfigKey.TITLE).getValue());
+
+        verify(redisService, times(1)).publish(ReferenceDataCache.CHANNEL, "configs");
+    }
+
+    @Test
+    public void testMealOptionInvalidationLeavesConfigsCached() {
+        MealOption option = new MealOption();
+        option.setId(UUID.randomUUID());
+        option.setName("Fish");
+
+        when(configDao.findAll()).thenReturn(Collections.singletonList(config("Title")));
+        when(mealOptionDao.findAll()).thenReturn(Collections.singletonList(option));
+
+        referenceDataCache.getConfigs();
+        assertEquals("Fish", referenceDataCache.getMealOption(option.getId()).getName());
+
+        referenceDataCache.invalidateMealOptions();
+        referenceDataCache.getConfigs();
+        referenceDataCache.getMealOptions();
+
+        verify(configDao, times(1)).findAll();
+        verify(mealOptionDao, times(2)).findAll();
+    }
+
+    @Test
+    public void testExpiredSnapshotIsReloaded() {
+        Whitebox.setInternalState(referenceDataCache, "ttl", 0);
+        when(configDao.findAll())
+            .thenReturn(Collections.singletonList(config("Before")))
+            .thenReturn(Collections.singletonList(config("After")));
+
+        assertEquals("Before", referenceDataCache.getConfig(ConfigKey.TITLE).getValue());
+        assertEquals("After", referenceDataCache.getConfig(ConfigKey.TITLE).getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testResubscribingDropsBothSnapshots() {
+        ArgumentCaptor<Runnable> subscribed = ArgumentCaptor.forClass(Runnable.class);
+        referenceDataCache.initialize();
+        verify(redisService).subscribe(any(Consumer.class), subscribed.capture(), eq(ReferenceDataCache.CHANNEL));
+
+        when(configDao.findAll()).thenReturn(Collections.singletonList(config("Title")));
+        when(mealOptionDao.findAll()).thenReturn(Collections.emptyList());
+
+        referenceDataCache.getConfigs();
+        referenceDataCache.getMealOptions();
+        subscribed.getValue().run();
+        referenceDataCache.getConfigs();
+        referenceDataCache.getMealOptions();
+
+        verify(configDao, times(2)).findAll();
+        verify(mealOptionDao, times(2)).findAll();
+    }
+
+    private static Config config(String value) {
+        Config config = new Config();
+        config.setKey(ConfigKey.TITLE);
+        config.setValue(value);
+        return config;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.core.resilience.CircuitBreaker;
+import com.cfitzarl.cfjwed.service.RedisService;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ResilientRedisServiceTest {
+
+    private RedisService remote;
+
+    private CircuitBreaker circuitBreaker;
+
+    private ResilientRedisService resilientRedisService;
+
+    @Before
+    public void setUp() {
+        remote = mock(RedisService.class);
+        // Opens on the first failure and lets a probe through straight away
+        circuitBreaker = new CircuitBreaker(2, 1, 50, 100, 100, 0);
+        resilientRedisService = new ResilientRedisService(remote, new LocalRedisService(100), circuitBreaker);
+
+        circuitBreaker.onFailure(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Test
+    public void testUnexpectedErrorDuringProbeReopensBreaker() {
+        when(remote.get("key")).thenThrow(new IllegalStateException()).thenReturn("value");
+
+        try {
+            resilientRedisService.get("key");
+            fail("Expected the error to be rethrown");
+        } catch (IllegalStateException e) {
+            assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        }
+
+        assertEquals("value", resilientRedisService.get("key"));
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testRedisErrorDuringConditionalWriteProbeFails() {
+        when(remote.setIfAbsent("key", "value", 60)).thenThrow(new JedisConnectionException("down"));
+
+        assertFalse(resilientRedisService.setIfAbsent("key", "value", 60));
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+}
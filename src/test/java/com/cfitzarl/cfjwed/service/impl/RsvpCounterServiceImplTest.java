@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.cfitzarl.cfjwed.data.dao.RsvpCounterDao;
+import com.cfitzarl.cfjwed.data.enums.ResponseStatus;
+import com.cfitzarl.cfjwed.data.model.RsvpCounter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RsvpCounterServiceImplTest {
+
+    @InjectMocks
+    private RsvpCounterServiceImpl rsvpCounterService;
+
+    @Mock
+    private RsvpCounterDao rsvpCounterDao;
+
+    private static final String ACCEPTED = "status:" + ResponseStatus.ACCEPTED;
+
+    @Before
+    public void setup() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @After
+    public void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    public void testChangeSyncedBeforeItsCommitHookIsCountedOnce() {
+        RsvpCounter committed = new RsvpCounter(ACCEPTED, 1, 1);
+        when(rsvpCounterDao.findCurrent(anyCollectionOf(String.class)))
+            .thenReturn(Collections.singletonList(committed));
+        when(rsvpCounterDao.findAll()).thenReturn(Collections.singletonList(committed));
+
+        rsvpCounterService.recordChange(null, null, ResponseStatus.ACCEPTED, null);
+        rsvpCounterService.sync();
+        commit();
+
+        assertEquals(1L, (long) rsvpCounterService.getStatusCounts().get(ResponseStatus.ACCEPTED));
+    }
+
+    @Test
+    public void testStaleSyncDoesNotUndoANewerChange() {
+        when(rsvpCounterDao.findCurrent(anyCollectionOf(String.class)))
+            .thenReturn(Collections.singletonList(new RsvpCounter(ACCEPTED, 2, 2)));
+        when(rsvpCounterDao.findAll()).thenReturn(Collections.singletonList(new RsvpCounter(ACCEPTED, 1, 1)));
+
+        rsvpCounterService.recordChange(null, null, ResponseStatus.ACCEPTED, null);
+        commit();
+        rsvpCounterService.sync();
+
+        assertEquals(2L, (long) rsvpCounterService.getStatusCounts().get(ResponseStatus.ACCEPTED));
+    }
+
+    private static void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    }
+}
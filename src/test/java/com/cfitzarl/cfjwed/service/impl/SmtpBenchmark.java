@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares the messages per second of opening a connection per email, as {@link JavaMailSenderImpl#send(MimeMessage)}
+ * does, with sending over held {@link SmtpConnection}s. Run it with {@code make smtp-benchmark}. Without arguments it
+ * sends to an embedded GreenMail server; pass {@code host:port} to send to a real one instead, where the difference
+ * grows with the round trip time and with STARTTLS.
+ *
+ * <p>The number of messages, concurrent connections and messages per connection can be set with the
+ * {@code messages}, {@code threads} and {@code maxMessages} system properties.</p>
+ */
+public class SmtpBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int messages = Integer.getInteger("messages", 2000);
+        int threads = Integer.getInteger("threads", 2);
+        int maxMessages = Integer.getInteger("maxMessages", 100);
+
+        GreenMail greenMail = null;
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+
+        if (args.length > 0) {
+            String[] address = args[0].split(":");
+            mailSender.setHost(address[0]);
+            mailSender.setPort(Integer.parseInt(address[1]));
+        } else {
+            greenMail = new GreenMail(new ServerSetup(3025, "localhost", ServerSetup.PROTOCOL_SMTP));
+            greenMail.start();
+            mailSender.setHost("localhost");
+            mailSender.setPort(3025);
+        }
+
+        try {
+            // Warm up both paths before measuring
+            run(mailSender, messages / 10, threads, 0);
+            run(mailSender, messages / 10, threads, maxMessages);
+
+            System.out.printf("Connection per message: %,.0f messages/s%n", run(mailSender, messages, threads, 0));
+            System.out.printf("Held connections:       %,.0f messages/s%n",
+                run(mailSender, messages, threads, maxMessages));
+        } finally {
+            if (greenMail != null) { greenMail.stop(); }
+        }
+    }
+
+    /**
+     * Sends the messages from the given number of threads and returns the messages sent per second. A
+     * {@code maxMessages} of zero sends each message with {@link JavaMailSenderImpl#send(MimeMessage)}.
+     */
+    private static double run(JavaMailSenderImpl mailSender, int messages, int threads, int maxMessages)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Callable<Void>> workers = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            int count = messages / threads;
+
+            workers.add(() -> {
+                if (maxMessages == 0) {
+                    for (int j = 0; j < count; j++) {
+                        mailSender.send(message(mailSender, j));
+                    }
+                    return null;
+                }
+
+                try (SmtpConnection connection = new SmtpConnection(mailSender, maxMessages)) {
+                    for (int j = 0; j < count; j++) {
+                        connection.send(message(mailSender, j));
+                    }
+                }
+                return null;
+            });
+        }
+
+        long start = System.nanoTime();
+
+        for (Future<Void> future : executor.invokeAll(workers)) {
+            future.get();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+
+        return (messages / threads * threads) / seconds;
+    }
+
+    private static MimeMessage message(JavaMailSenderImpl mailSender, int number) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+        helper.setTo("guest" + number + "@example.com");
+        helper.setFrom("Wedding <wedding@example.com>");
+        helper.setSubject("You're invited");
+        helper.setText("You're invited to our wedding.", "<p>You're invited to our wedding.</p>");
+        return message;
+    }
+}
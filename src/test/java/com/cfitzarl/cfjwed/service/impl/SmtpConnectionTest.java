@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016  Christopher R. Fitzpatrick
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cfitzarl.cfjwed.service.impl;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+
+import static org.junit.Assert.assertEquals;
+
+public class SmtpConnectionTest {
+
+    private GreenMail greenMail;
+
+    private JavaMailSenderImpl mailSender;
+
+    @Before
+    public void setUp() {
+        greenMail = new GreenMail(ServerSetupTest.SMTP);
+        greenMail.start();
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+    }
+
+    @After
+    public void tearDown() {
+        greenMail.stop();
+    }
+
+    @Test
+    public void testSendDeliversEveryMessageAcrossRecycledConnections() throws MessagingException {
+        try (SmtpConnection connection = new SmtpConnection(mailSender, 2)) {
+            for (int i = 0; i < 5; i++) {
+                connection.send(message(i));
+            }
+        }
+
+        assertEquals(5, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    public void testSendReconnectsWhenServerDropsConnection() throws MessagingException {
+        try (SmtpConnection connection = new SmtpConnection(mailSender, 100)) {
+            connection.send(message(1));
+
+            greenMail.stop();
+            greenMail = new GreenMail(ServerSetupTest.SMTP);
+            greenMail.start();
+
+            connection.send(message(2));
+        }
+
+        assertEquals(1, greenMail.getReceivedMessages().length);
+    }
+
+    private MimeMessage message(int number) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+        helper.setTo("guest" + number + "@example.com");
+        helper.setFrom("Wedding <wedding@example.com>");
+        helper.setSubject("Message " + number);
+        helper.setText("text", "<p>html</p>");
+        return message;
+    }
+}